@@ -2,11 +2,20 @@ package com.invoiceai.controller;
 
 import com.invoiceai.dto.request.AssistantChatRequest;
 import com.invoiceai.dto.response.AssistantChatResponse;
+import com.invoiceai.dto.response.AssistantConversationResponse;
+import com.invoiceai.security.UserPrincipal;
+import com.invoiceai.service.AssistantConversationService;
 import com.invoiceai.service.AssistantService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/assistant")
@@ -14,10 +23,40 @@ import org.springframework.web.bind.annotation.*;
 public class AssistantController {
 
     private final AssistantService assistantService;
+    private final AssistantConversationService conversationService;
 
     @PostMapping("/chat")
-    public ResponseEntity<AssistantChatResponse> chat(@Valid @RequestBody AssistantChatRequest request) {
-        String reply = assistantService.chat(request);
-        return ResponseEntity.ok(AssistantChatResponse.builder().reply(reply).build());
+    public ResponseEntity<AssistantChatResponse> chat(
+            @Valid @RequestBody AssistantChatRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(assistantService.chat(request, principal.getUser()));
+    }
+
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(
+            @Valid @RequestBody AssistantChatRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return assistantService.chatStream(request, principal.getUser());
+    }
+
+    @GetMapping("/conversations")
+    public ResponseEntity<List<AssistantConversationResponse>> listConversations(
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(conversationService.listConversations(principal.getUser()));
+    }
+
+    @GetMapping("/conversations/{id}")
+    public ResponseEntity<AssistantConversationResponse> getConversation(
+            @PathVariable UUID id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(conversationService.getConversation(id, principal.getUser()));
+    }
+
+    @DeleteMapping("/conversations/{id}")
+    public ResponseEntity<Void> deleteConversation(
+            @PathVariable UUID id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        conversationService.deleteConversation(id, principal.getUser());
+        return ResponseEntity.noContent().build();
     }
 }
@@ -5,11 +5,14 @@ import com.invoiceai.dto.request.UpdateBudgetRequest;
 import com.invoiceai.dto.response.BudgetProgressResponse;
 import com.invoiceai.dto.response.BudgetResponse;
 import com.invoiceai.service.BudgetService;
+import com.invoiceai.service.DataVersionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,10 +23,16 @@ import java.util.UUID;
 public class BudgetController {
 
     private final BudgetService budgetService;
+    private final DataVersionService dataVersionService;
 
     @GetMapping
-    public ResponseEntity<List<BudgetResponse>> getBudgets() {
-        return ResponseEntity.ok(budgetService.getBudgets());
+    public ResponseEntity<List<BudgetResponse>> getBudgets(WebRequest webRequest) {
+        if (dataVersionService.isNotModified(webRequest, false)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(budgetService.getBudgets());
     }
 
     @PostMapping
@@ -45,7 +54,13 @@ public class BudgetController {
     }
 
     @GetMapping("/progress")
-    public ResponseEntity<BudgetProgressResponse> getBudgetProgress() {
-        return ResponseEntity.ok(budgetService.getBudgetProgress());
+    public ResponseEntity<BudgetProgressResponse> getBudgetProgress(WebRequest webRequest) {
+        // Progress is for the current month, so the ETag also rolls over with the date
+        if (dataVersionService.isNotModified(webRequest, true)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(budgetService.getBudgetProgress());
     }
 }
@@ -4,11 +4,14 @@ import com.invoiceai.dto.request.CreateCategoryRequest;
 import com.invoiceai.dto.request.UpdateCategoryRequest;
 import com.invoiceai.dto.response.CategoryResponse;
 import com.invoiceai.service.CategoryService;
+import com.invoiceai.service.DataVersionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -19,10 +22,16 @@ import java.util.UUID;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final DataVersionService dataVersionService;
 
     @GetMapping
-    public ResponseEntity<List<CategoryResponse>> getCategories() {
-        return ResponseEntity.ok(categoryService.getCategories());
+    public ResponseEntity<List<CategoryResponse>> getCategories(WebRequest webRequest) {
+        if (dataVersionService.isNotModified(webRequest, false)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(categoryService.getCategories());
     }
 
     @PostMapping
@@ -1,13 +1,17 @@
 package com.invoiceai.controller;
 
+import com.invoiceai.dto.response.DashboardOverviewResponse;
 import com.invoiceai.dto.response.DashboardSummaryResponse;
 import com.invoiceai.dto.response.MonthlyTrendResponse;
 import com.invoiceai.dto.response.SpendByCategoryResponse;
 import com.invoiceai.dto.response.TopVendorsResponse;
 import com.invoiceai.service.DashboardService;
+import com.invoiceai.service.DataVersionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 
@@ -17,30 +21,57 @@ import java.time.LocalDate;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DataVersionService dataVersionService;
 
     @GetMapping("/summary")
     public ResponseEntity<DashboardSummaryResponse> getSummary(
             @RequestParam(defaultValue = "current_month") String period,
             @RequestParam(required = false) LocalDate dateFrom,
-            @RequestParam(required = false) LocalDate dateTo) {
+            @RequestParam(required = false) LocalDate dateTo,
+            WebRequest webRequest) {
 
+        if (dataVersionService.isNotModified(webRequest, true)) {
+            return null;
+        }
         LocalDate[] range = resolveDateRange(period, dateFrom, dateTo);
-        return ResponseEntity.ok(dashboardService.getSummary(range[0], range[1]));
+        return revalidated(dashboardService.getSummary(range[0], range[1]));
+    }
+
+    @GetMapping("/overview")
+    public ResponseEntity<DashboardOverviewResponse> getOverview(
+            @RequestParam(defaultValue = "current_month") String period,
+            @RequestParam(required = false) LocalDate dateFrom,
+            @RequestParam(required = false) LocalDate dateTo,
+            @RequestParam(defaultValue = "10") int vendorLimit,
+            WebRequest webRequest) {
+
+        if (dataVersionService.isNotModified(webRequest, true)) {
+            return null;
+        }
+        LocalDate[] range = resolveDateRange(period, dateFrom, dateTo);
+        return revalidated(dashboardService.getOverview(range[0], range[1], vendorLimit));
     }
 
     @GetMapping("/spend-by-category")
     public ResponseEntity<SpendByCategoryResponse> getSpendByCategory(
             @RequestParam(defaultValue = "current_month") String period,
             @RequestParam(required = false) LocalDate dateFrom,
-            @RequestParam(required = false) LocalDate dateTo) {
+            @RequestParam(required = false) LocalDate dateTo,
+            WebRequest webRequest) {
 
+        if (dataVersionService.isNotModified(webRequest, true)) {
+            return null;
+        }
         LocalDate[] range = resolveDateRange(period, dateFrom, dateTo);
-        return ResponseEntity.ok(dashboardService.getSpendByCategory(range[0], range[1]));
+        return revalidated(dashboardService.getSpendByCategory(range[0], range[1]));
     }
 
     @GetMapping("/monthly-trend")
-    public ResponseEntity<MonthlyTrendResponse> getMonthlyTrend() {
-        return ResponseEntity.ok(dashboardService.getMonthlyTrend());
+    public ResponseEntity<MonthlyTrendResponse> getMonthlyTrend(WebRequest webRequest) {
+        if (dataVersionService.isNotModified(webRequest, true)) {
+            return null;
+        }
+        return revalidated(dashboardService.getMonthlyTrend());
     }
 
     @GetMapping("/top-vendors")
@@ -48,10 +79,19 @@ public class DashboardController {
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "current_month") String period,
             @RequestParam(required = false) LocalDate dateFrom,
-            @RequestParam(required = false) LocalDate dateTo) {
+            @RequestParam(required = false) LocalDate dateTo,
+            WebRequest webRequest) {
 
+        if (dataVersionService.isNotModified(webRequest, true)) {
+            return null;
+        }
         LocalDate[] range = resolveDateRange(period, dateFrom, dateTo);
-        return ResponseEntity.ok(dashboardService.getTopVendors(limit, range[0], range[1]));
+        return revalidated(dashboardService.getTopVendors(limit, range[0], range[1]));
+    }
+
+    /** Lets browsers keep the body but revalidate it (If-None-Match) on every use. */
+    private <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(body);
     }
 
     private LocalDate[] resolveDateRange(String period, LocalDate dateFrom, LocalDate dateTo) {
@@ -1,15 +1,20 @@
 package com.invoiceai.controller;
 
+import com.invoiceai.dto.request.BatchReviewRequest;
 import com.invoiceai.dto.request.BulkCreateExpenseRequest;
 import com.invoiceai.dto.request.CreateExpenseRequest;
 import com.invoiceai.dto.request.ExportToEmailRequest;
 import com.invoiceai.dto.request.RejectExpenseRequest;
 import com.invoiceai.dto.request.UpdateExpenseRequest;
+import com.invoiceai.dto.response.BatchReviewResponse;
 import com.invoiceai.dto.response.BulkCreateExpenseResponse;
+import com.invoiceai.dto.response.DuplicateCandidateResponse;
 import com.invoiceai.dto.response.ExpenseResponse;
+import com.invoiceai.exception.PreconditionFailedException;
 import com.invoiceai.model.Expense;
 import com.invoiceai.model.enums.ExpenseStatus;
 import com.invoiceai.security.UserPrincipal;
+import com.invoiceai.service.DataVersionService;
 import com.invoiceai.service.ExpenseService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
@@ -17,10 +22,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.PrintWriter;
 import java.math.BigDecimal;
@@ -34,6 +42,7 @@ import java.util.UUID;
 public class ExpenseController {
 
     private final ExpenseService expenseService;
+    private final DataVersionService dataVersionService;
 
     @GetMapping
     public ResponseEntity<Page<ExpenseResponse>> getExpenses(
@@ -45,42 +54,79 @@ public class ExpenseController {
             @RequestParam(required = false) BigDecimal amountMin,
             @RequestParam(required = false) BigDecimal amountMax,
             @RequestParam(required = false) String search,
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(expenseService.getExpenses(
-                status, categoryId, vendorName, dateFrom, dateTo,
-                amountMin, amountMax, search, pageable));
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        if (dataVersionService.isNotModified(webRequest, false)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(expenseService.getExpenses(
+                        status, categoryId, vendorName, dateFrom, dateTo,
+                        amountMin, amountMax, search, pageable));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ExpenseResponse> getExpense(@PathVariable UUID id) {
-        return ResponseEntity.ok(expenseService.getExpense(id));
+    public ResponseEntity<ExpenseResponse> getExpense(@PathVariable UUID id, WebRequest webRequest) {
+        ExpenseResponse expense = expenseService.getExpense(id);
+        if (webRequest.checkNotModified(etag(expense))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(expense);
+    }
+
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<List<DuplicateCandidateResponse>> getDuplicateCandidates(@PathVariable UUID id) {
+        return ResponseEntity.ok(expenseService.getDuplicateCandidates(id));
     }
 
     @PostMapping
-    public ResponseEntity<ExpenseResponse> createExpense(@Valid @RequestBody CreateExpenseRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(expenseService.createExpense(request));
+    public ResponseEntity<ExpenseResponse> createExpense(
+            @Valid @RequestBody CreateExpenseRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(expenseService.createExpense(request, principal.getUser()));
     }
 
     @PatchMapping("/{id}")
     public ResponseEntity<ExpenseResponse> updateExpense(
             @PathVariable UUID id,
-            @Valid @RequestBody UpdateExpenseRequest request) {
-        return ResponseEntity.ok(expenseService.updateExpense(id, request));
+            @Valid @RequestBody UpdateExpenseRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(expenseService.updateExpense(id, request, expectedVersion(ifMatch)));
     }
 
     @PatchMapping("/{id}/approve")
     public ResponseEntity<ExpenseResponse> approveExpense(
             @PathVariable UUID id,
-            @AuthenticationPrincipal UserPrincipal principal) {
-        return ResponseEntity.ok(expenseService.approveExpense(id, principal.getUser()));
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(expenseService.approveExpense(id, principal.getUser(), expectedVersion(ifMatch)));
     }
 
     @PatchMapping("/{id}/reject")
     public ResponseEntity<ExpenseResponse> rejectExpense(
             @PathVariable UUID id,
             @Valid @RequestBody RejectExpenseRequest request,
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(expenseService.rejectExpense(
+                id, request.getReason(), principal.getUser(), expectedVersion(ifMatch)));
+    }
+
+    @PostMapping("/approve-batch")
+    public ResponseEntity<BatchReviewResponse> approveExpenses(
+            @Valid @RequestBody BatchReviewRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(expenseService.approveExpenses(request.getIds(), principal.getUser()));
+    }
+
+    @PostMapping("/reject-batch")
+    public ResponseEntity<BatchReviewResponse> rejectExpenses(
+            @Valid @RequestBody BatchReviewRequest request,
             @AuthenticationPrincipal UserPrincipal principal) {
-        return ResponseEntity.ok(expenseService.rejectExpense(id, request.getReason(), principal.getUser()));
+        return ResponseEntity.ok(expenseService.rejectExpenses(request.getIds(), request.getReason(), principal.getUser()));
     }
 
     @DeleteMapping("/{id}")
@@ -91,8 +137,9 @@ public class ExpenseController {
 
     @PostMapping("/bulk")
     public ResponseEntity<BulkCreateExpenseResponse> bulkCreateExpenses(
-            @Valid @RequestBody BulkCreateExpenseRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(expenseService.bulkCreateExpenses(request));
+            @Valid @RequestBody BulkCreateExpenseRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(expenseService.bulkCreateExpenses(request, principal.getUser()));
     }
 
     @PostMapping("/export-email")
@@ -146,4 +193,38 @@ public class ExpenseController {
     private String escapeCsv(String value) {
         return value.replace("\"", "\"\"");
     }
+
+    private ResponseEntity<ExpenseResponse> withETag(ExpenseResponse expense) {
+        return ResponseEntity.ok().eTag(etag(expense)).body(expense);
+    }
+
+    /**
+     * "version-dataVersion". The expense's own version misses changes to what the response embeds
+     * (the category name and colour); the org's data version covers those.
+     */
+    private String etag(ExpenseResponse expense) {
+        return "\"" + expense.getVersion() + "-" + dataVersionService.current() + "\"";
+    }
+
+    /**
+     * Expense version named by an If-Match header, or null when the header is absent or "*".
+     * Only the version part is compared, so edits elsewhere in the org don't fail the update.
+     * If-Match uses strong comparison, so weak or unparseable tags never match.
+     */
+    private Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String opaque = tag.substring(1, tag.length() - 1);
+            int separator = opaque.indexOf('-');
+            try {
+                return Long.parseLong(separator < 0 ? opaque : opaque.substring(0, separator));
+            } catch (NumberFormatException ignored) {
+                // falls through to 412
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match the current expense version");
+    }
 }
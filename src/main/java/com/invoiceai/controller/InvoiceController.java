@@ -53,6 +53,11 @@ public class InvoiceController {
         return ResponseEntity.ok(invoiceService.getInvoice(id));
     }
 
+    @PostMapping("/{id}/process")
+    public ResponseEntity<InvoiceResponse> processInvoice(@PathVariable UUID id) {
+        return ResponseEntity.accepted().body(invoiceService.processInvoice(id));
+    }
+
     @GetMapping("/{id}/download-url")
     public ResponseEntity<Map<String, String>> getDownloadUrl(@PathVariable UUID id) {
         String url = invoiceService.getDownloadUrl(id);
@@ -0,0 +1,32 @@
+package com.invoiceai.controller;
+
+import com.invoiceai.dto.request.UpdateNotificationPreferencesRequest;
+import com.invoiceai.dto.response.NotificationPreferencesResponse;
+import com.invoiceai.security.UserPrincipal;
+import com.invoiceai.service.NotificationPreferenceService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/notification-preferences")
+@RequiredArgsConstructor
+public class NotificationPreferenceController {
+
+    private final NotificationPreferenceService preferenceService;
+
+    @GetMapping
+    public ResponseEntity<NotificationPreferencesResponse> getPreferences(
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(preferenceService.getPreferences(principal.getUser()));
+    }
+
+    @PatchMapping
+    public ResponseEntity<NotificationPreferencesResponse> updatePreferences(
+            @Valid @RequestBody UpdateNotificationPreferencesRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(preferenceService.updatePreferences(principal.getUser(), request));
+    }
+}
@@ -1,9 +1,14 @@
 package com.invoiceai.controller;
 
 import com.invoiceai.dto.request.CreatePolicyRequest;
+import com.invoiceai.dto.request.PolicyBackfillRequest;
+import com.invoiceai.dto.request.SimulatePolicyRequest;
 import com.invoiceai.dto.request.UpdatePolicyRequest;
+import com.invoiceai.dto.response.PolicyBackfillResponse;
 import com.invoiceai.dto.response.PolicyResponse;
+import com.invoiceai.dto.response.PolicySimulationResponse;
 import com.invoiceai.dto.response.PolicyViolationResponse;
+import com.invoiceai.service.PolicyBackfillService;
 import com.invoiceai.service.PolicyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +28,7 @@ import java.util.UUID;
 public class PolicyController {
 
     private final PolicyService policyService;
+    private final PolicyBackfillService policyBackfillService;
 
     @GetMapping
     public ResponseEntity<List<PolicyResponse>> getPolicies() {
@@ -34,6 +40,24 @@ public class PolicyController {
         return ResponseEntity.status(HttpStatus.CREATED).body(policyService.createPolicy(request));
     }
 
+    /** Runs a draft policy over historical expenses without saving anything. */
+    @PostMapping("/simulate")
+    public ResponseEntity<PolicySimulationResponse> simulatePolicy(@Valid @RequestBody SimulatePolicyRequest request) {
+        return ResponseEntity.ok(policyBackfillService.simulate(request));
+    }
+
+    @PostMapping("/{id}/backfill")
+    public ResponseEntity<PolicyBackfillResponse> backfillPolicy(
+            @PathVariable UUID id,
+            @RequestBody(required = false) PolicyBackfillRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(policyBackfillService.startBackfill(id, request));
+    }
+
+    @GetMapping("/backfill/{jobId}")
+    public ResponseEntity<PolicyBackfillResponse> getBackfill(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(policyBackfillService.getBackfill(jobId));
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<PolicyResponse> updatePolicy(
             @PathVariable UUID id,
@@ -1,11 +1,17 @@
 package com.invoiceai.controller;
 
 import com.invoiceai.dto.response.TaxSummaryResponse;
+import com.invoiceai.exception.BadRequestException;
+import com.invoiceai.service.TaxReportService;
 import com.invoiceai.service.TaxSummaryService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
 
 @RestController
@@ -14,11 +20,37 @@ import java.time.LocalDate;
 public class TaxSummaryController {
 
     private final TaxSummaryService taxSummaryService;
+    private final TaxReportService taxReportService;
 
     @GetMapping("/tax-summary")
     public ResponseEntity<TaxSummaryResponse> getTaxSummary(
             @RequestParam LocalDate dateFrom,
-            @RequestParam LocalDate dateTo) {
-        return ResponseEntity.ok(taxSummaryService.getTaxSummary(dateFrom, dateTo));
+            @RequestParam LocalDate dateTo,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(50) int vendorLimit) {
+        return ResponseEntity.ok(taxSummaryService.getTaxSummary(dateFrom, dateTo, vendorLimit));
+    }
+
+    @GetMapping("/tax-report")
+    public void exportTaxReport(
+            @RequestParam LocalDate dateFrom,
+            @RequestParam LocalDate dateTo,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+
+        String filename = "tax-report-" + dateFrom + "-to-" + dateTo;
+        switch (format) {
+            case "csv" -> {
+                response.setContentType("text/csv");
+                response.setCharacterEncoding("UTF-8");
+                response.setHeader("Content-Disposition", "attachment; filename=" + filename + ".csv");
+                taxReportService.writeCsv(dateFrom, dateTo, response.getWriter());
+            }
+            case "xlsx" -> {
+                response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+                response.setHeader("Content-Disposition", "attachment; filename=" + filename + ".xlsx");
+                taxReportService.writeXlsx(dateFrom, dateTo, response.getOutputStream());
+            }
+            default -> throw new BadRequestException("Unsupported format: " + format + " (use csv or xlsx)");
+        }
     }
 }
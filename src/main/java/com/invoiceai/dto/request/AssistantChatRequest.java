@@ -5,7 +5,7 @@ import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.List;
+import java.util.UUID;
 
 @Getter
 @Setter
@@ -15,12 +15,6 @@ public class AssistantChatRequest {
     @Size(max = 2000)
     private String message;
 
-    private List<MessageEntry> history;
-
-    @Getter
-    @Setter
-    public static class MessageEntry {
-        private String role;
-        private String content;
-    }
+    /** Omit to start a new conversation; earlier turns are loaded server-side. */
+    private UUID conversationId;
 }
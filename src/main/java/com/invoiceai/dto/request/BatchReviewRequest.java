@@ -0,0 +1,21 @@
+package com.invoiceai.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class BatchReviewRequest {
+
+    @NotEmpty
+    @Size(max = 500)
+    private List<UUID> ids;
+
+    // Required for reject-batch, ignored for approve-batch
+    private String reason;
+}
@@ -1,11 +1,15 @@
 package com.invoiceai.dto.request;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @Getter
@@ -16,6 +20,10 @@ public class CreateBudgetRequest {
     @NotNull @DecimalMin("1.00")
     private BigDecimal monthlyLimit;
 
+    /** Percentages of the monthly limit to alert at; replaces alertAt80/alertAt100 when set. */
+    @Size(max = 10)
+    private List<@NotNull @Min(1) @Max(500) Integer> alertThresholds;
+
     private Boolean alertAt80;
     private Boolean alertAt100;
 }
@@ -22,6 +22,12 @@ public class CreatePolicyRequest {
     @DecimalMin("0.01")
     private BigDecimal thresholdAmount;
 
+    @Min(1)
+    private Integer maxCount;
+
+    @Min(1) @Max(366)
+    private Integer windowDays;
+
     @Size(max = 100)
     private String requiredField;
 }
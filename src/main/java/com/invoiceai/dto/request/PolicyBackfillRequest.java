@@ -0,0 +1,13 @@
+package com.invoiceai.dto.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+public class PolicyBackfillRequest {
+    private LocalDate from;
+    private LocalDate to;
+}
@@ -0,0 +1,14 @@
+package com.invoiceai.dto.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/** A draft policy plus the expense date range to run it over (default: the last year). */
+@Getter
+@Setter
+public class SimulatePolicyRequest extends CreatePolicyRequest {
+    private LocalDate from;
+    private LocalDate to;
+}
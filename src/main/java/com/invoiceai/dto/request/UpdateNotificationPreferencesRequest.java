@@ -0,0 +1,14 @@
+package com.invoiceai.dto.request;
+
+import com.invoiceai.model.enums.DigestFrequency;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class UpdateNotificationPreferencesRequest {
+    private Boolean policyViolations;
+    private Boolean budgetAlerts;
+    private Boolean exportEmails;
+    private DigestFrequency digestFrequency;
+}
@@ -1,6 +1,8 @@
 package com.invoiceai.dto.request;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
@@ -19,5 +21,11 @@ public class UpdatePolicyRequest {
     @DecimalMin("0.01")
     private BigDecimal thresholdAmount;
 
+    @Min(1)
+    private Integer maxCount;
+
+    @Min(1) @Max(366)
+    private Integer windowDays;
+
     private Boolean isActive;
 }
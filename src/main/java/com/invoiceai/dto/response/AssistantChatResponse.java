@@ -3,8 +3,11 @@ package com.invoiceai.dto.response;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.util.UUID;
+
 @Getter
 @Builder
 public class AssistantChatResponse {
+    private UUID conversationId;
     private String reply;
 }
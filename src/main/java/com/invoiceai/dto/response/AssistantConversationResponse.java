@@ -0,0 +1,28 @@
+package com.invoiceai.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class AssistantConversationResponse {
+    private UUID id;
+    private String title;
+    private int messageCount;
+    private Instant createdAt;
+    private Instant updatedAt;
+    /** Only populated when a single conversation is fetched. */
+    private List<MessageEntry> messages;
+
+    @Getter
+    @Builder
+    public static class MessageEntry {
+        private String role;
+        private String content;
+        private Instant createdAt;
+    }
+}
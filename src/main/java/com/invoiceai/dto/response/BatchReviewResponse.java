@@ -0,0 +1,17 @@
+package com.invoiceai.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class BatchReviewResponse {
+    private int requested;
+    private int updated;
+    private List<UUID> updatedIds;
+    // Not found in this organization or no longer NEEDS_REVIEW
+    private List<UUID> skippedIds;
+}
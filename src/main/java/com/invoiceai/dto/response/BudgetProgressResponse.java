@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Getter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,5 +24,20 @@ public class BudgetProgressResponse {
         private BigDecimal actualSpend;
         private BigDecimal percentage;
         private String status;
+        /** Average approved spend per elapsed day of the month. */
+        private BigDecimal averageDailySpend;
+        /** Month-end spend if the average daily spend so far continues. */
+        private BigDecimal projectedSpend;
+        private BigDecimal projectedPercentage;
+        /** One entry per day from the 1st through today (or the last day with spend). */
+        private List<DailySpend> dailySpend;
+    }
+
+    @Getter
+    @Builder
+    public static class DailySpend {
+        private LocalDate date;
+        private BigDecimal amount;
+        private BigDecimal cumulative;
     }
 }
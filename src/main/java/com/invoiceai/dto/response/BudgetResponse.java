@@ -5,6 +5,7 @@ import lombok.Getter;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @Getter
@@ -13,6 +14,7 @@ public class BudgetResponse {
     private UUID id;
     private CategorySummary category;
     private BigDecimal monthlyLimit;
+    private List<Integer> alertThresholds;
     private boolean alertAt80;
     private boolean alertAt100;
     private boolean isActive;
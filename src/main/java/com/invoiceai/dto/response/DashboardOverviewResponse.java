@@ -0,0 +1,17 @@
+package com.invoiceai.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@Builder
+public class DashboardOverviewResponse {
+    private LocalDate dateFrom;
+    private LocalDate dateTo;
+    private DashboardSummaryResponse summary;
+    private SpendByCategoryResponse spendByCategory;
+    private MonthlyTrendResponse monthlyTrend;
+    private TopVendorsResponse topVendors;
+}
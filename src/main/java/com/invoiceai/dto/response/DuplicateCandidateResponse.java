@@ -0,0 +1,20 @@
+package com.invoiceai.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class DuplicateCandidateResponse {
+    private UUID id;
+    private String vendorName;
+    private BigDecimal amount;
+    private String currency;
+    private LocalDate date;
+    private String status;
+    private double score;
+}
@@ -1,5 +1,6 @@
 package com.invoiceai.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -27,8 +28,15 @@ public class ExpenseResponse {
     private boolean isDuplicate;
     private UUID duplicateOfId;
     private List<PolicyViolationSummary> policyViolations;
+    private Long version;
     private Instant createdAt;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double searchRank;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String searchHighlight;
+
     @Getter
     @Builder
     public static class PolicyViolationSummary {
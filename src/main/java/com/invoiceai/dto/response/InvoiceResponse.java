@@ -17,6 +17,7 @@ public class InvoiceResponse {
     private UserSummary uploadedBy;
     private ExpenseSummary expense;
     private String errorMessage;
+    private UUID duplicateOfInvoiceId;
     private Instant createdAt;
 
     @Getter
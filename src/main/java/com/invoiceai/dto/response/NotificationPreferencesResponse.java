@@ -0,0 +1,14 @@
+package com.invoiceai.dto.response;
+
+import com.invoiceai.model.enums.DigestFrequency;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class NotificationPreferencesResponse {
+    private boolean policyViolations;
+    private boolean budgetAlerts;
+    private boolean exportEmails;
+    private DigestFrequency digestFrequency;
+}
@@ -0,0 +1,27 @@
+package com.invoiceai.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class PolicyBackfillResponse {
+    private UUID jobId;
+    private UUID policyId;
+    private String status;
+    private LocalDate from;
+    private LocalDate to;
+    private long scanned;
+    private long matched;
+    /** Violations created; expenses already flagged by the policy are skipped. */
+    private long inserted;
+    private List<PolicySimulationResponse.Sample> samples;
+    private String error;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -16,6 +16,8 @@ public class PolicyResponse {
     private CategorySummary category;
     private BigDecimal thresholdAmount;
     private String requiredField;
+    private Integer maxCount;
+    private Integer windowDays;
     private boolean isActive;
     private Instant createdAt;
 
@@ -0,0 +1,29 @@
+package com.invoiceai.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class PolicySimulationResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private long scanned;
+    private long matched;
+    private List<Sample> samples;
+
+    @Getter
+    @Builder
+    public static class Sample {
+        private UUID expenseId;
+        private String vendorName;
+        private BigDecimal amount;
+        private LocalDate date;
+        private String violationMessage;
+    }
+}
@@ -1,5 +1,6 @@
 package com.invoiceai.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -25,5 +26,9 @@ public class TaxSummaryResponse {
     public static class TaxByVendor {
         private String vendorName;
         private BigDecimal taxAmount;
+
+        /** Set only on the trailing "Other" entry: how many vendors it combines. */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Integer vendorCount;
     }
 }
@@ -0,0 +1,55 @@
+package com.invoiceai.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "assistant_conversations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssistantConversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "organization_id", nullable = false)
+    private Organization organization;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(length = 200)
+    private String title;
+
+    /** Rolling summary of every message with {@code seq <= summarizedThrough}. */
+    @Column(columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int summarizedThrough = 0;
+
+    /** Also the seq of the latest message. */
+    @Column(nullable = false)
+    @Builder.Default
+    private int messageCount = 0;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
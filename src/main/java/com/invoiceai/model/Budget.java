@@ -3,10 +3,14 @@ package com.invoiceai.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
@@ -33,13 +37,11 @@ public class Budget {
     @Column(nullable = false, precision = 12, scale = 2)
     private BigDecimal monthlyLimit;
 
-    @Column(name = "alert_at_80", nullable = false)
-    @Builder.Default
-    private boolean alertAt80 = true;
-
-    @Column(name = "alert_at_100", nullable = false)
+    /** Percentages of the monthly limit that raise an alert when crossed, ascending. */
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(nullable = false)
     @Builder.Default
-    private boolean alertAt100 = true;
+    private List<Integer> alertThresholds = new ArrayList<>(List.of(80, 100));
 
     @Column(nullable = false)
     @Builder.Default
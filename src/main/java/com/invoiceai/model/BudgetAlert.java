@@ -35,6 +35,9 @@ public class BudgetAlert {
     @Column(name = "alert_type", nullable = false, length = 50)
     private BudgetAlertType alertType;
 
+    @Column(nullable = false)
+    private int threshold;
+
     @Column(nullable = false)
     private LocalDate month;
 
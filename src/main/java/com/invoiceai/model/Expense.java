@@ -65,6 +65,10 @@ public class Expense {
     @Column(precision = 3, scale = 2)
     private BigDecimal aiConfidence;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "submitted_by")
+    private User submittedBy;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "reviewed_by")
     private User reviewedBy;
@@ -79,10 +83,20 @@ public class Expense {
     @JoinColumn(name = "duplicate_of_id")
     private Expense duplicateOf;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recurring_expense_id")
+    private RecurringExpense recurringExpense;
+
+    /** The period of {@link #recurringExpense} this expense was generated for. */
+    private LocalDate recurringDueDate;
+
     @OneToMany(mappedBy = "expense", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<ExpenseLineItem> lineItems = new ArrayList<>();
 
+    @Version
+    private Long version;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
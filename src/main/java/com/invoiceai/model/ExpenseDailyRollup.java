@@ -0,0 +1,57 @@
+package com.invoiceai.model;
+
+import com.invoiceai.model.enums.ExpenseStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per-day spend totals by (org, category, vendor, status, currency). Maintained by database
+ * triggers on {@code expenses} in the same transaction as the change; read-only here.
+ */
+@Entity
+@Table(name = "expense_daily_rollups")
+@Immutable
+// Queries on rollups must flush pending expense changes first so the triggers have run
+@Synchronize("expenses")
+@Getter
+@NoArgsConstructor
+public class ExpenseDailyRollup {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "organization_id", nullable = false)
+    private Organization organization;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id")
+    private Category category;
+
+    @Column(nullable = false)
+    private String vendorName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ExpenseStatus status;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal taxAmount;
+
+    @Column(nullable = false)
+    private int expenseCount;
+}
@@ -44,6 +44,11 @@ public class ExpensePolicy {
     @Column(length = 100)
     private String requiredField;
 
+    /** For MAX_EXPENSES_PER_VENDOR_IN_WINDOW: most expenses allowed within {@code windowDays}. */
+    private Integer maxCount;
+
+    private Integer windowDays;
+
     @Column(nullable = false)
     @Builder.Default
     private boolean isActive = true;
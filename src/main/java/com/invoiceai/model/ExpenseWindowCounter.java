@@ -0,0 +1,47 @@
+package com.invoiceai.model;
+
+import com.invoiceai.model.enums.WindowDimension;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per-day count and spend of non-rejected expenses for one vendor (lower-cased name) or
+ * submitter (user id). Maintained by database triggers on {@code expenses} in the same
+ * transaction as the change; read-only here.
+ */
+@Entity
+@Table(name = "expense_window_counters")
+@Immutable
+@Synchronize("expenses")
+@Getter
+@NoArgsConstructor
+public class ExpenseWindowCounter {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "organization_id", nullable = false)
+    private Organization organization;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WindowDimension dimension;
+
+    @Column(nullable = false)
+    private String dimensionKey;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(nullable = false)
+    private int expenseCount;
+}
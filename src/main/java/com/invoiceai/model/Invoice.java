@@ -58,6 +58,13 @@ public class Invoice {
 
     private String errorMessage;
 
+    // 64-bit dHash of the first page / image, used to spot re-photographed receipts
+    private Long perceptualHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "duplicate_of_invoice_id")
+    private Invoice duplicateOf;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
@@ -1,5 +1,6 @@
 package com.invoiceai.model;
 
+import com.invoiceai.model.enums.DigestFrequency;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -43,6 +44,11 @@ public class NotificationPreference {
     @Builder.Default
     private boolean exportEmails = true;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private DigestFrequency digestFrequency = DigestFrequency.IMMEDIATE;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
@@ -65,6 +65,9 @@ public class RecurringExpense {
     @Builder.Default
     private boolean isActive = true;
 
+    /** Set while a node is processing this row; other nodes skip it until then. */
+    private Instant claimedUntil;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
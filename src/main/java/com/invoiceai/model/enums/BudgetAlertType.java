@@ -1,6 +1,5 @@
 package com.invoiceai.model.enums;
 
 public enum BudgetAlertType {
-    THRESHOLD_80,
-    THRESHOLD_100
+    THRESHOLD
 }
@@ -0,0 +1,7 @@
+package com.invoiceai.model.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
@@ -4,5 +4,6 @@ public enum InvoiceStatus {
     UPLOADED,
     PROCESSING,
     EXTRACTED,
+    DUPLICATE,
     FAILED
 }
@@ -3,5 +3,9 @@ package com.invoiceai.model.enums;
 public enum PolicyRuleType {
     MAX_AMOUNT_PER_EXPENSE,
     MAX_AMOUNT_PER_CATEGORY_MONTHLY,
-    REQUIRED_FIELD
+    REQUIRED_FIELD,
+    MAX_AMOUNT_PER_VENDOR_MONTHLY,
+    MAX_AMOUNT_PER_SUBMITTER_DAILY,
+    MAX_AMOUNT_PER_SUBMITTER_WEEKLY,
+    MAX_EXPENSES_PER_VENDOR_IN_WINDOW
 }
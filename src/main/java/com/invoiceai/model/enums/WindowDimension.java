@@ -0,0 +1,6 @@
+package com.invoiceai.model.enums;
+
+public enum WindowDimension {
+    VENDOR,
+    SUBMITTER
+}
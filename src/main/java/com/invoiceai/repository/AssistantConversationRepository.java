@@ -0,0 +1,30 @@
+package com.invoiceai.repository;
+
+import com.invoiceai.model.AssistantConversation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface AssistantConversationRepository extends JpaRepository<AssistantConversation, UUID> {
+    Optional<AssistantConversation> findByIdAndOrganizationIdAndUserId(UUID id, UUID organizationId, UUID userId);
+    List<AssistantConversation> findByOrganizationIdAndUserIdOrderByUpdatedAtDesc(UUID organizationId, UUID userId, Pageable pageable);
+
+    /** Serializes appends so each message gets the next seq. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM AssistantConversation c WHERE c.id = :id")
+    Optional<AssistantConversation> findByIdForUpdate(UUID id);
+
+    /** Never moves the summary backwards if two folds race. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE AssistantConversation c SET c.summary = :summary, c.summarizedThrough = :through WHERE c.id = :id AND c.summarizedThrough < :through")
+    int updateSummary(UUID id, String summary, int through);
+}
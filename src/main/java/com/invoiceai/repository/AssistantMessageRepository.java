@@ -0,0 +1,12 @@
+package com.invoiceai.repository;
+
+import com.invoiceai.model.AssistantMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface AssistantMessageRepository extends JpaRepository<AssistantMessage, Long> {
+    List<AssistantMessage> findByConversationIdOrderBySeq(UUID conversationId);
+    List<AssistantMessage> findByConversationIdAndSeqGreaterThanOrderBySeq(UUID conversationId, int seq);
+}
@@ -3,6 +3,7 @@ package com.invoiceai.repository;
 import com.invoiceai.model.AuditLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -10,13 +11,20 @@ import java.time.Instant;
 import java.util.UUID;
 
 public interface AuditLogRepository extends JpaRepository<AuditLog, UUID> {
+    @EntityGraph(attributePaths = "user")
     Page<AuditLog> findByOrganizationId(UUID organizationId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
     Page<AuditLog> findByOrganizationIdAndEntityTypeAndEntityId(UUID organizationId, String entityType, UUID entityId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
     Page<AuditLog> findByOrganizationIdAndEntityType(UUID organizationId, String entityType, Pageable pageable);
 
+    @EntityGraph(attributePaths = "user")
     @Query("SELECT a FROM AuditLog a WHERE a.organization.id = :orgId AND a.createdAt >= :from AND a.createdAt < :to ORDER BY a.createdAt DESC")
     Page<AuditLog> findByOrganizationIdAndDateRange(UUID orgId, Instant from, Instant to, Pageable pageable);
 
+    @EntityGraph(attributePaths = "user")
     @Query("SELECT a FROM AuditLog a WHERE a.organization.id = :orgId AND a.entityType = :entityType AND a.createdAt >= :from AND a.createdAt < :to ORDER BY a.createdAt DESC")
     Page<AuditLog> findByOrganizationIdAndEntityTypeAndDateRange(UUID orgId, String entityType, Instant from, Instant to, Pageable pageable);
 }
@@ -1,15 +1,56 @@
 package com.invoiceai.repository;
 
 import com.invoiceai.model.BudgetAlert;
-import com.invoiceai.model.enums.BudgetAlertType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 public interface BudgetAlertRepository extends JpaRepository<BudgetAlert, UUID> {
-    Optional<BudgetAlert> findByBudgetIdAndAlertTypeAndMonth(UUID budgetId, BudgetAlertType alertType, LocalDate month);
     List<BudgetAlert> findByOrganizationIdAndMonthOrderByCreatedAtDesc(UUID organizationId, LocalDate month);
+
+    /**
+     * Records an alert for every active-budget threshold crossed by approving the given (already
+     * approved and flushed) expenses. Spend after the approval is read from approved_monthly_spend;
+     * spend before it is that minus the approved amounts for the same month and budget scope.
+     * Thresholds already recorded for the month are skipped by the unique index, so only the
+     * transaction that inserts a row gets it back. Returns (id, budget id, threshold, month,
+     * actual amount, percentage) for the inserted alerts.
+     */
+    @Transactional
+    @Query(value = """
+            WITH approved AS (
+                SELECT date_trunc('month', e.date)::date AS month, e.category_id, e.amount
+                  FROM expenses e
+                 WHERE e.organization_id = :orgId AND e.id IN (:expenseIds) AND e.status = 'APPROVED'
+            ), delta AS (
+                SELECT month, CAST(NULL AS uuid) AS category_id, SUM(amount) AS amount
+                  FROM approved
+                 GROUP BY month
+                UNION ALL
+                SELECT month, category_id, SUM(amount)
+                  FROM approved
+                 WHERE category_id IS NOT NULL
+                 GROUP BY month, category_id
+            )
+            INSERT INTO budget_alerts
+                (organization_id, budget_id, alert_type, threshold, month, actual_amount, budget_amount, percentage)
+            SELECT b.organization_id, b.id, 'THRESHOLD', t.threshold, d.month, s.total_amount, b.monthly_limit,
+                   LEAST(ROUND(s.total_amount * 100 / b.monthly_limit, 2), 999.99)
+              FROM delta d
+              JOIN approved_monthly_spend s
+                ON s.organization_id = :orgId AND s.month = d.month AND s.category_id IS NOT DISTINCT FROM d.category_id
+              JOIN budgets b
+                ON b.organization_id = :orgId AND b.is_active AND b.category_id IS NOT DISTINCT FROM d.category_id
+             CROSS JOIN LATERAL unnest(b.alert_thresholds) AS t(threshold)
+             WHERE s.total_amount - d.amount < b.monthly_limit * t.threshold / 100
+               AND s.total_amount >= b.monthly_limit * t.threshold / 100
+            ON CONFLICT (budget_id, alert_type, threshold, month) DO NOTHING
+            RETURNING id, budget_id, threshold, month, actual_amount, percentage
+            """, nativeQuery = true)
+    List<Object[]> insertCrossedThresholdAlerts(UUID orgId, Collection<UUID> expenseIds);
 }
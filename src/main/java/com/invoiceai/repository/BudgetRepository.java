@@ -1,16 +1,34 @@
 package com.invoiceai.repository;
 
 import com.invoiceai.model.Budget;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface BudgetRepository extends JpaRepository<Budget, UUID> {
-    List<Budget> findByOrganizationIdAndIsActiveTrue(UUID organizationId);
     Optional<Budget> findByIdAndOrganizationId(UUID id, UUID organizationId);
-    Optional<Budget> findByOrganizationIdAndCategoryIdIsNullAndIsActiveTrue(UUID organizationId);
-    Optional<Budget> findByOrganizationIdAndCategoryIdAndIsActiveTrue(UUID organizationId, UUID categoryId);
+    @EntityGraph(attributePaths = "category")
+    List<Budget> findByIdIn(Collection<UUID> ids);
+    @EntityGraph(attributePaths = "category")
     List<Budget> findByOrganizationId(UUID organizationId);
+
+    /**
+     * Approved spend per active budget per day in the range as (budget id, category id, category
+     * name, category color, monthly limit, day, amount). Overall budgets (no category) match
+     * every rollup row. A budget with no spend yields one row with a null day.
+     */
+    @Query("SELECT b.id, c.id, c.name, c.color, b.monthlyLimit, r.day, COALESCE(SUM(r.totalAmount), 0) " +
+            "FROM Budget b LEFT JOIN b.category c " +
+            "LEFT JOIN ExpenseDailyRollup r ON r.organization.id = b.organization.id AND r.status = 'APPROVED' " +
+            "AND r.day BETWEEN :from AND :to AND (c.id IS NULL OR r.category.id = c.id) " +
+            "WHERE b.organization.id = :orgId AND b.isActive = true " +
+            "GROUP BY b.id, c.id, c.name, c.color, b.monthlyLimit, r.day " +
+            "ORDER BY c.name NULLS FIRST, b.id, r.day")
+    List<Object[]> findActiveBudgetDailySpend(UUID orgId, LocalDate from, LocalDate to);
 }
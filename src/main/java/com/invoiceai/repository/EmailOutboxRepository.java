@@ -0,0 +1,52 @@
+package com.invoiceai.repository;
+
+import com.invoiceai.model.EmailOutboxMessage;
+import com.invoiceai.model.enums.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * Claims up to {@code limit} due messages for this sender by pushing their next attempt
+     * {@code leaseSeconds} out. Rows another sender is claiming are skipped, not waited on.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE email_outbox SET next_attempt_at = NOW() + make_interval(secs => :leaseSeconds)
+             WHERE id IN (SELECT id FROM email_outbox
+                           WHERE status = 'PENDING' AND next_attempt_at <= NOW()
+                           ORDER BY next_attempt_at, id
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<EmailOutboxMessage> claimDue(int limit, int leaseSeconds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = 'SENT', m.attempts = m.attempts + 1, m.sentAt = :sentAt, m.lastError = NULL WHERE m.id IN :ids")
+    int markSent(Collection<Long> ids, Instant sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :status, m.attempts = m.attempts + 1, m.nextAttemptAt = :nextAttemptAt, m.lastError = :error WHERE m.id = :id")
+    int markAttemptFailed(Long id, EmailOutboxStatus status, Instant nextAttemptAt, String error);
+
+    /** Hands claimed messages back for a later try without counting an attempt against them. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.nextAttemptAt = :nextAttemptAt, m.lastError = :error WHERE m.id IN :ids")
+    int releaseClaim(Collection<Long> ids, Instant nextAttemptAt, String error);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = 'SENT' AND m.sentAt < :before")
+    int deleteSentBefore(Instant before);
+}
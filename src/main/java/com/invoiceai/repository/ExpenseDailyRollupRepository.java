@@ -0,0 +1,122 @@
+package com.invoiceai.repository;
+
+import com.invoiceai.model.ExpenseDailyRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface ExpenseDailyRollupRepository extends JpaRepository<ExpenseDailyRollup, Long> {
+
+    // Dashboard
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM ExpenseDailyRollup r WHERE r.organization.id = :orgId AND r.status = 'APPROVED' AND r.day BETWEEN :from AND :to")
+    BigDecimal sumApprovedAmountByDateRange(UUID orgId, LocalDate from, LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(r.expenseCount), 0) FROM ExpenseDailyRollup r WHERE r.organization.id = :orgId AND r.status = 'APPROVED' AND r.day BETWEEN :from AND :to")
+    long countApprovedByDateRange(UUID orgId, LocalDate from, LocalDate to);
+
+    @Query("SELECT c.name, c.color, COALESCE(SUM(r.totalAmount), 0) FROM ExpenseDailyRollup r JOIN r.category c WHERE r.organization.id = :orgId AND r.status = 'APPROVED' AND r.day BETWEEN :from AND :to GROUP BY c.name, c.color ORDER BY SUM(r.totalAmount) DESC")
+    List<Object[]> sumByCategoryAndDateRange(UUID orgId, LocalDate from, LocalDate to);
+
+    @Query("SELECT FUNCTION('TO_CHAR', r.day, 'YYYY-MM'), COALESCE(SUM(r.totalAmount), 0), COALESCE(SUM(r.expenseCount), 0) FROM ExpenseDailyRollup r WHERE r.organization.id = :orgId AND r.status = 'APPROVED' AND r.day >= :from GROUP BY FUNCTION('TO_CHAR', r.day, 'YYYY-MM') ORDER BY FUNCTION('TO_CHAR', r.day, 'YYYY-MM')")
+    List<Object[]> monthlyTrend(UUID orgId, LocalDate from);
+
+    @Query("SELECT r.vendorName, COALESCE(SUM(r.totalAmount), 0), COALESCE(SUM(r.expenseCount), 0) FROM ExpenseDailyRollup r WHERE r.organization.id = :orgId AND r.status = 'APPROVED' AND r.day BETWEEN :from AND :to GROUP BY r.vendorName ORDER BY SUM(r.totalAmount) DESC")
+    List<Object[]> topVendors(UUID orgId, LocalDate from, LocalDate to, Pageable pageable);
+
+    // Assistant
+    @Query("SELECT FUNCTION('TO_CHAR', r.day, 'YYYY-MM'), COALESCE(SUM(r.totalAmount), 0), COALESCE(SUM(r.expenseCount), 0) FROM ExpenseDailyRollup r WHERE r.organization.id = :orgId AND r.status = 'APPROVED' AND LOWER(r.vendorName) LIKE :vendorPattern AND r.day BETWEEN :from AND :to GROUP BY FUNCTION('TO_CHAR', r.day, 'YYYY-MM') ORDER BY FUNCTION('TO_CHAR', r.day, 'YYYY-MM')")
+    List<Object[]> vendorMonthlyTotals(UUID orgId, String vendorPattern, LocalDate from, LocalDate to);
+
+    /**
+     * Every dashboard widget in one scan. Rows are distinguished by grouping_id:
+     * 3 = per category, 5 = per vendor, 6 = per month, 7 = grand total. Each row carries
+     * current-period, previous-period and trend-window sums via FILTER.
+     */
+    @Query(value = """
+            SELECT GROUPING(r.category_id, r.vendor_name, date_trunc('month', r.day)) AS grouping_id,
+                   r.category_id, c.name, c.color, r.vendor_name,
+                   to_char(date_trunc('month', r.day), 'YYYY-MM') AS month,
+                   SUM(r.total_amount)  FILTER (WHERE r.day BETWEEN :from AND :to)         AS current_amount,
+                   SUM(r.expense_count) FILTER (WHERE r.day BETWEEN :from AND :to)         AS current_count,
+                   SUM(r.total_amount)  FILTER (WHERE r.day BETWEEN :prevFrom AND :prevTo) AS previous_amount,
+                   SUM(r.expense_count) FILTER (WHERE r.day BETWEEN :prevFrom AND :prevTo) AS previous_count,
+                   SUM(r.total_amount)  FILTER (WHERE r.day >= :trendFrom)                 AS trend_amount,
+                   SUM(r.expense_count) FILTER (WHERE r.day >= :trendFrom)                 AS trend_count
+              FROM expense_daily_rollups r
+              LEFT JOIN categories c ON c.id = r.category_id
+             WHERE r.organization_id = :orgId
+               AND r.status = 'APPROVED'
+               AND (r.day BETWEEN :prevFrom AND :to OR r.day >= :trendFrom)
+             GROUP BY GROUPING SETS ((), (r.category_id, c.name, c.color), (r.vendor_name), (date_trunc('month', r.day)))
+            """, nativeQuery = true)
+    List<Object[]> dashboardOverview(UUID orgId, LocalDate from, LocalDate to,
+                                     LocalDate prevFrom, LocalDate prevTo, LocalDate trendFrom);
+
+    // Tax summary
+    /**
+     * Total, per-category and per-vendor tax in one scan. Rows are distinguished by grouping_id:
+     * 1 = per category, 2 = per vendor, 3 = grand total. Only the top {@code vendorLimit} vendors
+     * are returned individually; the rest collapse into one grouping_id 2 row with a null vendor
+     * name and their count in vendor_count.
+     */
+    @Query(value = """
+            WITH sets AS (
+                SELECT GROUPING(r.category_id, r.vendor_name) AS grouping_id,
+                       c.name AS category_name, r.vendor_name, SUM(r.tax_amount) AS tax_amount
+                  FROM expense_daily_rollups r
+                  LEFT JOIN categories c ON c.id = r.category_id
+                 WHERE r.organization_id = :orgId
+                   AND r.status = 'APPROVED'
+                   AND r.day BETWEEN :from AND :to
+                 GROUP BY GROUPING SETS ((), (r.category_id, c.name), (r.vendor_name))
+            ), ranked AS (
+                SELECT s.*, ROW_NUMBER() OVER (PARTITION BY grouping_id ORDER BY tax_amount DESC, vendor_name) AS vendor_rank
+                  FROM sets s
+            )
+            SELECT grouping_id, category_name, vendor_name, tax_amount, 1 AS vendor_count
+              FROM ranked
+             WHERE grouping_id <> 2 OR vendor_rank <= :vendorLimit
+            UNION ALL
+            SELECT 2, NULL, NULL, SUM(tax_amount), COUNT(*)
+              FROM ranked
+             WHERE grouping_id = 2 AND vendor_rank > :vendorLimit
+            HAVING COUNT(*) > 0
+             ORDER BY 1, 4 DESC
+            """, nativeQuery = true)
+    List<Object[]> taxSummary(UUID orgId, LocalDate from, LocalDate to, int vendorLimit);
+
+    // Budget checking
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM ExpenseDailyRollup r WHERE r.organization.id = :orgId AND r.category.id = :categoryId AND r.status = 'APPROVED' AND r.day BETWEEN :from AND :to")
+    BigDecimal sumApprovedAmountByCategoryAndDateRange(UUID orgId, UUID categoryId, LocalDate from, LocalDate to);
+
+    @Query("SELECT c.id, COALESCE(SUM(r.totalAmount), 0) FROM ExpenseDailyRollup r LEFT JOIN r.category c WHERE r.organization.id = :orgId AND r.status = 'APPROVED' AND r.day BETWEEN :from AND :to GROUP BY c.id")
+    List<Object[]> sumApprovedAmountGroupedByCategory(UUID orgId, LocalDate from, LocalDate to);
+
+    // Rebuild — callers hold the org's rollup lock exclusively; the expense triggers take it
+    // shared, so only that org's writes wait for the rebuild
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('expense_daily_rollups'), hashtext(CAST(:orgId AS text)))",
+            nativeQuery = true)
+    int lockOrganizationForRebuild(UUID orgId);
+
+    @Modifying
+    @Query(value = "DELETE FROM expense_daily_rollups WHERE organization_id = :orgId", nativeQuery = true)
+    int deleteByOrganizationId(UUID orgId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO expense_daily_rollups
+                (organization_id, day, category_id, vendor_name, status, currency, total_amount, tax_amount, expense_count)
+            SELECT organization_id, date, category_id, vendor_name, status, currency,
+                   SUM(amount), SUM(COALESCE(tax_amount, 0)), COUNT(*)
+              FROM expenses
+             WHERE organization_id = :orgId
+             GROUP BY organization_id, date, category_id, vendor_name, status, currency
+            """, nativeQuery = true)
+    int insertFromExpenses(UUID orgId);
+}
@@ -1,6 +1,7 @@
 package com.invoiceai.repository;
 
 import com.invoiceai.model.ExpensePolicy;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
@@ -8,7 +9,9 @@ import java.util.Optional;
 import java.util.UUID;
 
 public interface ExpensePolicyRepository extends JpaRepository<ExpensePolicy, UUID> {
+    @EntityGraph(attributePaths = "category")
     List<ExpensePolicy> findByOrganizationIdAndIsActiveTrue(UUID organizationId);
     Optional<ExpensePolicy> findByIdAndOrganizationId(UUID id, UUID organizationId);
+    @EntityGraph(attributePaths = "category")
     List<ExpensePolicy> findByOrganizationId(UUID organizationId);
 }
@@ -2,38 +2,46 @@ package com.invoiceai.repository;
 
 import com.invoiceai.model.Expense;
 import com.invoiceai.model.enums.ExpenseStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface ExpenseRepository extends JpaRepository<Expense, UUID>, JpaSpecificationExecutor<Expense> {
+public interface ExpenseRepository extends JpaRepository<Expense, UUID>, JpaSpecificationExecutor<Expense>, ExpenseSearchRepository {
     Optional<Expense> findByIdAndOrganizationId(UUID id, UUID organizationId);
     Page<Expense> findByOrganizationId(UUID organizationId, Pageable pageable);
 
-    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to")
-    BigDecimal sumApprovedAmountByDateRange(UUID orgId, LocalDate from, LocalDate to);
+    /** Periods on or after {@code from} that already have an expense generated for them. */
+    @Query("SELECT e.recurringDueDate FROM Expense e WHERE e.recurringExpense.id = :recurringId AND e.recurringDueDate >= :from")
+    Set<LocalDate> findRecurringDueDates(UUID recurringId, LocalDate from);
 
-    @Query("SELECT COUNT(e) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to")
-    long countApprovedByDateRange(UUID orgId, LocalDate from, LocalDate to);
+    @EntityGraph(attributePaths = {"category", "invoice"})
+    Page<Expense> findAll(Specification<Expense> spec, Pageable pageable);
 
-    @Query("SELECT e.category.name, e.category.color, COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to GROUP BY e.category.name, e.category.color ORDER BY SUM(e.amount) DESC")
-    List<Object[]> sumByCategoryAndDateRange(UUID orgId, LocalDate from, LocalDate to);
+    @EntityGraph(attributePaths = "category")
+    List<Expense> findAll(Specification<Expense> spec);
 
-    @Query("SELECT FUNCTION('TO_CHAR', e.date, 'YYYY-MM'), COALESCE(SUM(e.amount), 0), COUNT(e) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date >= :from GROUP BY FUNCTION('TO_CHAR', e.date, 'YYYY-MM') ORDER BY FUNCTION('TO_CHAR', e.date, 'YYYY-MM')")
-    List<Object[]> monthlyTrend(UUID orgId, LocalDate from);
-
-    @Query("SELECT e.vendorName, COALESCE(SUM(e.amount), 0), COUNT(e) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to GROUP BY e.vendorName ORDER BY SUM(e.amount) DESC")
-    List<Object[]> topVendors(UUID orgId, LocalDate from, LocalDate to, Pageable pageable);
+    @Query("SELECT e FROM Expense e LEFT JOIN FETCH e.category LEFT JOIN FETCH e.invoice WHERE e.id IN :ids")
+    List<Expense> findAllWithCategoryByIdIn(Collection<UUID> ids);
 
     Optional<Expense> findByInvoiceId(UUID invoiceId);
+    List<Expense> findByInvoiceIdIn(Collection<UUID> invoiceIds);
 
     @Query("SELECT e FROM Expense e LEFT JOIN FETCH e.category WHERE e.organization.id = :orgId ORDER BY e.date DESC, e.createdAt DESC")
     List<Expense> findRecentByOrganizationId(UUID orgId, Pageable pageable);
@@ -41,24 +49,45 @@ public interface ExpenseRepository extends JpaRepository<Expense, UUID>, JpaSpec
     @Query("SELECT COUNT(e) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'NEEDS_REVIEW'")
     long countPendingReview(UUID orgId);
 
-    // Duplicate detection
-    @Query("SELECT e FROM Expense e WHERE e.organization.id = :orgId AND e.vendorName = :vendorName AND e.amount = :amount AND e.date = :date")
-    List<Expense> findDuplicates(UUID orgId, String vendorName, BigDecimal amount, LocalDate date);
-
-    @Query("SELECT e FROM Expense e WHERE e.organization.id = :orgId AND e.vendorName = :vendorName AND e.amount = :amount AND e.date = :date AND e.id != :excludeId")
-    List<Expense> findDuplicatesExcluding(UUID orgId, String vendorName, BigDecimal amount, LocalDate date, UUID excludeId);
+    /** Served by the trigram index on lower(vendor_name). */
+    @Query("SELECT e FROM Expense e LEFT JOIN FETCH e.category WHERE e.organization.id = :orgId AND LOWER(e.vendorName) LIKE :vendorPattern ORDER BY e.date DESC, e.createdAt DESC")
+    List<Expense> findRecentByVendor(UUID orgId, String vendorPattern, Pageable pageable);
 
-    // Tax summary
-    @Query("SELECT e.category.name, COALESCE(SUM(e.taxAmount), 0) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to GROUP BY e.category.name ORDER BY SUM(e.taxAmount) DESC")
-    List<Object[]> sumTaxByCategory(UUID orgId, LocalDate from, LocalDate to);
+    // Tax report
+    /**
+     * Approved expenses in the range as scalar rows (id, date, vendor, category, description,
+     * currency, amount, tax), read through a server-side cursor. Must be consumed and closed
+     * inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT e.id, e.date, e.vendorName, c.name, e.description, e.currency, e.amount, e.taxAmount FROM Expense e LEFT JOIN e.category c WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to ORDER BY e.date, e.id")
+    Stream<Object[]> streamTaxReportRows(UUID orgId, LocalDate from, LocalDate to);
 
-    @Query("SELECT e.vendorName, COALESCE(SUM(e.taxAmount), 0) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to GROUP BY e.vendorName ORDER BY SUM(e.taxAmount) DESC")
-    List<Object[]> sumTaxByVendor(UUID orgId, LocalDate from, LocalDate to);
-
-    @Query("SELECT COALESCE(SUM(e.taxAmount), 0) FROM Expense e WHERE e.organization.id = :orgId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to")
-    BigDecimal sumTaxByDateRange(UUID orgId, LocalDate from, LocalDate to);
-
-    // Budget checking
-    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.organization.id = :orgId AND e.category.id = :categoryId AND e.status = 'APPROVED' AND e.date BETWEEN :from AND :to")
-    BigDecimal sumApprovedAmountByCategoryAndDateRange(UUID orgId, UUID categoryId, LocalDate from, LocalDate to);
+    // Duplicate detection
+    @Query("SELECT e.id, e.vendorName, e.amount, e.currency, e.date FROM Expense e WHERE e.organization.id = :orgId AND e.date >= :from")
+    List<Object[]> findDuplicateIndexRows(UUID orgId, LocalDate from);
+
+    @Query("SELECT e.id, e.vendorName, e.amount, e.currency, e.date FROM Expense e WHERE e.organization.id = :orgId AND e.currency = :currency AND e.date BETWEEN :from AND :to AND e.amount BETWEEN :minAmount AND :maxAmount")
+    List<Object[]> findDuplicateCandidateRows(UUID orgId, String currency, LocalDate from, LocalDate to, BigDecimal minAmount, BigDecimal maxAmount);
+
+    // Policy simulation and backfill
+    /**
+     * Next page of non-rejected expenses dated {@code from} to {@code to}, in (date, id) order,
+     * after the keyset cursor ({@code afterDate}, {@code afterId}).
+     */
+    @Query("SELECT e FROM Expense e WHERE e.organization.id = :orgId AND e.status <> 'REJECTED' AND e.date BETWEEN :from AND :to " +
+            "AND (e.date > :afterDate OR (e.date = :afterDate AND e.id > :afterId)) ORDER BY e.date, e.id")
+    List<Expense> findPolicyScanPage(UUID orgId, LocalDate from, LocalDate to, LocalDate afterDate, UUID afterId, Pageable pageable);
+
+    // Review
+    /**
+     * Moves every listed expense still in NEEDS_REVIEW to the given status in one statement.
+     * Returns (id, category_id, date) for the rows actually transitioned.
+     */
+    @Transactional
+    @Query(value = "UPDATE expenses SET status = :newStatus, reviewed_by = :reviewerId, reviewed_at = NOW(), updated_at = NOW(), " +
+            "version = version + 1 " +
+            "WHERE organization_id = :orgId AND id IN (:ids) AND status = 'NEEDS_REVIEW' " +
+            "RETURNING id, category_id, date", nativeQuery = true)
+    List<Object[]> reviewPendingExpenses(UUID orgId, Collection<UUID> ids, String newStatus, UUID reviewerId);
 }
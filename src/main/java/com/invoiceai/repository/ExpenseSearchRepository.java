@@ -0,0 +1,37 @@
+package com.invoiceai.repository;
+
+import com.invoiceai.model.enums.ExpenseStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface ExpenseSearchRepository {
+
+    /**
+     * True when the database has the tsvector column and trigram indexes (PostgreSQL).
+     * Other databases (e.g. H2 in tests) fall back to {@link ExpenseSpecification}.
+     */
+    boolean supportsFullTextSearch();
+
+    /**
+     * Full-text search ranked by ts_rank, with highlighted snippets. Returns ids only —
+     * callers load the entities for the page. Hits are always ordered by rank, then date and id;
+     * only the page number and size of {@code pageable} are used, its sort is ignored.
+     */
+    Page<SearchHit> searchRanked(
+            UUID orgId,
+            ExpenseStatus status,
+            UUID categoryId,
+            String vendorName,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            BigDecimal amountMin,
+            BigDecimal amountMax,
+            String search,
+            Pageable pageable);
+
+    record SearchHit(UUID expenseId, double rank, String highlight) {}
+}
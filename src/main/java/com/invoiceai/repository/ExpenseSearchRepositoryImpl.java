@@ -0,0 +1,117 @@
+package com.invoiceai.repository;
+
+import com.invoiceai.model.enums.ExpenseStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ExpenseSearchRepositoryImpl implements ExpenseSearchRepository {
+
+    private static final String HEADLINE_OPTIONS = "StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=20, MinWords=5";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean fullTextSupported;
+
+    @Override
+    public boolean supportsFullTextSearch() {
+        Boolean supported = fullTextSupported;
+        if (supported == null) {
+            supported = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect() instanceof PostgreSQLDialect;
+            fullTextSupported = supported;
+        }
+        return supported;
+    }
+
+    @Override
+    public Page<SearchHit> searchRanked(
+            UUID orgId, ExpenseStatus status, UUID categoryId, String vendorName,
+            LocalDate dateFrom, LocalDate dateTo, BigDecimal amountMin, BigDecimal amountMax,
+            String search, Pageable pageable) {
+
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder where = new StringBuilder(" WHERE e.organization_id = :orgId")
+                .append(" AND (e.search_vector @@ websearch_to_tsquery('simple', :search)")
+                .append(" OR lower(e.vendor_name) LIKE :searchPattern)");
+        params.put("orgId", orgId);
+        params.put("search", search);
+        params.put("searchPattern", "%" + search.toLowerCase() + "%");
+
+        if (status != null) {
+            where.append(" AND e.status = :status");
+            params.put("status", status.name());
+        }
+        if (categoryId != null) {
+            where.append(" AND e.category_id = :categoryId");
+            params.put("categoryId", categoryId);
+        }
+        if (vendorName != null && !vendorName.isBlank()) {
+            where.append(" AND lower(e.vendor_name) LIKE :vendorPattern");
+            params.put("vendorPattern", "%" + vendorName.toLowerCase() + "%");
+        }
+        if (dateFrom != null) {
+            where.append(" AND e.date >= :dateFrom");
+            params.put("dateFrom", dateFrom);
+        }
+        if (dateTo != null) {
+            where.append(" AND e.date <= :dateTo");
+            params.put("dateTo", dateTo);
+        }
+        if (amountMin != null) {
+            where.append(" AND e.amount >= :amountMin");
+            params.put("amountMin", amountMin);
+        }
+        if (amountMax != null) {
+            where.append(" AND e.amount <= :amountMax");
+            params.put("amountMax", amountMax);
+        }
+
+        // Every match has to be ranked since rank is the sort key, but ts_headline (which re-parses
+        // the text) only runs in the outer query over the rows that survive LIMIT/OFFSET
+        String select = """
+                SELECT p.id, p.rank,
+                       ts_headline('simple', p.vendor_name || coalesce(' — ' || p.description, ''),
+                                   websearch_to_tsquery('simple', :search), :headlineOptions) AS highlight
+                  FROM (SELECT e.id, e.vendor_name, e.description, e.date,
+                               ts_rank(e.search_vector, websearch_to_tsquery('simple', :search)) AS rank
+                          FROM expenses e""" + where
+                + " ORDER BY rank DESC, e.date DESC, e.id LIMIT :limit OFFSET :offset) p"
+                + " ORDER BY p.rank DESC, p.date DESC, p.id";
+
+        Query query = entityManager.createNativeQuery(select);
+        params.forEach(query::setParameter);
+        query.setParameter("headlineOptions", HEADLINE_OPTIONS);
+        query.setParameter("limit", pageable.getPageSize());
+        query.setParameter("offset", pageable.getOffset());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        List<SearchHit> hits = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            hits.add(new SearchHit((UUID) row[0], ((Number) row[1]).doubleValue(), (String) row[2]));
+        }
+
+        Query countQuery = entityManager.createNativeQuery("SELECT COUNT(*) FROM expenses e" + where);
+        params.forEach(countQuery::setParameter);
+        long total = ((Number) countQuery.getSingleResult()).longValue();
+
+        return new PageImpl<>(hits, pageable, total);
+    }
+}
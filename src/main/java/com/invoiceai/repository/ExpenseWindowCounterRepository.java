@@ -0,0 +1,17 @@
+package com.invoiceai.repository;
+
+import com.invoiceai.model.ExpenseWindowCounter;
+import com.invoiceai.model.enums.WindowDimension;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface ExpenseWindowCounterRepository extends JpaRepository<ExpenseWindowCounter, Long> {
+
+    /** One row: (expense count, total amount) over the days in the window. */
+    @Query("SELECT COALESCE(SUM(w.expenseCount), 0), COALESCE(SUM(w.totalAmount), 0) FROM ExpenseWindowCounter w WHERE w.organization.id = :orgId AND w.dimension = :dimension AND w.dimensionKey = :key AND w.day BETWEEN :from AND :to")
+    List<Object[]> sumWindow(UUID orgId, WindowDimension dimension, String key, LocalDate from, LocalDate to);
+}
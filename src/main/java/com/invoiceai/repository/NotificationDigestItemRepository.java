@@ -0,0 +1,38 @@
+package com.invoiceai.repository;
+
+import com.invoiceai.model.NotificationDigestItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface NotificationDigestItemRepository extends JpaRepository<NotificationDigestItem, Long> {
+
+    /**
+     * (organization id, user id) of every recipient with held items, skipping daily-digest
+     * recipients unless {@code includeDaily}. Recipients who have since switched back to
+     * immediate delivery are included, so nothing stays held.
+     */
+    @Query(value = """
+            SELECT DISTINCT i.organization_id, i.user_id
+              FROM notification_digest_items i
+              LEFT JOIN notification_preferences p ON p.organization_id = i.organization_id AND p.user_id = i.user_id
+             WHERE :includeDaily OR COALESCE(p.digest_frequency, 'IMMEDIATE') <> 'DAILY'
+            """, nativeQuery = true)
+    List<Object[]> findDueRecipients(boolean includeDaily);
+
+    /**
+     * Removes and returns the recipient's held items, oldest first. Must run in the transaction
+     * that queues the digest; items another node is already sending are skipped.
+     */
+    @Query(value = """
+            DELETE FROM notification_digest_items
+             WHERE id IN (SELECT id FROM notification_digest_items
+                           WHERE organization_id = :orgId AND user_id = :userId
+                           ORDER BY id
+                           FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<NotificationDigestItem> takeForRecipient(UUID orgId, UUID userId);
+}
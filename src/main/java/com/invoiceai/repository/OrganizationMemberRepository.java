@@ -3,7 +3,9 @@ package com.invoiceai.repository;
 import com.invoiceai.model.OrganizationMember;
 import com.invoiceai.model.enums.MemberRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,5 +14,13 @@ public interface OrganizationMemberRepository extends JpaRepository<Organization
     List<OrganizationMember> findByUserId(UUID userId);
     Optional<OrganizationMember> findByUserIdAndOrganizationId(UUID userId, UUID organizationId);
     boolean existsByUserIdAndOrganizationId(UUID userId, UUID organizationId);
-    List<OrganizationMember> findByOrganizationIdAndRoleIn(UUID organizationId, List<MemberRole> roles);
+    /**
+     * Members with one of {@code roles} and their notification settings as (user id, email,
+     * policy violations, budget alerts, digest frequency). Settings are null for members who
+     * never saved preferences.
+     */
+    @Query("SELECT u.id, u.email, p.policyViolations, p.budgetAlerts, p.digestFrequency FROM OrganizationMember m JOIN m.user u " +
+            "LEFT JOIN NotificationPreference p ON p.user.id = u.id AND p.organization.id = m.organization.id " +
+            "WHERE m.organization.id = :orgId AND m.role IN :roles")
+    List<Object[]> findNotificationRecipients(UUID orgId, Collection<MemberRole> roles);
 }
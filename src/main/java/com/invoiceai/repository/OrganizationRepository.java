@@ -2,11 +2,20 @@ package com.invoiceai.repository;
 
 import com.invoiceai.model.Organization;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface OrganizationRepository extends JpaRepository<Organization, UUID> {
     Optional<Organization> findBySlug(String slug);
     boolean existsBySlug(String slug);
+
+    @Query("SELECT o.id FROM Organization o")
+    List<UUID> findAllIds();
+
+    /** Bumped by triggers whenever the org's expenses, invoices, budgets, categories or policies change. */
+    @Query(value = "SELECT data_version FROM organizations WHERE id = :orgId", nativeQuery = true)
+    Optional<Long> findDataVersion(UUID orgId);
 }
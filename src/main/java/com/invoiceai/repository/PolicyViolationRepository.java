@@ -3,6 +3,7 @@ package com.invoiceai.repository;
 import com.invoiceai.model.PolicyViolation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
@@ -10,5 +11,6 @@ import java.util.UUID;
 
 public interface PolicyViolationRepository extends JpaRepository<PolicyViolation, UUID> {
     List<PolicyViolation> findByExpenseId(UUID expenseId);
+    @EntityGraph(attributePaths = {"expense", "policy"})
     Page<PolicyViolation> findByOrganizationId(UUID organizationId, Pageable pageable);
 }
@@ -1,7 +1,12 @@
 package com.invoiceai.repository;
 
 import com.invoiceai.model.RecurringExpense;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -9,7 +14,29 @@ import java.util.Optional;
 import java.util.UUID;
 
 public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, UUID> {
+    @EntityGraph(attributePaths = "category")
     List<RecurringExpense> findByOrganizationId(UUID organizationId);
     Optional<RecurringExpense> findByIdAndOrganizationId(UUID id, UUID organizationId);
-    List<RecurringExpense> findByIsActiveTrueAndNextDueDateLessThanEqual(LocalDate date);
+
+    /**
+     * Leases up to {@code limit} active rows due by {@code today} that no other node holds, oldest
+     * due first. SKIP LOCKED lets several nodes claim side by side without overlapping. Returns
+     * (id, organization id) for the claimed rows.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE recurring_expenses SET claimed_until = NOW() + make_interval(secs => :leaseSeconds)
+             WHERE id IN (SELECT id FROM recurring_expenses
+                           WHERE is_active AND next_due_date <= :today
+                             AND (claimed_until IS NULL OR claimed_until < NOW())
+                           ORDER BY next_due_date, id
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            RETURNING id, organization_id
+            """, nativeQuery = true)
+    List<Object[]> claimDue(LocalDate today, int limit, int leaseSeconds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RecurringExpense r WHERE r.id = :id")
+    Optional<RecurringExpense> findByIdForUpdate(UUID id);
 }
@@ -0,0 +1,47 @@
+package com.invoiceai.scheduler;
+
+import com.invoiceai.service.EmailOutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxScheduler {
+
+    private final EmailOutboxDispatcher dispatcher;
+
+    @Value("${app.email.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.email.outbox.retention-days:14}")
+    private int retentionDays;
+
+    /**
+     * Polls the outbox every few seconds and sends whatever is due.
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-millis:5000}")
+    public void dispatchOutbox() {
+        if (!enabled) {
+            return;
+        }
+        int sent = dispatcher.dispatchDue();
+        if (sent > 0) {
+            log.info("Email outbox: {} messages sent.", sent);
+        }
+    }
+
+    /**
+     * Runs daily at 4:00 AM UTC — deletes delivered messages past the retention period.
+     */
+    @Scheduled(cron = "0 0 4 * * *")
+    public void purgeSentMessages() {
+        int deleted = dispatcher.purgeSent(Duration.ofDays(retentionDays));
+        log.info("Email outbox purge complete. {} sent messages deleted.", deleted);
+    }
+}
@@ -0,0 +1,37 @@
+package com.invoiceai.scheduler;
+
+import com.invoiceai.repository.OrganizationRepository;
+import com.invoiceai.service.ExpenseRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExpenseRollupScheduler {
+
+    private final OrganizationRepository organizationRepository;
+    private final ExpenseRollupService expenseRollupService;
+
+    /**
+     * Runs weekly on Sunday at 3:30 AM UTC — rebuilds daily spend rollups one org at a time.
+     */
+    @Scheduled(cron = "${app.rollups.rebuild-cron:0 30 3 * * SUN}")
+    public void rebuildRollups() {
+        log.info("Starting expense rollup rebuild...");
+        int orgs = 0;
+        for (UUID orgId : organizationRepository.findAllIds()) {
+            try {
+                expenseRollupService.rebuildOrganization(orgId);
+                orgs++;
+            } catch (Exception e) {
+                log.error("Failed to rebuild expense rollups for org {}", orgId, e);
+            }
+        }
+        log.info("Expense rollup rebuild complete. {} organizations rebuilt.", orgs);
+    }
+}
@@ -0,0 +1,46 @@
+package com.invoiceai.scheduler;
+
+import com.invoiceai.service.notification.NotificationDigestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDigestScheduler {
+
+    private final NotificationDigestService digestService;
+
+    @Value("${app.notifications.digest.daily-hour:8}")
+    private int dailyHour;
+
+    /**
+     * Runs hourly on the hour — sends hourly digests, and daily ones at the configured UTC hour.
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void sendDigests() {
+        boolean includeDaily = ZonedDateTime.now(ZoneOffset.UTC).getHour() == dailyHour;
+        int sent = 0;
+        for (Object[] row : digestService.findDueRecipients(includeDaily)) {
+            UUID orgId = (UUID) row[0];
+            UUID userId = (UUID) row[1];
+            try {
+                if (digestService.sendDigest(orgId, userId)) {
+                    sent++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to send notification digest to user {} for org {}", userId, orgId, e);
+            }
+        }
+        if (sent > 0) {
+            log.info("Notification digests complete. {} digests queued.", sent);
+        }
+    }
+}
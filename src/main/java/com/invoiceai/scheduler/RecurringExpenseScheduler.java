@@ -3,9 +3,22 @@ package com.invoiceai.scheduler;
 import com.invoiceai.service.RecurringExpenseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -13,13 +26,55 @@ public class RecurringExpenseScheduler {
 
     private final RecurringExpenseService recurringExpenseService;
 
+    @Value("${app.recurring.parallelism:2}")
+    private int parallelism;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
     /**
-     * Runs daily at 1:00 AM UTC — processes all due recurring expenses.
+     * Runs daily at 1:00 AM UTC — claims due recurring expenses chunk by chunk and processes each
+     * chunk's orgs in parallel, one short transaction per recurring expense. Safe to run on every
+     * node: claimed rows are skipped by the others. A row that fails keeps its lease, so this run
+     * skips it and the next run after the lease expires picks it up again.
      */
     @Scheduled(cron = "0 0 1 * * *")
     public void processDueRecurringExpenses() {
         log.info("Starting recurring expense processing...");
-        int processed = recurringExpenseService.processDueRecurringExpenses();
-        log.info("Recurring expense processing complete. {} expenses created.", processed);
+        LocalDate today = LocalDate.now();
+        AtomicInteger created = new AtomicInteger();
+        // Each worker holds a connection for its transaction; leave at least half the pool to requests
+        int workers = Math.max(1, Math.min(parallelism, poolSize / 2));
+        try (ExecutorService executor = Executors.newFixedThreadPool(
+                workers, Thread.ofVirtual().name("recurring-expenses-", 0).factory())) {
+            List<Object[]> chunk;
+            while (!(chunk = recurringExpenseService.claimDue(today)).isEmpty()) {
+                Map<UUID, List<UUID>> byOrg = new LinkedHashMap<>();
+                for (Object[] row : chunk) {
+                    byOrg.computeIfAbsent((UUID) row[1], k -> new ArrayList<>()).add((UUID) row[0]);
+                }
+                List<Future<?>> orgs = new ArrayList<>();
+                for (List<UUID> recurringIds : byOrg.values()) {
+                    orgs.add(executor.submit(() -> {
+                        for (UUID recurringId : recurringIds) {
+                            try {
+                                created.addAndGet(recurringExpenseService.processRecurringExpense(recurringId, today));
+                            } catch (Exception e) {
+                                log.error("Failed to process recurring expense {}", recurringId, e);
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> org : orgs) {
+                    org.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Recurring expense processing interrupted");
+        } catch (ExecutionException e) {
+            log.error("Recurring expense processing failed", e.getCause());
+        }
+        log.info("Recurring expense processing complete. {} expenses created.", created.get());
     }
 }
@@ -0,0 +1,233 @@
+package com.invoiceai.service;
+
+import com.invoiceai.dto.response.AssistantConversationResponse;
+import com.invoiceai.exception.ResourceNotFoundException;
+import com.invoiceai.model.AssistantConversation;
+import com.invoiceai.model.AssistantMessage;
+import com.invoiceai.model.Organization;
+import com.invoiceai.model.User;
+import com.invoiceai.repository.AssistantConversationRepository;
+import com.invoiceai.repository.AssistantMessageRepository;
+import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.ai.AiChatService;
+import com.invoiceai.service.ai.AiChatService.ChatMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Server-side assistant conversations. The full transcript is kept; what is sent to the model
+ * is the stored rolling summary plus the newest turns that fit the provider's token budget.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AssistantConversationService {
+
+    static final String USER = "user";
+    static final String ASSISTANT = "assistant";
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MAX_TITLE_LENGTH = 100;
+    private static final int MAX_LISTED = 50;
+
+    private static final String SUMMARY_PROMPT = """
+            You maintain a running summary of a conversation between a user and an expense assistant.
+            Merge the existing summary (if any) with the new messages into one updated summary.
+            Keep every figure, date range, vendor, category and decision the user may refer back to,
+            and drop pleasantries. Write at most 200 words of plain text.
+            """;
+
+    private final AssistantConversationRepository conversationRepository;
+    private final AssistantMessageRepository messageRepository;
+    private final AiChatService aiChatService;
+
+    /**
+     * Resolves the caller's conversation (starting a new one when {@code conversationId} is null)
+     * and appends the user's message to it.
+     */
+    @Transactional
+    public UUID addUserMessage(UUID orgId, User user, UUID conversationId, String message) {
+        if (conversationId == null) {
+            AssistantConversation conversation = conversationRepository.save(AssistantConversation.builder()
+                    .organization(Organization.builder().id(orgId).build())
+                    .user(user)
+                    .title(message.length() > MAX_TITLE_LENGTH ? message.substring(0, MAX_TITLE_LENGTH) : message)
+                    .build());
+            conversationId = conversation.getId();
+        } else if (conversationRepository.findByIdAndOrganizationIdAndUserId(conversationId, orgId, user.getId()).isEmpty()) {
+            throw new ResourceNotFoundException("Conversation not found");
+        }
+        append(conversationId, USER, message);
+        return conversationId;
+    }
+
+    @Transactional
+    public void addAssistantMessage(UUID conversationId, String reply) {
+        append(conversationId, ASSISTANT, reply);
+    }
+
+    private void append(UUID conversationId, String role, String content) {
+        AssistantConversation conversation = conversationRepository.findByIdForUpdate(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        int seq = conversation.getMessageCount() + 1;
+        conversation.setMessageCount(seq);
+        messageRepository.save(AssistantMessage.builder()
+                .conversation(conversation)
+                .seq(seq)
+                .role(role)
+                .content(content)
+                .tokenEstimate(estimateTokens(content))
+                .build());
+    }
+
+    /**
+     * History to send with the next request, within roughly {@code tokenBudget} tokens. When the
+     * unsummarized turns exceed the budget, the oldest are folded into the stored summary until
+     * the rest fit in half of it, so a fold happens every few turns rather than on each one.
+     * Not transactional: the fold calls the model.
+     */
+    public List<ChatMessage> history(UUID conversationId, int tokenBudget) {
+        AssistantConversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        String summary = conversation.getSummary();
+        List<AssistantMessage> recent = messageRepository.findByConversationIdAndSeqGreaterThanOrderBySeq(
+                conversationId, conversation.getSummarizedThrough());
+
+        int total = estimateTokens(summary) + recent.stream().mapToInt(AssistantMessage::getTokenEstimate).sum();
+        if (total > tokenBudget) {
+            int keepFrom = foldPoint(recent, tokenBudget / 2 - estimateTokens(summary));
+            if (keepFrom > 0) {
+                summary = fold(conversationId, summary, recent.subList(0, keepFrom));
+                recent = recent.subList(keepFrom, recent.size());
+            }
+        }
+
+        List<ChatMessage> messages = new ArrayList<>();
+        if (summary != null) {
+            // As a leading exchange rather than in the system prompt, which stays cacheable
+            messages.add(new ChatMessage(USER, "Summary of our conversation so far:\n" + summary));
+            messages.add(new ChatMessage(ASSISTANT, "Understood."));
+        }
+        for (AssistantMessage message : recent) {
+            ChatMessage last = messages.isEmpty() ? null : messages.getLast();
+            if (last != null && last.role().equals(message.getRole())) {
+                // A failed reply leaves two user turns in a row; providers expect alternation
+                messages.set(messages.size() - 1,
+                        new ChatMessage(last.role(), last.content() + "\n\n" + message.getContent()));
+            } else {
+                messages.add(new ChatMessage(message.getRole(), message.getContent()));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Index of the first message to keep: the newest messages fitting {@code target} tokens,
+     * moved forward to start on a user turn, and never past the latest user message.
+     */
+    static int foldPoint(List<AssistantMessage> messages, int target) {
+        int lastUser = -1;
+        for (int i = messages.size() - 1; i >= 0 && lastUser < 0; i--) {
+            if (USER.equals(messages.get(i).getRole())) {
+                lastUser = i;
+            }
+        }
+        if (lastUser < 0) {
+            return 0;
+        }
+
+        int keepFrom = messages.size();
+        int kept = 0;
+        while (keepFrom > 0 && kept + messages.get(keepFrom - 1).getTokenEstimate() <= target) {
+            keepFrom--;
+            kept += messages.get(keepFrom).getTokenEstimate();
+        }
+        keepFrom = Math.min(keepFrom, lastUser);
+        while (keepFrom < lastUser && !USER.equals(messages.get(keepFrom).getRole())) {
+            keepFrom++;
+        }
+        return keepFrom;
+    }
+
+    /**
+     * Merges {@code folded} into the summary and stores it. If the model call fails the old
+     * summary is returned and the folded turns are simply left out of this request; the fold
+     * is retried on the next one.
+     */
+    private String fold(UUID conversationId, String summary, List<AssistantMessage> folded) {
+        StringBuilder transcript = new StringBuilder();
+        if (summary != null) {
+            transcript.append("Existing summary:\n").append(summary).append("\n\nNew messages:\n");
+        }
+        for (AssistantMessage message : folded) {
+            transcript.append(message.getRole()).append(": ").append(message.getContent()).append('\n');
+        }
+
+        try {
+            String updated = aiChatService.chat(SUMMARY_PROMPT,
+                    List.of(new ChatMessage(USER, transcript.toString())), List.of());
+            conversationRepository.updateSummary(conversationId, updated, folded.getLast().getSeq());
+            return updated;
+        } catch (Exception e) {
+            log.warn("Failed to summarize assistant conversation {}", conversationId, e);
+            return summary;
+        }
+    }
+
+    static int estimateTokens(String text) {
+        return text == null ? 0 : text.length() / CHARS_PER_TOKEN + 1;
+    }
+
+    @Transactional(readOnly = true)
+    public List<AssistantConversationResponse> listConversations(User user) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        return conversationRepository.findByOrganizationIdAndUserIdOrderByUpdatedAtDesc(
+                        orgId, user.getId(), PageRequest.of(0, MAX_LISTED)).stream()
+                .map(c -> toResponse(c, null))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public AssistantConversationResponse getConversation(UUID conversationId, User user) {
+        AssistantConversation conversation = findOwned(conversationId, user);
+        List<AssistantConversationResponse.MessageEntry> messages = messageRepository
+                .findByConversationIdOrderBySeq(conversationId).stream()
+                .map(m -> AssistantConversationResponse.MessageEntry.builder()
+                        .role(m.getRole())
+                        .content(m.getContent())
+                        .createdAt(m.getCreatedAt())
+                        .build())
+                .toList();
+        return toResponse(conversation, messages);
+    }
+
+    @Transactional
+    public void deleteConversation(UUID conversationId, User user) {
+        conversationRepository.delete(findOwned(conversationId, user));
+    }
+
+    private AssistantConversation findOwned(UUID conversationId, User user) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        return conversationRepository.findByIdAndOrganizationIdAndUserId(conversationId, orgId, user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+    }
+
+    private AssistantConversationResponse toResponse(AssistantConversation conversation,
+                                                     List<AssistantConversationResponse.MessageEntry> messages) {
+        return AssistantConversationResponse.builder()
+                .id(conversation.getId())
+                .title(conversation.getTitle())
+                .messageCount(conversation.getMessageCount())
+                .createdAt(conversation.getCreatedAt())
+                .updatedAt(conversation.getUpdatedAt())
+                .messages(messages)
+                .build();
+    }
+}
@@ -1,23 +1,31 @@
 package com.invoiceai.service;
 
 import com.invoiceai.dto.request.AssistantChatRequest;
-import com.invoiceai.model.Expense;
+import com.invoiceai.dto.response.AssistantChatResponse;
+import com.invoiceai.model.User;
 import com.invoiceai.repository.CategoryRepository;
+import com.invoiceai.repository.ExpenseDailyRollupRepository;
 import com.invoiceai.repository.ExpenseRepository;
 import com.invoiceai.security.TenantContext;
 import com.invoiceai.service.ai.AiChatService;
 import com.invoiceai.service.ai.AiChatService.ChatMessage;
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import com.invoiceai.service.cache.OrgCacheRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,61 +35,131 @@ public class AssistantService {
 
     private final AiChatService aiChatService;
     private final ExpenseRepository expenseRepository;
+    private final ExpenseDailyRollupRepository rollupRepository;
     private final CategoryRepository categoryRepository;
-
-    private static final int MAX_HISTORY_SIZE = 20;
-
-    @Transactional(readOnly = true)
-    public String chat(AssistantChatRequest request) {
+    private final AssistantTools assistantTools;
+    private final OrgCacheRegistry caches;
+    private final AssistantConversationService conversationService;
+
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(2);
+    private static final String FALLBACK_REPLY =
+            "I'm sorry, I'm having trouble processing your request right now. Please try again in a moment.";
+
+    /**
+     * Not transactional: the context queries run up front (or come from cache) so no
+     * connection is held while waiting on the model. A failed reply is not stored.
+     */
+    public AssistantChatResponse chat(AssistantChatRequest request, User user) {
         UUID orgId = TenantContext.getCurrentOrgId();
-        String systemPrompt = buildSystemPrompt(orgId);
-
-        List<ChatMessage> messages = new ArrayList<>();
-        if (request.getHistory() != null) {
-            for (var entry : request.getHistory()) {
-                messages.add(new ChatMessage(entry.getRole(), entry.getContent()));
-            }
-        }
-        messages.add(new ChatMessage("user", request.getMessage()));
-
-        // Truncate to prevent token overflow
-        if (messages.size() > MAX_HISTORY_SIZE) {
-            messages = new ArrayList<>(messages.subList(messages.size() - MAX_HISTORY_SIZE, messages.size()));
-        }
+        UUID conversationId = conversationService.addUserMessage(
+                orgId, user, request.getConversationId(), request.getMessage());
+        String systemPrompt = getSystemPrompt(orgId);
 
+        String reply;
         try {
-            return aiChatService.chat(systemPrompt, messages);
+            List<ChatMessage> messages = conversationService.history(conversationId, aiChatService.historyTokenBudget());
+            reply = aiChatService.chat(systemPrompt, messages, assistantTools.forOrg(orgId));
+            conversationService.addAssistantMessage(conversationId, reply);
         } catch (Exception e) {
             log.error("AI chat failed for org {}", orgId, e);
-            return "I'm sorry, I'm having trouble processing your request right now. Please try again in a moment.";
+            reply = FALLBACK_REPLY;
         }
+        return AssistantChatResponse.builder().conversationId(conversationId).reply(reply).build();
     }
 
-    private String buildSystemPrompt(UUID orgId) {
-        LocalDate now = LocalDate.now();
-        LocalDate monthStart = now.withDayOfMonth(1);
-        LocalDate lastMonthStart = now.minusMonths(1).withDayOfMonth(1);
-        LocalDate lastMonthEnd = monthStart.minusDays(1);
+    /**
+     * Streams the reply as SSE: a {@code conversation} event carrying the conversation id, a
+     * {@code token} event per text delta, then {@code done}, or {@code error} with the fallback
+     * reply. The provider call runs on its own virtual thread; each event is written to the
+     * client before the next delta is read from the provider, so at most one delta is buffered
+     * per stream and a slow client slows the provider read. A disconnect or timeout interrupts
+     * the thread, which aborts the provider request. The reply is stored once it completes.
+     */
+    public SseEmitter chatStream(AssistantChatRequest request, User user) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        UUID conversationId = conversationService.addUserMessage(
+                orgId, user, request.getConversationId(), request.getMessage());
+        String systemPrompt = getSystemPrompt(orgId);
+        List<ChatTool> tools = assistantTools.forOrg(orgId);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        send(emitter, "conversation", Map.of("conversationId", conversationId));
+        AtomicBoolean closed = new AtomicBoolean();
+        Thread worker = Thread.ofVirtual().name("assistant-stream-" + orgId).unstarted(() -> {
+            try {
+                List<ChatMessage> messages = conversationService.history(conversationId, aiChatService.historyTokenBudget());
+                StringBuilder reply = new StringBuilder();
+                aiChatService.chatStream(systemPrompt, messages, tools, token -> {
+                    reply.append(token);
+                    send(emitter, "token", Map.of("text", token));
+                });
+                conversationService.addAssistantMessage(conversationId, reply.toString());
+                send(emitter, "done", Map.of("text", ""));
+                emitter.complete();
+            } catch (Exception e) {
+                if (closed.get() || Thread.currentThread().isInterrupted()) {
+                    log.debug("AI chat stream for org {} cancelled by client", orgId);
+                    return;
+                }
+                log.error("AI chat stream failed for org {}", orgId, e);
+                try {
+                    send(emitter, "error", Map.of("text", FALLBACK_REPLY));
+                    emitter.complete();
+                } catch (Exception sendFailure) {
+                    emitter.completeWithError(sendFailure);
+                }
+            }
+        });
+        Runnable cancel = () -> {
+            closed.set(true);
+            worker.interrupt();
+        };
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+        emitter.onCompletion(cancel);
+        worker.start();
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, String event, Map<String, ?> data) {
+        try {
+            // JSON-wrapped so newlines in the text cannot break SSE framing
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        BigDecimal currentMonthSpend = expenseRepository.sumApprovedAmountByDateRange(orgId, monthStart, now);
-        long currentMonthCount = expenseRepository.countApprovedByDateRange(orgId, monthStart, now);
+    /**
+     * Rendered system prompt for the org, memoized per day (the prompt embeds today's date).
+     * Dropped on any expense or category change by {@link com.invoiceai.service.cache.ReportCacheInvalidator}
+     * and {@link CategoryService}.
+     */
+    String getSystemPrompt(UUID orgId) {
+        LocalDate today = LocalDate.now();
+        return caches.cache(OrgCacheRegistry.ASSISTANT_CONTEXT)
+                .get(orgId, today, () -> buildSystemPrompt(orgId, today));
+    }
 
-        BigDecimal lastMonthSpend = expenseRepository.sumApprovedAmountByDateRange(orgId, lastMonthStart, lastMonthEnd);
-        long lastMonthCount = expenseRepository.countApprovedByDateRange(orgId, lastMonthStart, lastMonthEnd);
+    /**
+     * Headline figures and category names only; anything else (other periods, vendors,
+     * individual expenses) the model fetches through {@link AssistantTools}.
+     */
+    private String buildSystemPrompt(UUID orgId, LocalDate now) {
+        LocalDate monthStart = now.withDayOfMonth(1);
 
-        List<Object[]> byCategory = expenseRepository.sumByCategoryAndDateRange(orgId, monthStart, now);
-        List<Object[]> topVendors = expenseRepository.topVendors(orgId, monthStart, now, PageRequest.of(0, 5));
+        BigDecimal currentMonthSpend = rollupRepository.sumApprovedAmountByDateRange(orgId, monthStart, now);
+        long currentMonthCount = rollupRepository.countApprovedByDateRange(orgId, monthStart, now);
 
         var categories = categoryRepository.findByOrganizationId(orgId);
         long pendingCount = expenseRepository.countPendingReview(orgId);
 
-        List<Expense> recentExpenses = expenseRepository.findRecentByOrganizationId(orgId, PageRequest.of(0, 10));
-
         StringBuilder sb = new StringBuilder();
         sb.append("""
                 You are an AI expense assistant for InvoiceAI. You help users understand their expense data.
-                Answer questions concisely and accurately based on the data provided below.
-                If you cannot answer from the data, say so honestly. Do not make up numbers.
+                Answer questions concisely and accurately. Use the provided tools to look up any figures
+                not listed below, and call them again rather than guessing for other periods or vendors.
+                If the tools cannot answer a question, say so honestly. Do not make up numbers.
                 Format currency amounts with $ and two decimal places.
                 Use bullet points or short paragraphs. Keep answers under 200 words unless the user asks for detail.
                 Today's date is %s.
@@ -96,37 +174,6 @@ public class AssistantService {
         sb.append("- Expenses pending review: %d\n".formatted(pendingCount));
         sb.append("\n");
 
-        sb.append("LAST MONTH (%s to %s):\n".formatted(lastMonthStart, lastMonthEnd));
-        sb.append("- Total approved spend: $%s\n".formatted(lastMonthSpend));
-        sb.append("- Number of approved expenses: %d\n".formatted(lastMonthCount));
-        sb.append("\n");
-
-        if (!byCategory.isEmpty()) {
-            sb.append("SPEND BY CATEGORY (current month):\n");
-            for (Object[] row : byCategory) {
-                sb.append("- %s: $%s\n".formatted(row[0], row[2]));
-            }
-            sb.append("\n");
-        }
-
-        if (!topVendors.isEmpty()) {
-            sb.append("TOP VENDORS (current month):\n");
-            for (Object[] row : topVendors) {
-                sb.append("- %s: $%s (%s expenses)\n".formatted(row[0], row[1], row[2]));
-            }
-            sb.append("\n");
-        }
-
-        if (!recentExpenses.isEmpty()) {
-            sb.append("RECENT EXPENSES (last 10):\n");
-            for (Expense e : recentExpenses) {
-                String catName = e.getCategory() != null ? e.getCategory().getName() : "Uncategorized";
-                sb.append("- %s | %s | $%s | %s | %s\n".formatted(
-                        e.getDate(), e.getVendorName(), e.getAmount(), catName, e.getStatus()));
-            }
-            sb.append("\n");
-        }
-
         if (!categories.isEmpty()) {
             sb.append("AVAILABLE CATEGORIES: ");
             sb.append(categories.stream().map(c -> c.getName()).collect(Collectors.joining(", ")));
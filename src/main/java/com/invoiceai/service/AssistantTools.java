@@ -0,0 +1,209 @@
+package com.invoiceai.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.invoiceai.model.Category;
+import com.invoiceai.model.Expense;
+import com.invoiceai.repository.CategoryRepository;
+import com.invoiceai.repository.ExpenseDailyRollupRepository;
+import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Query tools the assistant model can call. Every tool is bound to one organization when the
+ * list is built, so handlers never read {@code TenantContext} (they may run on a stream thread)
+ * and cannot reach another tenant's data. Amounts come from the daily rollups.
+ */
+@Component
+@RequiredArgsConstructor
+public class AssistantTools {
+
+    private static final int MAX_ROWS = 25;
+
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final CategoryRepository categoryRepository;
+
+    public List<ChatTool> forOrg(UUID orgId) {
+        return List.of(
+                new ChatTool("spend_summary",
+                        "Total approved spend and number of approved expenses between two dates, optionally for one category.",
+                        schema(Map.of(
+                                "from", date("First day of the period"),
+                                "to", date("Last day of the period"),
+                                "category", string("Exact category name; omit for all categories")),
+                                "from", "to"),
+                        args -> spendSummary(orgId, args)),
+                new ChatTool("category_breakdown",
+                        "Approved spend per category between two dates, largest first.",
+                        schema(Map.of(
+                                "from", date("First day of the period"),
+                                "to", date("Last day of the period")),
+                                "from", "to"),
+                        args -> categoryBreakdown(orgId, args)),
+                new ChatTool("top_vendors",
+                        "Vendors with the most approved spend between two dates.",
+                        schema(Map.of(
+                                "from", date("First day of the period"),
+                                "to", date("Last day of the period"),
+                                "limit", integer("Number of vendors, at most " + MAX_ROWS)),
+                                "from", "to"),
+                        args -> topVendors(orgId, args)),
+                new ChatTool("vendor_history",
+                        "Monthly approved spend for vendors whose name contains the given text, plus their most recent expenses. "
+                                + "Defaults to the last 12 months.",
+                        schema(Map.of(
+                                "vendor", string("Vendor name or part of it, case-insensitive"),
+                                "from", date("First day of the period"),
+                                "to", date("Last day of the period")),
+                                "vendor"),
+                        args -> vendorHistory(orgId, args)),
+                new ChatTool("recent_expenses",
+                        "Most recent expenses in any status, newest first.",
+                        schema(Map.of(
+                                "limit", integer("Number of expenses, at most " + MAX_ROWS))),
+                        args -> recentExpenses(orgId, args))
+        );
+    }
+
+    private Map<String, Object> spendSummary(UUID orgId, JsonNode args) {
+        LocalDate from = requiredDate(args, "from");
+        LocalDate to = requiredDate(args, "to");
+        checkRange(from, to);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from.toString());
+        result.put("to", to.toString());
+        String categoryName = text(args, "category");
+        if (categoryName != null) {
+            Category category = categoryRepository.findByOrganizationIdAndName(orgId, categoryName)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown category: " + categoryName));
+            result.put("category", category.getName());
+            result.put("totalApproved", rollupRepository.sumApprovedAmountByCategoryAndDateRange(orgId, category.getId(), from, to));
+        } else {
+            result.put("totalApproved", rollupRepository.sumApprovedAmountByDateRange(orgId, from, to));
+            result.put("approvedCount", rollupRepository.countApprovedByDateRange(orgId, from, to));
+        }
+        return result;
+    }
+
+    private List<Map<String, Object>> categoryBreakdown(UUID orgId, JsonNode args) {
+        LocalDate from = requiredDate(args, "from");
+        LocalDate to = requiredDate(args, "to");
+        checkRange(from, to);
+
+        return rollupRepository.sumByCategoryAndDateRange(orgId, from, to).stream()
+                .map(row -> Map.<String, Object>of("category", row[0], "totalApproved", row[2]))
+                .toList();
+    }
+
+    private List<Map<String, Object>> topVendors(UUID orgId, JsonNode args) {
+        LocalDate from = requiredDate(args, "from");
+        LocalDate to = requiredDate(args, "to");
+        checkRange(from, to);
+
+        return rollupRepository.topVendors(orgId, from, to, PageRequest.of(0, limit(args, 10))).stream()
+                .map(row -> Map.<String, Object>of("vendor", row[0], "totalApproved", row[1], "approvedCount", row[2]))
+                .toList();
+    }
+
+    private Map<String, Object> vendorHistory(UUID orgId, JsonNode args) {
+        String vendor = text(args, "vendor");
+        if (vendor == null || vendor.isBlank()) {
+            throw new IllegalArgumentException("vendor is required");
+        }
+        LocalDate to = args.hasNonNull("to") ? requiredDate(args, "to") : LocalDate.now();
+        LocalDate from = args.hasNonNull("from") ? requiredDate(args, "from") : to.minusMonths(12).withDayOfMonth(1);
+        checkRange(from, to);
+        String pattern = "%" + vendor.trim().toLowerCase() + "%";
+
+        List<Map<String, Object>> months = rollupRepository.vendorMonthlyTotals(orgId, pattern, from, to).stream()
+                .map(row -> Map.<String, Object>of("month", row[0], "totalApproved", row[1], "approvedCount", row[2]))
+                .toList();
+        List<Map<String, Object>> recent = expenseRepository.findRecentByVendor(orgId, pattern, PageRequest.of(0, 10)).stream()
+                .map(AssistantTools::expense)
+                .toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from.toString());
+        result.put("to", to.toString());
+        result.put("monthly", months);
+        result.put("recentExpenses", recent);
+        return result;
+    }
+
+    private List<Map<String, Object>> recentExpenses(UUID orgId, JsonNode args) {
+        return expenseRepository.findRecentByOrganizationId(orgId, PageRequest.of(0, limit(args, 10))).stream()
+                .map(AssistantTools::expense)
+                .toList();
+    }
+
+    private static Map<String, Object> expense(Expense e) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("date", e.getDate().toString());
+        row.put("vendor", e.getVendorName());
+        row.put("amount", e.getAmount() != null ? e.getAmount() : BigDecimal.ZERO);
+        row.put("currency", e.getCurrency());
+        row.put("category", e.getCategory() != null ? e.getCategory().getName() : "Uncategorized");
+        row.put("status", e.getStatus().name());
+        return row;
+    }
+
+    // Argument parsing — failures are reported back to the model as tool errors
+
+    private static LocalDate requiredDate(JsonNode args, String field) {
+        String value = text(args, field);
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(field + " must be a date in YYYY-MM-DD format");
+        }
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+
+    private static String text(JsonNode args, String field) {
+        JsonNode value = args.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    private static int limit(JsonNode args, int defaultLimit) {
+        int limit = args.path("limit").asInt(defaultLimit);
+        return Math.max(1, Math.min(limit, MAX_ROWS));
+    }
+
+    // JSON Schema helpers
+
+    private static Map<String, Object> schema(Map<String, Object> properties, String... required) {
+        return Map.of("type", "object", "properties", properties, "required", List.of(required));
+    }
+
+    private static Map<String, Object> date(String description) {
+        return string(description + " (YYYY-MM-DD)");
+    }
+
+    private static Map<String, Object> string(String description) {
+        return Map.of("type", "string", "description", description);
+    }
+
+    private static Map<String, Object> integer(String description) {
+        return Map.of("type", "integer", "description", description);
+    }
+}
@@ -10,10 +10,13 @@ import com.invoiceai.model.enums.BudgetAlertType;
 import com.invoiceai.repository.BudgetAlertRepository;
 import com.invoiceai.repository.BudgetRepository;
 import com.invoiceai.repository.CategoryRepository;
-import com.invoiceai.repository.ExpenseRepository;
 import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.cache.BudgetChangedEvent;
+import com.invoiceai.service.cache.OrgCacheRegistry;
+import com.invoiceai.service.cache.PeriodKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,8 +24,17 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,8 +44,9 @@ public class BudgetService {
     private final BudgetRepository budgetRepository;
     private final BudgetAlertRepository budgetAlertRepository;
     private final CategoryRepository categoryRepository;
-    private final ExpenseRepository expenseRepository;
     private final EmailNotificationService emailNotificationService;
+    private final OrgCacheRegistry caches;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<BudgetResponse> getBudgets() {
@@ -58,11 +71,13 @@ public class BudgetService {
                 .organization(Organization.builder().id(orgId).build())
                 .category(category)
                 .monthlyLimit(request.getMonthlyLimit())
-                .alertAt80(request.getAlertAt80() != null ? request.getAlertAt80() : true)
-                .alertAt100(request.getAlertAt100() != null ? request.getAlertAt100() : true)
+                .alertThresholds(resolveThresholds(List.of(80, 100), request.getAlertThresholds(),
+                        request.getAlertAt80(), request.getAlertAt100()))
                 .build();
 
-        return toResponse(budgetRepository.save(budget));
+        BudgetResponse response = toResponse(budgetRepository.save(budget));
+        eventPublisher.publishEvent(new BudgetChangedEvent(orgId));
+        return response;
     }
 
     @Transactional
@@ -72,11 +87,13 @@ public class BudgetService {
                 .orElseThrow(() -> new ResourceNotFoundException("Budget not found"));
 
         if (request.getMonthlyLimit() != null) budget.setMonthlyLimit(request.getMonthlyLimit());
-        if (request.getAlertAt80() != null) budget.setAlertAt80(request.getAlertAt80());
-        if (request.getAlertAt100() != null) budget.setAlertAt100(request.getAlertAt100());
+        budget.setAlertThresholds(resolveThresholds(budget.getAlertThresholds(), request.getAlertThresholds(),
+                request.getAlertAt80(), request.getAlertAt100()));
         if (request.getIsActive() != null) budget.setActive(request.getIsActive());
 
-        return toResponse(budgetRepository.save(budget));
+        BudgetResponse response = toResponse(budgetRepository.save(budget));
+        eventPublisher.publishEvent(new BudgetChangedEvent(orgId));
+        return response;
     }
 
     @Transactional
@@ -85,138 +102,211 @@ public class BudgetService {
         Budget budget = budgetRepository.findByIdAndOrganizationId(budgetId, orgId)
                 .orElseThrow(() -> new ResourceNotFoundException("Budget not found"));
         budgetRepository.delete(budget);
+        eventPublisher.publishEvent(new BudgetChangedEvent(orgId));
     }
 
-    @Transactional(readOnly = true)
     public BudgetProgressResponse getBudgetProgress() {
         UUID orgId = TenantContext.getCurrentOrgId();
-        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        LocalDate today = LocalDate.now();
+        LocalDate monthStart = today.withDayOfMonth(1);
         LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
+        // Keyed by today as well: the projection depends on how much of the month has elapsed
+        PeriodKey key = new PeriodKey("progress", monthStart, today, 0, monthStart, monthEnd);
+        return caches.cache(OrgCacheRegistry.BUDGET_PROGRESS).get(orgId, key,
+                () -> loadBudgetProgress(orgId, monthStart, monthEnd, today));
+    }
+
+    /** One grouped query for every active budget, then one pass over its per-day rows. */
+    private BudgetProgressResponse loadBudgetProgress(UUID orgId, LocalDate monthStart, LocalDate monthEnd, LocalDate today) {
+        Map<UUID, BudgetBurn> burns = new LinkedHashMap<>();
+        for (Object[] row : budgetRepository.findActiveBudgetDailySpend(orgId, monthStart, monthEnd)) {
+            BudgetBurn burn = burns.computeIfAbsent((UUID) row[0], id -> new BudgetBurn(
+                    id, (UUID) row[1], (String) row[2], (String) row[3], (BigDecimal) row[4], monthEnd.getDayOfMonth()));
+            if (row[5] != null) {
+                burn.add((LocalDate) row[5], (BigDecimal) row[6]);
+            }
+        }
 
-        List<Budget> activeBudgets = budgetRepository.findByOrganizationIdAndIsActiveTrue(orgId);
         BudgetProgressResponse.BudgetItem overall = null;
         List<BudgetProgressResponse.BudgetItem> byCategory = new ArrayList<>();
+        for (BudgetBurn burn : burns.values()) {
+            BudgetProgressResponse.BudgetItem item = burn.toItem(monthStart, today.getDayOfMonth());
+            if (burn.categoryId == null) {
+                overall = item;
+            } else {
+                byCategory.add(item);
+            }
+        }
 
-        for (Budget budget : activeBudgets) {
-            BigDecimal actualSpend;
-            String categoryName;
-            String categoryColor;
+        return BudgetProgressResponse.builder()
+                .overall(overall)
+                .byCategory(byCategory)
+                .build();
+    }
 
-            if (budget.getCategory() == null) {
-                // Overall budget
-                actualSpend = expenseRepository.sumApprovedAmountByDateRange(orgId, monthStart, monthEnd);
-                categoryName = "Overall";
-                categoryColor = null;
-            } else {
-                actualSpend = expenseRepository.sumApprovedAmountByCategoryAndDateRange(
-                        orgId, budget.getCategory().getId(), monthStart, monthEnd);
-                categoryName = budget.getCategory().getName();
-                categoryColor = budget.getCategory().getColor();
+    private static BigDecimal percentageOf(BigDecimal amount, BigDecimal limit) {
+        return limit.compareTo(BigDecimal.ZERO) > 0
+                ? amount.multiply(BigDecimal.valueOf(100)).divide(limit, 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+    }
+
+    /** Accumulates one budget's approved spend by day of month. */
+    private static final class BudgetBurn {
+        private final UUID budgetId;
+        private final UUID categoryId;
+        private final String categoryName;
+        private final String categoryColor;
+        private final BigDecimal monthlyLimit;
+        private final BigDecimal[] daily;
+        private int lastDayWithSpend;
+
+        private BudgetBurn(UUID budgetId, UUID categoryId, String categoryName, String categoryColor,
+                           BigDecimal monthlyLimit, int daysInMonth) {
+            this.budgetId = budgetId;
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+            this.categoryColor = categoryColor;
+            this.monthlyLimit = monthlyLimit;
+            this.daily = new BigDecimal[daysInMonth];
+            Arrays.fill(daily, BigDecimal.ZERO);
+        }
+
+        private void add(LocalDate day, BigDecimal amount) {
+            daily[day.getDayOfMonth() - 1] = daily[day.getDayOfMonth() - 1].add(amount);
+            lastDayWithSpend = Math.max(lastDayWithSpend, day.getDayOfMonth());
+        }
+
+        private BudgetProgressResponse.BudgetItem toItem(LocalDate monthStart, int elapsedDays) {
+            List<BudgetProgressResponse.DailySpend> series = new ArrayList<>();
+            BigDecimal cumulative = BigDecimal.ZERO;
+            BigDecimal throughToday = BigDecimal.ZERO;
+            for (int day = 1; day <= Math.max(elapsedDays, lastDayWithSpend); day++) {
+                cumulative = cumulative.add(daily[day - 1]);
+                if (day == elapsedDays) {
+                    throughToday = cumulative;
+                }
+                series.add(BudgetProgressResponse.DailySpend.builder()
+                        .date(monthStart.withDayOfMonth(day))
+                        .amount(daily[day - 1])
+                        .cumulative(cumulative)
+                        .build());
             }
+            BigDecimal actualSpend = cumulative;
 
-            BigDecimal percentage = budget.getMonthlyLimit().compareTo(BigDecimal.ZERO) > 0
-                    ? actualSpend.multiply(BigDecimal.valueOf(100)).divide(budget.getMonthlyLimit(), 2, RoundingMode.HALF_UP)
-                    : BigDecimal.ZERO;
+            BigDecimal averageDaily = throughToday.divide(BigDecimal.valueOf(elapsedDays), 2, RoundingMode.HALF_UP);
+            // Future-dated approved expenses count as already spent
+            BigDecimal projected = throughToday.multiply(BigDecimal.valueOf(daily.length))
+                    .divide(BigDecimal.valueOf(elapsedDays), 2, RoundingMode.HALF_UP)
+                    .max(actualSpend);
 
+            BigDecimal percentage = percentageOf(actualSpend, monthlyLimit);
             String status = percentage.compareTo(BigDecimal.valueOf(100)) >= 0 ? "EXCEEDED"
                     : percentage.compareTo(BigDecimal.valueOf(80)) >= 0 ? "WARNING" : "OK";
 
-            BudgetProgressResponse.BudgetItem item = BudgetProgressResponse.BudgetItem.builder()
-                    .budgetId(budget.getId())
-                    .categoryName(categoryName)
+            return BudgetProgressResponse.BudgetItem.builder()
+                    .budgetId(budgetId)
+                    .categoryName(categoryId == null ? "Overall" : categoryName)
                     .categoryColor(categoryColor)
-                    .monthlyLimit(budget.getMonthlyLimit())
+                    .monthlyLimit(monthlyLimit)
                     .actualSpend(actualSpend)
                     .percentage(percentage)
                     .status(status)
+                    .averageDailySpend(averageDaily)
+                    .projectedSpend(projected)
+                    .projectedPercentage(percentageOf(projected, monthlyLimit))
+                    .dailySpend(series)
                     .build();
-
-            if (budget.getCategory() == null) {
-                overall = item;
-            } else {
-                byCategory.add(item);
-            }
         }
+    }
 
-        return BudgetProgressResponse.builder()
-                .overall(overall)
-                .byCategory(byCategory)
-                .build();
+    /** Fires alerts for every budget threshold the approval of {@code expense} crossed. */
+    @Transactional
+    public void checkBudgetsAfterApproval(Expense expense) {
+        fireCrossedThresholdAlerts(expense.getOrganization().getId(), List.of(expense.getId()));
     }
 
     /**
-     * Check budgets after expense is approved. Fires alerts once per threshold per month.
+     * Batch counterpart of {@link #checkBudgetsAfterApproval}: one statement covers every
+     * month, budget and threshold touched by the approved expenses.
      */
     @Transactional
-    public void checkBudgetsAfterApproval(Expense expense) {
-        UUID orgId = expense.getOrganization().getId();
-        LocalDate monthStart = expense.getDate().withDayOfMonth(1);
-        LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
-
-        List<Budget> budgetsToCheck = new ArrayList<>();
-
-        // Overall budget
-        budgetRepository.findByOrganizationIdAndCategoryIdIsNullAndIsActiveTrue(orgId)
-                .ifPresent(budgetsToCheck::add);
+    public void checkBudgetsAfterBatchApproval(UUID orgId, Collection<UUID> approvedExpenseIds) {
+        if (!approvedExpenseIds.isEmpty()) {
+            fireCrossedThresholdAlerts(orgId, approvedExpenseIds);
+        }
+    }
 
-        // Category-specific budget
-        if (expense.getCategory() != null) {
-            budgetRepository.findByOrganizationIdAndCategoryIdAndIsActiveTrue(orgId, expense.getCategory().getId())
-                    .ifPresent(budgetsToCheck::add);
+    /**
+     * Inserts the crossed-threshold alerts and notifies for the ones this transaction won. When
+     * one approval crosses several thresholds of a budget, all are recorded but only the highest
+     * is sent.
+     */
+    private void fireCrossedThresholdAlerts(UUID orgId, Collection<UUID> expenseIds) {
+        List<Object[]> inserted = budgetAlertRepository.insertCrossedThresholdAlerts(orgId, expenseIds);
+        if (inserted.isEmpty()) {
+            return;
         }
 
-        for (Budget budget : budgetsToCheck) {
-            BigDecimal actualSpend;
-            if (budget.getCategory() == null) {
-                actualSpend = expenseRepository.sumApprovedAmountByDateRange(orgId, monthStart, monthEnd);
-            } else {
-                actualSpend = expenseRepository.sumApprovedAmountByCategoryAndDateRange(
-                        orgId, budget.getCategory().getId(), monthStart, monthEnd);
-            }
+        Map<String, Object[]> highestByBudgetMonth = new HashMap<>();
+        for (Object[] row : inserted) {
+            highestByBudgetMonth.merge(row[1] + "/" + row[3], row,
+                    (a, b) -> ((Number) a[2]).intValue() >= ((Number) b[2]).intValue() ? a : b);
+        }
+        Map<UUID, Budget> budgets = budgetRepository.findByIdIn(
+                        inserted.stream().map(row -> (UUID) row[1]).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Budget::getId, Function.identity()));
+
+        for (Object[] row : highestByBudgetMonth.values()) {
+            Budget budget = budgets.get((UUID) row[1]);
+            BudgetAlert alert = BudgetAlert.builder()
+                    .id((UUID) row[0])
+                    .organization(budget.getOrganization())
+                    .budget(budget)
+                    .alertType(BudgetAlertType.THRESHOLD)
+                    .threshold(((Number) row[2]).intValue())
+                    .month(toLocalDate(row[3]))
+                    .actualAmount((BigDecimal) row[4])
+                    .budgetAmount(budget.getMonthlyLimit())
+                    .percentage((BigDecimal) row[5])
+                    .build();
+            emailNotificationService.sendBudgetAlertNotification(budget, alert);
+            log.info("Budget alert fired: {}% for budget {} month {}", alert.getThreshold(), budget.getId(), alert.getMonth());
+        }
+    }
 
-            BigDecimal percentage = budget.getMonthlyLimit().compareTo(BigDecimal.ZERO) > 0
-                    ? actualSpend.multiply(BigDecimal.valueOf(100)).divide(budget.getMonthlyLimit(), 2, RoundingMode.HALF_UP)
-                    : BigDecimal.ZERO;
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) value;
+    }
 
-            // Check 100% threshold
-            if (budget.isAlertAt100() && percentage.compareTo(BigDecimal.valueOf(100)) >= 0) {
-                fireAlertOnce(budget, BudgetAlertType.THRESHOLD_100, monthStart, actualSpend, percentage);
-            }
-            // Check 80% threshold
-            else if (budget.isAlertAt80() && percentage.compareTo(BigDecimal.valueOf(80)) >= 0) {
-                fireAlertOnce(budget, BudgetAlertType.THRESHOLD_80, monthStart, actualSpend, percentage);
-            }
+    /**
+     * {@code alertThresholds} wins when given; otherwise the legacy 80/100 flags add or remove
+     * those thresholds from {@code current}. Returned ascending and without duplicates.
+     */
+    private static List<Integer> resolveThresholds(List<Integer> current, List<Integer> alertThresholds,
+                                                   Boolean alertAt80, Boolean alertAt100) {
+        TreeSet<Integer> thresholds = new TreeSet<>(alertThresholds != null ? alertThresholds : current);
+        if (alertThresholds == null) {
+            toggle(thresholds, 80, alertAt80);
+            toggle(thresholds, 100, alertAt100);
         }
+        return new ArrayList<>(thresholds);
     }
 
-    private void fireAlertOnce(Budget budget, BudgetAlertType alertType, LocalDate month,
-                               BigDecimal actualAmount, BigDecimal percentage) {
-        // Unique constraint prevents duplicate alerts
-        if (budgetAlertRepository.findByBudgetIdAndAlertTypeAndMonth(budget.getId(), alertType, month).isPresent()) {
-            return;
+    private static void toggle(Set<Integer> thresholds, int threshold, Boolean enabled) {
+        if (Boolean.TRUE.equals(enabled)) {
+            thresholds.add(threshold);
+        } else if (Boolean.FALSE.equals(enabled)) {
+            thresholds.remove(threshold);
         }
-
-        BudgetAlert alert = BudgetAlert.builder()
-                .organization(budget.getOrganization())
-                .budget(budget)
-                .alertType(alertType)
-                .month(month)
-                .actualAmount(actualAmount)
-                .budgetAmount(budget.getMonthlyLimit())
-                .percentage(percentage)
-                .build();
-        budgetAlertRepository.save(alert);
-
-        emailNotificationService.sendBudgetAlertNotification(budget, alert);
-        log.info("Budget alert fired: {} for budget {} month {}", alertType, budget.getId(), month);
     }
 
     private BudgetResponse toResponse(Budget budget) {
         BudgetResponse.BudgetResponseBuilder builder = BudgetResponse.builder()
                 .id(budget.getId())
                 .monthlyLimit(budget.getMonthlyLimit())
-                .alertAt80(budget.isAlertAt80())
-                .alertAt100(budget.isAlertAt100())
+                .alertThresholds(budget.getAlertThresholds())
+                .alertAt80(budget.getAlertThresholds().contains(80))
+                .alertAt100(budget.getAlertThresholds().contains(100))
                 .isActive(budget.isActive())
                 .createdAt(budget.getCreatedAt());
 
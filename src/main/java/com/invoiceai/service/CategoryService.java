@@ -10,8 +10,14 @@ import com.invoiceai.model.Category;
 import com.invoiceai.repository.CategoryRepository;
 import com.invoiceai.repository.ExpenseRepository;
 import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.cache.BudgetChangedEvent;
+import com.invoiceai.service.cache.CacheInvalidation;
+import com.invoiceai.service.cache.CacheInvalidationBus;
+import com.invoiceai.service.cache.ExpenseChangedEvent;
+import com.invoiceai.service.cache.OrgCacheRegistry;
 import com.invoiceai.model.Organization;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,13 +30,16 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ExpenseRepository expenseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrgCacheRegistry caches;
+    private final CacheInvalidationBus invalidationBus;
 
-    @Transactional(readOnly = true)
     public List<CategoryResponse> getCategories() {
         UUID orgId = TenantContext.getCurrentOrgId();
-        return categoryRepository.findByOrganizationId(orgId).stream()
-                .map(this::toResponse)
-                .toList();
+        return caches.cache(OrgCacheRegistry.CATEGORIES).get(orgId, "all",
+                () -> categoryRepository.findByOrganizationId(orgId).stream()
+                        .map(this::toResponse)
+                        .toList());
     }
 
     @Transactional
@@ -48,7 +57,10 @@ public class CategoryService {
                 .isDefault(false)
                 .build();
 
-        return toResponse(categoryRepository.save(category));
+        CategoryResponse response = toResponse(categoryRepository.save(category));
+        invalidationBus.invalidate(CacheInvalidation.org(orgId, OrgCacheRegistry.CATEGORIES));
+        invalidationBus.invalidate(CacheInvalidation.org(orgId, OrgCacheRegistry.ASSISTANT_CONTEXT));
+        return response;
     }
 
     @Transactional
@@ -72,7 +84,11 @@ public class CategoryService {
             category.setIcon(request.getIcon());
         }
 
-        return toResponse(categoryRepository.save(category));
+        CategoryResponse response = toResponse(categoryRepository.save(category));
+        invalidationBus.invalidate(CacheInvalidation.org(orgId, OrgCacheRegistry.CATEGORIES));
+        // Category names and colours are baked into cached reports
+        eventPublisher.publishEvent(ExpenseChangedEvent.anyDate(orgId));
+        return response;
     }
 
     @Transactional
@@ -94,6 +110,11 @@ public class CategoryService {
                 .ifPresent(e -> { throw new BadRequestException("Category has associated expenses and cannot be deleted"); });
 
         categoryRepository.delete(category);
+        invalidationBus.invalidate(CacheInvalidation.org(orgId, OrgCacheRegistry.CATEGORIES));
+        invalidationBus.invalidate(CacheInvalidation.org(orgId, OrgCacheRegistry.ASSISTANT_CONTEXT));
+        // Policies scoped to the category are deleted with it
+        invalidationBus.invalidate(CacheInvalidation.org(orgId, OrgCacheRegistry.POLICIES));
+        eventPublisher.publishEvent(new BudgetChangedEvent(orgId));
     }
 
     private CategoryResponse toResponse(Category category) {
@@ -1,41 +1,61 @@
 package com.invoiceai.service;
 
+import com.invoiceai.dto.response.DashboardOverviewResponse;
 import com.invoiceai.dto.response.DashboardSummaryResponse;
 import com.invoiceai.dto.response.MonthlyTrendResponse;
 import com.invoiceai.dto.response.SpendByCategoryResponse;
 import com.invoiceai.dto.response.TopVendorsResponse;
-import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.repository.ExpenseDailyRollupRepository;
 import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.cache.OrgCacheRegistry;
+import com.invoiceai.service.cache.OrgScopedCache;
+import com.invoiceai.service.cache.PeriodKey;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Dashboard figures read from the daily rollups and cached per org. The methods are deliberately
+ * not transactional, so callers waiting on a cache load hold no connection (see OrgScopedCache).
+ */
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
-    private final ExpenseRepository expenseRepository;
+    // GROUPING() ids returned by ExpenseDailyRollupRepository.dashboardOverview
+    private static final int OVERVIEW_BY_CATEGORY = 3;
+    private static final int OVERVIEW_BY_VENDOR = 5;
+    private static final int OVERVIEW_BY_MONTH = 6;
+    private static final int OVERVIEW_TOTAL = 7;
+
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final OrgCacheRegistry caches;
 
-    @Transactional(readOnly = true)
     public DashboardSummaryResponse getSummary(LocalDate from, LocalDate to) {
         UUID orgId = TenantContext.getCurrentOrgId();
+        long periodDays = java.time.temporal.ChronoUnit.DAYS.between(from, to);
+        PeriodKey key = new PeriodKey("summary", from, to, 0, from.minusDays(periodDays), to);
+        return cache().get(orgId, key, () -> loadSummary(orgId, from, to));
+    }
 
-        BigDecimal totalSpend = expenseRepository.sumApprovedAmountByDateRange(orgId, from, to);
-        long expenseCount = expenseRepository.countApprovedByDateRange(orgId, from, to);
+    private DashboardSummaryResponse loadSummary(UUID orgId, LocalDate from, LocalDate to) {
+        BigDecimal totalSpend = rollupRepository.sumApprovedAmountByDateRange(orgId, from, to);
+        long expenseCount = rollupRepository.countApprovedByDateRange(orgId, from, to);
 
         BigDecimal averageExpense = expenseCount > 0
                 ? totalSpend.divide(BigDecimal.valueOf(expenseCount), 2, RoundingMode.HALF_UP)
                 : BigDecimal.ZERO;
 
         // Top category
-        List<Object[]> byCategory = expenseRepository.sumByCategoryAndDateRange(orgId, from, to);
+        List<Object[]> byCategory = rollupRepository.sumByCategoryAndDateRange(orgId, from, to);
         DashboardSummaryResponse.TopCategory topCategory = null;
         if (!byCategory.isEmpty()) {
             Object[] top = byCategory.get(0);
@@ -50,42 +70,150 @@ public class DashboardService {
         LocalDate prevFrom = from.minusDays(periodDays);
         LocalDate prevTo = from.minusDays(1);
 
-        BigDecimal prevSpend = expenseRepository.sumApprovedAmountByDateRange(orgId, prevFrom, prevTo);
-        long prevCount = expenseRepository.countApprovedByDateRange(orgId, prevFrom, prevTo);
+        BigDecimal prevSpend = rollupRepository.sumApprovedAmountByDateRange(orgId, prevFrom, prevTo);
+        long prevCount = rollupRepository.countApprovedByDateRange(orgId, prevFrom, prevTo);
 
-        BigDecimal spendChange = BigDecimal.ZERO;
-        if (prevSpend.compareTo(BigDecimal.ZERO) > 0) {
-            spendChange = totalSpend.subtract(prevSpend)
-                    .divide(prevSpend, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    .setScale(1, RoundingMode.HALF_UP);
-        }
+        return DashboardSummaryResponse.builder()
+                .totalSpend(totalSpend)
+                .expenseCount(expenseCount)
+                .averageExpense(averageExpense)
+                .topCategory(topCategory)
+                .vsLastPeriod(DashboardSummaryResponse.PeriodComparison.builder()
+                        .totalSpendChange(percentChange(totalSpend, prevSpend))
+                        .expenseCountChange(percentChange(BigDecimal.valueOf(expenseCount), BigDecimal.valueOf(prevCount)))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Summary, category split, 12-month trend and top vendors for the period in a single
+     * rollup scan, for clients that render the whole dashboard at once.
+     */
+    public DashboardOverviewResponse getOverview(LocalDate from, LocalDate to, int vendorLimit) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+
+        long periodDays = java.time.temporal.ChronoUnit.DAYS.between(from, to);
+        LocalDate prevFrom = from.minusDays(periodDays);
+        LocalDate prevTo = from.minusDays(1);
+        LocalDate trendFrom = LocalDate.now().minusMonths(12).withDayOfMonth(1);
+
+        // The trend runs to today, so any date from the earliest input onwards can change it
+        PeriodKey key = new PeriodKey("overview:" + trendFrom, from, to, vendorLimit,
+                prevFrom.isBefore(trendFrom) ? prevFrom : trendFrom, null);
+        return cache().get(orgId, key,
+                () -> loadOverview(orgId, from, to, vendorLimit, prevFrom, prevTo, trendFrom));
+    }
+
+    private DashboardOverviewResponse loadOverview(UUID orgId, LocalDate from, LocalDate to, int vendorLimit,
+                                                   LocalDate prevFrom, LocalDate prevTo, LocalDate trendFrom) {
+
+        BigDecimal totalSpend = BigDecimal.ZERO;
+        long expenseCount = 0;
+        BigDecimal prevSpend = BigDecimal.ZERO;
+        long prevCount = 0;
+        List<SpendByCategoryResponse.CategorySpend> categories = new ArrayList<>();
+        List<TopVendorsResponse.VendorSpend> vendors = new ArrayList<>();
+        List<MonthlyTrendResponse.MonthData> months = new ArrayList<>();
+
+        for (Object[] r : rollupRepository.dashboardOverview(orgId, from, to, prevFrom, prevTo, trendFrom)) {
+            int groupingId = ((Number) r[0]).intValue();
+            BigDecimal currentAmount = (BigDecimal) r[6];
+            long currentCount = r[7] != null ? ((Number) r[7]).longValue() : 0;
 
-        BigDecimal countChange = BigDecimal.ZERO;
-        if (prevCount > 0) {
-            countChange = BigDecimal.valueOf(expenseCount - prevCount)
-                    .divide(BigDecimal.valueOf(prevCount), 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    .setScale(1, RoundingMode.HALF_UP);
+            switch (groupingId) {
+                case OVERVIEW_TOTAL -> {
+                    totalSpend = currentAmount != null ? currentAmount : BigDecimal.ZERO;
+                    expenseCount = currentCount;
+                    prevSpend = r[8] != null ? (BigDecimal) r[8] : BigDecimal.ZERO;
+                    prevCount = r[9] != null ? ((Number) r[9]).longValue() : 0;
+                }
+                case OVERVIEW_BY_CATEGORY -> {
+                    // Uncategorized spend is left out, as in /spend-by-category
+                    if (r[1] != null && currentAmount != null) {
+                        categories.add(SpendByCategoryResponse.CategorySpend.builder()
+                                .name((String) r[2])
+                                .color((String) r[3])
+                                .amount(currentAmount)
+                                .build());
+                    }
+                }
+                case OVERVIEW_BY_VENDOR -> {
+                    if (currentAmount != null) {
+                        vendors.add(TopVendorsResponse.VendorSpend.builder()
+                                .name((String) r[4])
+                                .amount(currentAmount)
+                                .count(currentCount)
+                                .build());
+                    }
+                }
+                case OVERVIEW_BY_MONTH -> {
+                    if (r[10] != null) {
+                        months.add(MonthlyTrendResponse.MonthData.builder()
+                                .month((String) r[5])
+                                .amount((BigDecimal) r[10])
+                                .count(((Number) r[11]).longValue())
+                                .build());
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected grouping id " + groupingId);
+            }
         }
 
-        return DashboardSummaryResponse.builder()
+        categories.sort(Comparator.comparing(SpendByCategoryResponse.CategorySpend::getAmount).reversed());
+        vendors.sort(Comparator.comparing(TopVendorsResponse.VendorSpend::getAmount).reversed());
+        months.sort(Comparator.comparing(MonthlyTrendResponse.MonthData::getMonth));
+
+        BigDecimal categoryTotal = categories.stream()
+                .map(SpendByCategoryResponse.CategorySpend::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<SpendByCategoryResponse.CategorySpend> categoriesWithShare = categories.stream()
+                .map(c -> SpendByCategoryResponse.CategorySpend.builder()
+                        .name(c.getName())
+                        .color(c.getColor())
+                        .amount(c.getAmount())
+                        .percentage(percentage(c.getAmount(), categoryTotal))
+                        .build())
+                .toList();
+
+        DashboardSummaryResponse.TopCategory topCategory = categories.isEmpty() ? null
+                : DashboardSummaryResponse.TopCategory.builder()
+                        .name(categories.getFirst().getName())
+                        .amount(categories.getFirst().getAmount())
+                        .build();
+
+        DashboardSummaryResponse summary = DashboardSummaryResponse.builder()
                 .totalSpend(totalSpend)
                 .expenseCount(expenseCount)
-                .averageExpense(averageExpense)
+                .averageExpense(expenseCount > 0
+                        ? totalSpend.divide(BigDecimal.valueOf(expenseCount), 2, RoundingMode.HALF_UP)
+                        : BigDecimal.ZERO)
                 .topCategory(topCategory)
                 .vsLastPeriod(DashboardSummaryResponse.PeriodComparison.builder()
-                        .totalSpendChange(spendChange)
-                        .expenseCountChange(countChange)
+                        .totalSpendChange(percentChange(totalSpend, prevSpend))
+                        .expenseCountChange(percentChange(BigDecimal.valueOf(expenseCount), BigDecimal.valueOf(prevCount)))
+                        .build())
+                .build();
+
+        return DashboardOverviewResponse.builder()
+                .dateFrom(from)
+                .dateTo(to)
+                .summary(summary)
+                .spendByCategory(SpendByCategoryResponse.builder().categories(categoriesWithShare).build())
+                .monthlyTrend(MonthlyTrendResponse.builder().months(months).build())
+                .topVendors(TopVendorsResponse.builder()
+                        .vendors(vendors.size() > vendorLimit ? vendors.subList(0, vendorLimit) : vendors)
                         .build())
                 .build();
     }
 
-    @Transactional(readOnly = true)
     public SpendByCategoryResponse getSpendByCategory(LocalDate from, LocalDate to) {
         UUID orgId = TenantContext.getCurrentOrgId();
+        return cache().get(orgId, PeriodKey.of("spend-by-category", from, to),
+                () -> loadSpendByCategory(orgId, from, to));
+    }
 
-        List<Object[]> results = expenseRepository.sumByCategoryAndDateRange(orgId, from, to);
+    private SpendByCategoryResponse loadSpendByCategory(UUID orgId, LocalDate from, LocalDate to) {
+        List<Object[]> results = rollupRepository.sumByCategoryAndDateRange(orgId, from, to);
 
         BigDecimal total = results.stream()
                 .map(r -> (BigDecimal) r[2])
@@ -94,15 +222,11 @@ public class DashboardService {
         List<SpendByCategoryResponse.CategorySpend> categories = results.stream()
                 .map(r -> {
                     BigDecimal amount = (BigDecimal) r[2];
-                    BigDecimal percentage = total.compareTo(BigDecimal.ZERO) > 0
-                            ? amount.divide(total, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).setScale(1, RoundingMode.HALF_UP)
-                            : BigDecimal.ZERO;
-
                     return SpendByCategoryResponse.CategorySpend.builder()
                             .name((String) r[0])
                             .color((String) r[1])
                             .amount(amount)
-                            .percentage(percentage)
+                            .percentage(percentage(amount, total))
                             .build();
                 })
                 .toList();
@@ -110,12 +234,15 @@ public class DashboardService {
         return SpendByCategoryResponse.builder().categories(categories).build();
     }
 
-    @Transactional(readOnly = true)
     public MonthlyTrendResponse getMonthlyTrend() {
         UUID orgId = TenantContext.getCurrentOrgId();
         LocalDate from = LocalDate.now().minusMonths(12).withDayOfMonth(1);
+        return cache().get(orgId, new PeriodKey("monthly-trend", from, null, 0, from, null),
+                () -> loadMonthlyTrend(orgId, from));
+    }
 
-        List<Object[]> results = expenseRepository.monthlyTrend(orgId, from);
+    private MonthlyTrendResponse loadMonthlyTrend(UUID orgId, LocalDate from) {
+        List<Object[]> results = rollupRepository.monthlyTrend(orgId, from);
 
         List<MonthlyTrendResponse.MonthData> months = results.stream()
                 .map(r -> MonthlyTrendResponse.MonthData.builder()
@@ -128,11 +255,14 @@ public class DashboardService {
         return MonthlyTrendResponse.builder().months(months).build();
     }
 
-    @Transactional(readOnly = true)
     public TopVendorsResponse getTopVendors(int limit, LocalDate from, LocalDate to) {
         UUID orgId = TenantContext.getCurrentOrgId();
+        return cache().get(orgId, new PeriodKey("top-vendors", from, to, limit, from, to),
+                () -> loadTopVendors(orgId, limit, from, to));
+    }
 
-        List<Object[]> results = expenseRepository.topVendors(orgId, from, to, PageRequest.of(0, limit));
+    private TopVendorsResponse loadTopVendors(UUID orgId, int limit, LocalDate from, LocalDate to) {
+        List<Object[]> results = rollupRepository.topVendors(orgId, from, to, PageRequest.of(0, limit));
 
         List<TopVendorsResponse.VendorSpend> vendors = results.stream()
                 .map(r -> TopVendorsResponse.VendorSpend.builder()
@@ -144,4 +274,24 @@ public class DashboardService {
 
         return TopVendorsResponse.builder().vendors(vendors).build();
     }
+
+    private OrgScopedCache cache() {
+        return caches.cache(OrgCacheRegistry.DASHBOARD);
+    }
+
+    private BigDecimal percentage(BigDecimal amount, BigDecimal total) {
+        return total.compareTo(BigDecimal.ZERO) > 0
+                ? amount.divide(total, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).setScale(1, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+    }
+
+    private BigDecimal percentChange(BigDecimal current, BigDecimal previous) {
+        if (previous.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return current.subtract(previous)
+                .divide(previous, 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .setScale(1, RoundingMode.HALF_UP);
+    }
 }
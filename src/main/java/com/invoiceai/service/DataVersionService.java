@@ -0,0 +1,38 @@
+package com.invoiceai.service;
+
+import com.invoiceai.repository.OrganizationRepository;
+import com.invoiceai.security.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class DataVersionService {
+
+    private final OrganizationRepository organizationRepository;
+
+    /**
+     * Answers a conditional GET from the org's data version, setting a weak ETag on the response.
+     * Returns true when the client's copy is current and the handler should return without a body.
+     * {@code dateSensitive} views (e.g. "current month") also change at midnight, so their ETag
+     * includes today's date.
+     */
+    public boolean isNotModified(WebRequest request, boolean dateSensitive) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        return organizationRepository.findDataVersion(orgId)
+                .map(version -> {
+                    String tag = orgId + "-" + version + (dateSensitive ? "-" + LocalDate.now() : "");
+                    return request.checkNotModified("W/\"" + tag + "\"");
+                })
+                .orElse(false);
+    }
+
+    /** The current org's data version, or 0 if it has none yet. */
+    public long current() {
+        return organizationRepository.findDataVersion(TenantContext.getCurrentOrgId()).orElse(0L);
+    }
+}
@@ -2,44 +2,133 @@ package com.invoiceai.service;
 
 import com.invoiceai.model.Expense;
 import com.invoiceai.repository.ExpenseRepository;
-import lombok.RequiredArgsConstructor;
+import com.invoiceai.service.cache.CacheInvalidationBus;
+import com.invoiceai.service.duplicate.DuplicateCandidateIndex;
+import com.invoiceai.service.duplicate.DuplicateMatch;
+import com.invoiceai.service.duplicate.IndexedExpense;
+import com.invoiceai.service.duplicate.VendorNames;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DuplicateDetectionService {
 
+    private static final BigDecimal MIN_AMOUNT_TOLERANCE = new BigDecimal("0.01");
+    private static final double VENDOR_WEIGHT = 0.6;
+    private static final double AMOUNT_WEIGHT = 0.25;
+    private static final double DATE_WEIGHT = 0.15;
+
     private final ExpenseRepository expenseRepository;
+    private final DuplicateCandidateIndex candidateIndex;
+    private final CacheInvalidationBus invalidationBus;
+    private final BigDecimal amountTolerancePercent;
+    private final int dateToleranceDays;
+    private final double minScore;
+
+    public DuplicateDetectionService(
+            ExpenseRepository expenseRepository,
+            DuplicateCandidateIndex candidateIndex,
+            CacheInvalidationBus invalidationBus,
+            @Value("${app.duplicates.amount-tolerance-percent:1.0}") BigDecimal amountTolerancePercent,
+            @Value("${app.duplicates.date-tolerance-days:2}") int dateToleranceDays,
+            @Value("${app.duplicates.min-score:0.75}") double minScore) {
+        this.expenseRepository = expenseRepository;
+        this.candidateIndex = candidateIndex;
+        this.invalidationBus = invalidationBus;
+        this.amountTolerancePercent = amountTolerancePercent;
+        this.dateToleranceDays = dateToleranceDays;
+        this.minScore = minScore;
+    }
 
     /**
-     * Checks if a new expense is a duplicate (same vendor + amount + date in same org).
-     * Returns the first matching existing expense, or null if no duplicate found.
+     * Checks if a new expense is a likely duplicate (similar vendor, same currency, similar amount
+     * and date in same org).
+     * Returns the best matching existing expense, or null if no duplicate found.
      * Flags only — does not block creation.
      */
-    public Expense checkForDuplicate(UUID orgId, String vendorName, BigDecimal amount, LocalDate date) {
-        List<Expense> duplicates = expenseRepository.findDuplicates(orgId, vendorName, amount, date);
-        if (!duplicates.isEmpty()) {
-            log.info("Duplicate detected for vendor={} amount={} date={} in org={}", vendorName, amount, date, orgId);
-            return duplicates.getFirst();
-        }
-        return null;
+    public Expense checkForDuplicate(UUID orgId, String vendorName, BigDecimal amount, String currency, LocalDate date) {
+        return checkForDuplicateExcluding(orgId, vendorName, amount, currency, date, null);
     }
 
     /**
      * Same check but excludes a specific expense (for updates).
      */
-    public Expense checkForDuplicateExcluding(UUID orgId, String vendorName, BigDecimal amount, LocalDate date, UUID excludeId) {
-        List<Expense> duplicates = expenseRepository.findDuplicatesExcluding(orgId, vendorName, amount, date, excludeId);
-        if (!duplicates.isEmpty()) {
-            return duplicates.getFirst();
+    public Expense checkForDuplicateExcluding(UUID orgId, String vendorName, BigDecimal amount, String currency,
+                                              LocalDate date, UUID excludeId) {
+        for (DuplicateMatch match : findCandidates(orgId, vendorName, amount, currency, date, excludeId, 3)) {
+            // The index can briefly hold expenses that were deleted or never committed
+            Optional<Expense> existing = expenseRepository.findByIdAndOrganizationId(match.expenseId(), orgId);
+            if (existing.isPresent()) {
+                log.info("Duplicate detected for vendor={} amount={} date={} in org={} (score {})",
+                        vendorName, amount, date, orgId, match.score());
+                return existing.get();
+            }
         }
         return null;
     }
+
+    /**
+     * Ranked duplicate candidates in the same currency, best first, scoring at least
+     * {@code app.duplicates.min-score}.
+     */
+    public List<DuplicateMatch> findCandidates(UUID orgId, String vendorName, BigDecimal amount, String currency,
+                                               LocalDate date, UUID excludeId, int limit) {
+        BigDecimal amountTolerance = amount.abs()
+                .multiply(amountTolerancePercent)
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP)
+                .max(MIN_AMOUNT_TOLERANCE);
+        String normalizedVendor = VendorNames.normalize(vendorName);
+
+        List<IndexedExpense> nearby = candidateIndex.find(orgId, currency,
+                date.minusDays(dateToleranceDays), date.plusDays(dateToleranceDays),
+                amount.subtract(amountTolerance), amount.add(amountTolerance));
+
+        List<DuplicateMatch> matches = new ArrayList<>();
+        for (IndexedExpense candidate : nearby) {
+            if (candidate.id().equals(excludeId)) {
+                continue;
+            }
+            double vendorScore = VendorNames.similarity(normalizedVendor, candidate.normalizedVendor());
+            double amountScore = 1.0 - 0.5 * candidate.amount().subtract(amount).abs()
+                    .divide(amountTolerance, 4, RoundingMode.HALF_UP).doubleValue();
+            double dateScore = dateToleranceDays == 0 ? 1.0
+                    : 1.0 - 0.5 * Math.abs(ChronoUnit.DAYS.between(date, candidate.date())) / dateToleranceDays;
+
+            double score = VENDOR_WEIGHT * vendorScore + AMOUNT_WEIGHT * amountScore + DATE_WEIGHT * dateScore;
+            if (score >= minScore) {
+                matches.add(new DuplicateMatch(candidate.id(), Math.round(score * 1000) / 1000.0));
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(DuplicateMatch::score).reversed());
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /**
+     * Keeps the candidate index in step with a saved expense.
+     */
+    public void recordExpense(Expense expense) {
+        UUID orgId = expense.getOrganization().getId();
+        candidateIndex.add(orgId, expense.getId(), expense.getVendorName(), expense.getAmount(), expense.getCurrency(),
+                expense.getDate());
+        invalidationBus.invalidateReplicas(DuplicateCandidateIndex.added(orgId, expense.getId(), expense.getVendorName(),
+                expense.getAmount(), expense.getCurrency(), expense.getDate()));
+    }
+
+    public void forgetExpense(UUID orgId, UUID expenseId) {
+        candidateIndex.remove(orgId, expenseId);
+        invalidationBus.invalidateReplicas(DuplicateCandidateIndex.removed(orgId, expenseId));
+    }
 }
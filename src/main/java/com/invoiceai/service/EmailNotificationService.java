@@ -1,103 +1,140 @@
 package com.invoiceai.service;
 
 import com.invoiceai.model.*;
-import com.invoiceai.model.enums.MemberRole;
-import com.invoiceai.repository.OrganizationMemberRepository;
-import jakarta.mail.internet.MimeMessage;
+import com.invoiceai.model.enums.NotificationType;
+import com.invoiceai.repository.EmailOutboxRepository;
+import com.invoiceai.repository.NotificationDigestItemRepository;
+import com.invoiceai.service.notification.NotificationRecipient;
+import com.invoiceai.service.notification.NotificationRecipientResolver;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-
+import java.util.stream.Collectors;
+
+/**
+ * Builds notification emails and queues them in {@code email_outbox}, one row per recipient, in
+ * the caller's transaction: mail goes out only if the change that triggered it commits, and
+ * survives a restart until {@link EmailOutboxDispatcher} delivers it.
+ *
+ * <p>Policy violations and budget alerts go to the org admins who have not opted out of them;
+ * admins on a digest get a line held for their next digest instead.
+ */
 @Service
 @RequiredArgsConstructor
-@Slf4j
 public class EmailNotificationService {
 
-    private final JavaMailSender mailSender;
-    private final OrganizationMemberRepository memberRepository;
-
-    @Value("${app.email.from}")
-    private String fromAddress;
+    private final EmailOutboxRepository outboxRepository;
+    private final NotificationDigestItemRepository digestItemRepository;
+    private final NotificationRecipientResolver recipientResolver;
 
     @Value("${app.email.base-url}")
     private String baseUrl;
 
-    @Async
+    @Transactional
     public void sendPolicyViolationNotification(Expense expense, List<PolicyViolation> violations) {
-        List<String> emails = getOrgAdminEmails(expense.getOrganization().getId());
+        UUID orgId = expense.getOrganization().getId();
+        List<NotificationRecipient> recipients = recipientResolver.recipientsFor(orgId, NotificationType.POLICY_VIOLATION);
+        if (recipients.isEmpty()) {
+            return;
+        }
         String subject = "Policy Violation: " + expense.getVendorName() + " - $" + expense.getAmount();
-        String html = buildPolicyViolationHtml(expense, violations);
+        String detail = violations.stream().map(PolicyViolation::getViolationMessage).collect(Collectors.joining("; "));
+        String link = baseUrl + "/expenses/" + expense.getId();
+        String html = recipients.stream().anyMatch(NotificationRecipient::immediate)
+                ? buildPolicyViolationHtml(expense, violations) : null;
 
-        for (String email : emails) {
-            sendHtmlEmail(email, subject, html);
-        }
+        notify(orgId, recipients, NotificationType.POLICY_VIOLATION, subject, html, detail, link);
     }
 
-    @Async
+    @Transactional
     public void sendBudgetAlertNotification(Budget budget, BudgetAlert alert) {
-        List<String> emails = getOrgAdminEmails(budget.getOrganization().getId());
+        UUID orgId = budget.getOrganization().getId();
+        List<NotificationRecipient> recipients = recipientResolver.recipientsFor(orgId, NotificationType.BUDGET_ALERT);
+        if (recipients.isEmpty()) {
+            return;
+        }
         String categoryName = budget.getCategory() != null ? budget.getCategory().getName() : "Overall";
         String subject = "Budget Alert: " + categoryName + " at " + alert.getPercentage().intValue() + "%";
-        String html = buildBudgetAlertHtml(budget, alert, categoryName);
+        String detail = "$" + alert.getActualAmount() + " of $" + budget.getMonthlyLimit() + "/month";
+        String link = baseUrl + "/settings/budgets";
+        String html = recipients.stream().anyMatch(NotificationRecipient::immediate)
+                ? buildBudgetAlertHtml(budget, alert, categoryName) : null;
 
-        for (String email : emails) {
-            sendHtmlEmail(email, subject, html);
-        }
+        notify(orgId, recipients, NotificationType.BUDGET_ALERT, subject, html, detail, link);
     }
 
-    @Async
-    public void sendExpenseExportEmail(User user, String subject, String htmlBody, byte[] csvAttachment) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setFrom(fromAddress);
-            helper.setTo(user.getEmail());
-            helper.setSubject(subject);
-            helper.setText(htmlBody, true);
-            helper.addAttachment("expenses.csv", new ByteArrayResource(csvAttachment), "text/csv");
-            mailSender.send(message);
-            log.info("Export email sent to {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send export email to {}", user.getEmail(), e);
+    /** Queues {@code html} for immediate recipients and holds a digest line for the rest. */
+    private void notify(UUID orgId, List<NotificationRecipient> recipients, NotificationType type,
+                        String subject, String html, String detail, String link) {
+        List<NotificationDigestItem> held = new ArrayList<>();
+        for (NotificationRecipient recipient : recipients) {
+            if (recipient.immediate()) {
+                queueHtmlEmail(orgId, recipient.email(), subject, html);
+            } else {
+                held.add(NotificationDigestItem.builder()
+                        .organizationId(orgId)
+                        .userId(recipient.userId())
+                        .type(type)
+                        .title(subject)
+                        .detail(detail)
+                        .link(link)
+                        .build());
+            }
+        }
+        if (!held.isEmpty()) {
+            digestItemRepository.saveAll(held);
         }
     }
 
-    private void sendHtmlEmail(String to, String subject, String html) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
-            helper.setFrom(fromAddress);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(html, true);
-            mailSender.send(message);
-            log.info("Email sent to {} subject: {}", to, subject);
-        } catch (Exception e) {
-            log.error("Failed to send email to {} subject: {}", to, subject, e);
-        }
+    /** One email listing {@code items}, grouped by type. */
+    @Transactional
+    public void sendDigestEmail(UUID orgId, String email, List<NotificationDigestItem> items) {
+        String subject = "InvoiceAI digest: " + items.size() + (items.size() == 1 ? " notification" : " notifications");
+        queueHtmlEmail(orgId, email, subject, buildDigestHtml(items));
+    }
+
+    @Transactional
+    public void sendExpenseExportEmail(UUID orgId, User user, String subject, String htmlBody, byte[] csvAttachment) {
+        outboxRepository.save(EmailOutboxMessage.builder()
+                .organizationId(orgId)
+                .recipient(user.getEmail())
+                .subject(subject)
+                .htmlBody(htmlBody)
+                .attachmentName("expenses.csv")
+                .attachmentType("text/csv")
+                .attachment(csvAttachment)
+                .build());
     }
 
-    @Async
+    private void queueHtmlEmail(UUID orgId, String to, String subject, String html) {
+        outboxRepository.save(EmailOutboxMessage.builder()
+                .organizationId(orgId)
+                .recipient(to)
+                .subject(subject)
+                .htmlBody(html)
+                .build());
+    }
+
+    @Transactional
     public void sendVerificationEmail(String toEmail, String fullName, String rawToken) {
         String verifyUrl = baseUrl + "/verify-email?token=" + rawToken;
         String html = buildVerificationEmailHtml(fullName, verifyUrl);
-        sendHtmlEmail(toEmail, "Verify your email — InvoiceAI", html);
+        queueHtmlEmail(null, toEmail, "Verify your email — InvoiceAI", html);
     }
 
-    @Async
+    @Transactional
     public void sendPasswordResetEmail(String toEmail, String fullName, String rawToken) {
         String resetUrl = baseUrl + "/reset-password?token=" + rawToken;
         String html = buildPasswordResetEmailHtml(fullName, resetUrl);
-        sendHtmlEmail(toEmail, "Reset your password — InvoiceAI", html);
+        queueHtmlEmail(null, toEmail, "Reset your password — InvoiceAI", html);
     }
 
     private String buildVerificationEmailHtml(String fullName, String verifyUrl) {
@@ -132,13 +169,6 @@ public class EmailNotificationService {
         return sb.toString();
     }
 
-    private List<String> getOrgAdminEmails(UUID orgId) {
-        return memberRepository.findByOrganizationIdAndRoleIn(orgId, List.of(MemberRole.OWNER, MemberRole.ADMIN))
-                .stream()
-                .map(m -> m.getUser().getEmail())
-                .toList();
-    }
-
     private String buildPolicyViolationHtml(Expense expense, List<PolicyViolation> violations) {
         StringBuilder sb = new StringBuilder();
         sb.append("<html><body style='font-family: Arial, sans-serif; color: #333;'>");
@@ -184,4 +214,36 @@ public class EmailNotificationService {
         sb.append("</body></html>");
         return sb.toString();
     }
+
+    private String buildDigestHtml(List<NotificationDigestItem> items) {
+        Map<NotificationType, List<NotificationDigestItem>> byType = new LinkedHashMap<>();
+        for (NotificationDigestItem item : items) {
+            byType.computeIfAbsent(item.getType(), t -> new ArrayList<>()).add(item);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<html><body style='font-family: Arial, sans-serif; color: #333;'>");
+        sb.append("<h2 style='color: #3B82F6;'>Your InvoiceAI Digest</h2>");
+        for (Map.Entry<NotificationType, List<NotificationDigestItem>> entry : byType.entrySet()) {
+            String heading = entry.getKey() == NotificationType.POLICY_VIOLATION ? "Policy Violations" : "Budget Alerts";
+            sb.append("<h3>").append(heading).append(" (").append(entry.getValue().size()).append(")</h3><ul>");
+            for (NotificationDigestItem item : entry.getValue()) {
+                sb.append("<li style='margin-bottom: 8px;'>");
+                if (item.getLink() != null) {
+                    sb.append("<a href='").append(item.getLink()).append("' style='color: #3B82F6;'>").append(item.getTitle()).append("</a>");
+                } else {
+                    sb.append(item.getTitle());
+                }
+                if (item.getDetail() != null) {
+                    sb.append("<br><span style='color: #6B7280; font-size: 14px;'>").append(item.getDetail()).append("</span>");
+                }
+                sb.append("</li>");
+            }
+            sb.append("</ul>");
+        }
+        sb.append("<hr style='border: none; border-top: 1px solid #E5E7EB; margin: 20px 0;'>");
+        sb.append("<p style='color: #9CA3AF; font-size: 12px;'>InvoiceAI - Automated Notification</p>");
+        sb.append("</body></html>");
+        return sb.toString();
+    }
 }
@@ -0,0 +1,218 @@
+package com.invoiceai.service;
+
+import com.invoiceai.model.EmailOutboxMessage;
+import com.invoiceai.model.enums.EmailOutboxStatus;
+import com.invoiceai.repository.EmailOutboxRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Delivers {@code email_outbox} rows. Due rows are claimed in batches (SKIP LOCKED, so several
+ * nodes can run this side by side) and sent over one authenticated SMTP connection, which is
+ * kept open across batches until it has been idle for a while. Sends are paced to
+ * {@code max-per-minute} per node, and a batch is capped at what that pace can send within half
+ * the lease. Each message is marked sent as soon as the server accepts it, so a crash mid-batch
+ * re-sends at most the message in flight.
+ *
+ * <p>A rejected recipient fails the message for good, and any other error the server reports
+ * for a message retries it with exponential backoff. A connection-level error (the server is
+ * unreachable, the login fails, the connection drops) is not the message's fault: it drops the
+ * connection, ends the run and puts the unsent rest of the batch back after
+ * {@code retry-base-seconds} without counting an attempt, so an outage never fails mail.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final long MAX_BACKOFF_SECONDS = Duration.ofHours(1).toSeconds();
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final long VERIFY_CONNECTION_AFTER_NANOS = Duration.ofSeconds(10).toNanos();
+
+    private final JavaMailSenderImpl mailSender;
+    private final EmailOutboxRepository outboxRepository;
+
+    @Value("${app.email.from}")
+    private String fromAddress;
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.lease-seconds:300}")
+    private int leaseSeconds;
+
+    @Value("${app.email.outbox.max-per-minute:60}")
+    private int maxPerMinute;
+
+    @Value("${app.email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${app.email.outbox.connection-idle-seconds:60}")
+    private long connectionIdleSeconds;
+
+    private Transport transport;
+    private long lastSendNanos;
+
+    /** Sends due messages until none are left or the connection fails. Returns the number sent. */
+    public synchronized int dispatchDue() {
+        int sent = 0;
+        try {
+            int claimSize = claimSize();
+            while (true) {
+                List<EmailOutboxMessage> batch = new ArrayList<>(outboxRepository.claimDue(claimSize, leaseSeconds));
+                batch.sort(Comparator.comparing(EmailOutboxMessage::getId));
+                BatchResult result = sendBatch(batch);
+                sent += result.sent();
+                if (!result.healthy() || batch.size() < claimSize) {
+                    return sent;
+                }
+            }
+        } finally {
+            if (System.nanoTime() - lastSendNanos > Duration.ofSeconds(connectionIdleSeconds).toNanos()) {
+                closeTransport();
+            }
+        }
+    }
+
+    /** Messages the pacing lets us send in half a lease, leaving the rest for slow SMTP round trips. */
+    private int claimSize() {
+        long fitsInLease = (long) leaseSeconds * Math.max(maxPerMinute, 1) / 120;
+        return (int) Math.max(1, Math.min(batchSize, fitsInLease));
+    }
+
+    private record BatchResult(int sent, boolean healthy) {}
+
+    private BatchResult sendBatch(List<EmailOutboxMessage> batch) {
+        int sent = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutboxMessage message = batch.get(i);
+            try {
+                pace();
+                MimeMessage mime;
+                try {
+                    mime = toMimeMessage(message);
+                } catch (MessagingException e) {
+                    // A message that cannot be built never will be; a bad address fails it at once
+                    recordFailure(message, e, e instanceof AddressException);
+                    continue;
+                }
+                connectedTransport().sendMessage(mime, mime.getAllRecipients());
+                outboxRepository.markSent(List.of(message.getId()), Instant.now());
+                sent++;
+            } catch (SendFailedException e) {
+                // Rejected recipients are permanent; anything else (e.g. 4xx throttling) is retried
+                boolean rejected = e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0;
+                recordFailure(message, e, rejected);
+            } catch (MessagingException e) {
+                // The connection, not the message: hand the rest of the batch back without
+                // spending an attempt, so an SMTP outage cannot fail good mail
+                releaseUnsent(batch.subList(i, batch.size()), e);
+                closeTransport();
+                return new BatchResult(sent, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new BatchResult(sent, false);
+            } finally {
+                lastSendNanos = System.nanoTime();
+            }
+        }
+        return new BatchResult(sent, true);
+    }
+
+    private void releaseUnsent(List<EmailOutboxMessage> unsent, MessagingException e) {
+        String error = truncate(e.getMessage());
+        outboxRepository.releaseClaim(unsent.stream().map(EmailOutboxMessage::getId).toList(),
+                Instant.now().plusSeconds(retryBaseSeconds), error);
+        log.warn("SMTP connection failed, {} email(s) retry in {}s: {}", unsent.size(), retryBaseSeconds, error);
+    }
+
+    private void recordFailure(EmailOutboxMessage message, Exception e, boolean permanent) {
+        int attempts = message.getAttempts() + 1;
+        boolean giveUp = permanent || attempts >= maxAttempts;
+        long backoff = Math.min(retryBaseSeconds << Math.min(attempts - 1, 20), MAX_BACKOFF_SECONDS);
+        String error = truncate(e.getMessage());
+
+        outboxRepository.markAttemptFailed(message.getId(),
+                giveUp ? EmailOutboxStatus.FAILED : EmailOutboxStatus.PENDING,
+                Instant.now().plusSeconds(backoff), error);
+        if (giveUp) {
+            log.error("Giving up on email {} to {} after {} attempts: {}", message.getId(), message.getRecipient(), attempts, error);
+        } else {
+            log.warn("Email {} to {} failed (attempt {}), retrying in {}s: {}", message.getId(), message.getRecipient(), attempts, backoff, error);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    /** Spaces sends at least 60s / max-per-minute apart. */
+    private void pace() throws InterruptedException {
+        long wait = Duration.ofMinutes(1).toNanos() / Math.max(maxPerMinute, 1) - (System.nanoTime() - lastSendNanos);
+        if (wait > 0) {
+            Thread.sleep(Duration.ofNanos(wait));
+        }
+    }
+
+    private Transport connectedTransport() throws MessagingException {
+        // isConnected() costs a NOOP round trip, so only ask after the connection has sat idle
+        if (transport == null
+                || (System.nanoTime() - lastSendNanos > VERIFY_CONNECTION_AFTER_NANOS && !transport.isConnected())) {
+            closeTransport();
+            Transport connected = mailSender.getSession().getTransport(mailSender.getProtocol());
+            connected.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            transport = connected;
+        }
+        return transport;
+    }
+
+    private void closeTransport() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close SMTP connection", e);
+            }
+            transport = null;
+        }
+    }
+
+    private MimeMessage toMimeMessage(EmailOutboxMessage message) throws MessagingException {
+        MimeMessage mime = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, message.getAttachment() != null, "UTF-8");
+        helper.setFrom(fromAddress);
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getHtmlBody(), true);
+        if (message.getAttachment() != null) {
+            helper.addAttachment(message.getAttachmentName(), new ByteArrayResource(message.getAttachment()),
+                    message.getAttachmentType());
+        }
+        mime.saveChanges();
+        return mime;
+    }
+
+    /** Drops delivered messages older than {@code retention}. */
+    public int purgeSent(Duration retention) {
+        return outboxRepository.deleteSentBefore(Instant.now().minus(retention));
+    }
+}
@@ -0,0 +1,35 @@
+package com.invoiceai.service;
+
+import com.invoiceai.repository.ExpenseDailyRollupRepository;
+import com.invoiceai.service.cache.ExpenseChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExpenseRollupService {
+
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Recomputes an organization's daily rollups from its expenses. Triggers keep the table
+     * current on every write; this repairs drift (e.g. after manual SQL fixes). Expense writes to
+     * this org (and only this org) wait for the per-org transaction.
+     */
+    @Transactional
+    public int rebuildOrganization(UUID orgId) {
+        rollupRepository.lockOrganizationForRebuild(orgId);
+        rollupRepository.deleteByOrganizationId(orgId);
+        int rows = rollupRepository.insertFromExpenses(orgId);
+        eventPublisher.publishEvent(ExpenseChangedEvent.anyDate(orgId));
+        log.debug("Rebuilt {} expense rollup rows for org={}", rows, orgId);
+        return rows;
+    }
+}
@@ -3,18 +3,26 @@ package com.invoiceai.service;
 import com.invoiceai.dto.request.BulkCreateExpenseRequest;
 import com.invoiceai.dto.request.CreateExpenseRequest;
 import com.invoiceai.dto.request.UpdateExpenseRequest;
+import com.invoiceai.dto.response.BatchReviewResponse;
 import com.invoiceai.dto.response.BulkCreateExpenseResponse;
+import com.invoiceai.dto.response.DuplicateCandidateResponse;
 import com.invoiceai.dto.response.ExpenseResponse;
 import com.invoiceai.exception.BadRequestException;
+import com.invoiceai.exception.PreconditionFailedException;
 import com.invoiceai.exception.ResourceNotFoundException;
 import com.invoiceai.model.*;
 import com.invoiceai.model.enums.ExpenseStatus;
 import com.invoiceai.repository.CategoryRepository;
 import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.repository.ExpenseSearchRepository;
 import com.invoiceai.repository.ExpenseSpecification;
 import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.cache.ExpenseChangedEvent;
+import com.invoiceai.service.duplicate.DuplicateMatch;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,8 +31,14 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -37,6 +51,7 @@ public class ExpenseService {
     private final PolicyService policyService;
     private final BudgetService budgetService;
     private final EmailNotificationService emailNotificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public Page<ExpenseResponse> getExpenses(
@@ -47,6 +62,11 @@ public class ExpenseService {
 
         UUID orgId = TenantContext.getCurrentOrgId();
 
+        if (search != null && !search.isBlank() && expenseRepository.supportsFullTextSearch()) {
+            return searchExpensesRanked(orgId, status, categoryId, vendorName,
+                    dateFrom, dateTo, amountMin, amountMax, search.trim(), pageable);
+        }
+
         return expenseRepository.findAll(
                 ExpenseSpecification.withFilters(orgId, status, categoryId, vendorName,
                         dateFrom, dateTo, amountMin, amountMax, search),
@@ -54,6 +74,29 @@ public class ExpenseService {
         ).map(this::toResponse);
     }
 
+    private Page<ExpenseResponse> searchExpensesRanked(
+            UUID orgId, ExpenseStatus status, UUID categoryId, String vendorName,
+            LocalDate dateFrom, LocalDate dateTo,
+            BigDecimal amountMin, BigDecimal amountMax,
+            String search, Pageable pageable) {
+
+        Page<ExpenseSearchRepository.SearchHit> hits = expenseRepository.searchRanked(
+                orgId, status, categoryId, vendorName, dateFrom, dateTo, amountMin, amountMax, search, pageable);
+        if (hits.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.getTotalElements());
+        }
+
+        // Load the page in one query, then restore rank order
+        Map<UUID, Expense> byId = expenseRepository.findAllWithCategoryByIdIn(
+                        hits.map(ExpenseSearchRepository.SearchHit::expenseId).getContent()).stream()
+                .collect(Collectors.toMap(Expense::getId, Function.identity()));
+
+        return hits.map(hit -> responseBuilder(byId.get(hit.expenseId()))
+                .searchRank(hit.rank())
+                .searchHighlight(hit.highlight())
+                .build());
+    }
+
     @Transactional(readOnly = true)
     public ExpenseResponse getExpense(UUID expenseId) {
         UUID orgId = TenantContext.getCurrentOrgId();
@@ -63,7 +106,7 @@ public class ExpenseService {
     }
 
     @Transactional
-    public ExpenseResponse createExpense(CreateExpenseRequest request) {
+    public ExpenseResponse createExpense(CreateExpenseRequest request, User submitter) {
         UUID orgId = TenantContext.getCurrentOrgId();
 
         Category category = null;
@@ -83,17 +126,19 @@ public class ExpenseService {
                 .description(request.getDescription())
                 .category(category)
                 .status(ExpenseStatus.NEEDS_REVIEW)
+                .submittedBy(submitter)
                 .build();
 
         // Duplicate detection — flag only, don't block
         Expense duplicate = duplicateDetectionService.checkForDuplicate(
-                orgId, expense.getVendorName(), expense.getAmount(), expense.getDate());
+                orgId, expense.getVendorName(), expense.getAmount(), expense.getCurrency(), expense.getDate());
         if (duplicate != null) {
             expense.setDuplicate(true);
             expense.setDuplicateOf(duplicate);
         }
 
         Expense saved = expenseRepository.save(expense);
+        duplicateDetectionService.recordExpense(saved);
 
         // Auto-maintain vendor directory
         vendorService.upsertFromExpense(orgId, saved.getVendorName(), saved.getAmount(), saved.getDate(), category);
@@ -101,14 +146,21 @@ public class ExpenseService {
         // Evaluate expense against active policies
         policyService.evaluateExpense(saved);
 
+        eventPublisher.publishEvent(ExpenseChangedEvent.of(orgId, saved.getDate()));
         return toResponse(saved);
     }
 
+    /**
+     * {@code expectedVersion} is the client's If-Match version, or null to skip the check.
+     * Concurrent writers are still caught by the {@code @Version} check at flush.
+     */
     @Transactional
-    public ExpenseResponse updateExpense(UUID expenseId, UpdateExpenseRequest request) {
+    public ExpenseResponse updateExpense(UUID expenseId, UpdateExpenseRequest request, Long expectedVersion) {
         UUID orgId = TenantContext.getCurrentOrgId();
         Expense expense = expenseRepository.findByIdAndOrganizationId(expenseId, orgId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
+        checkVersion(expense, expectedVersion);
+        LocalDate previousDate = expense.getDate();
 
         if (request.getVendorName() != null) expense.setVendorName(request.getVendorName().trim());
         if (request.getAmount() != null) expense.setAmount(request.getAmount());
@@ -124,14 +176,19 @@ public class ExpenseService {
             expense.setCategory(category);
         }
 
-        return toResponse(expenseRepository.save(expense));
+        // Flush so the response carries the incremented version
+        Expense saved = expenseRepository.saveAndFlush(expense);
+        duplicateDetectionService.recordExpense(saved);
+        eventPublisher.publishEvent(ExpenseChangedEvent.of(orgId, previousDate, saved.getDate()));
+        return toResponse(saved);
     }
 
     @Transactional
-    public ExpenseResponse approveExpense(UUID expenseId, User reviewer) {
+    public ExpenseResponse approveExpense(UUID expenseId, User reviewer, Long expectedVersion) {
         UUID orgId = TenantContext.getCurrentOrgId();
         Expense expense = expenseRepository.findByIdAndOrganizationId(expenseId, orgId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
+        checkVersion(expense, expectedVersion);
 
         if (expense.getStatus() != ExpenseStatus.NEEDS_REVIEW) {
             throw new BadRequestException("Only expenses with NEEDS_REVIEW status can be approved");
@@ -141,19 +198,21 @@ public class ExpenseService {
         expense.setReviewedBy(reviewer);
         expense.setReviewedAt(Instant.now());
 
-        Expense saved = expenseRepository.save(expense);
+        Expense saved = expenseRepository.saveAndFlush(expense);
 
         // Check budget thresholds after approval
         budgetService.checkBudgetsAfterApproval(saved);
 
+        eventPublisher.publishEvent(ExpenseChangedEvent.of(orgId, saved.getDate()));
         return toResponse(saved);
     }
 
     @Transactional
-    public ExpenseResponse rejectExpense(UUID expenseId, String reason, User reviewer) {
+    public ExpenseResponse rejectExpense(UUID expenseId, String reason, User reviewer, Long expectedVersion) {
         UUID orgId = TenantContext.getCurrentOrgId();
         Expense expense = expenseRepository.findByIdAndOrganizationId(expenseId, orgId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
+        checkVersion(expense, expectedVersion);
 
         if (expense.getStatus() != ExpenseStatus.NEEDS_REVIEW) {
             throw new BadRequestException("Only expenses with NEEDS_REVIEW status can be rejected");
@@ -163,7 +222,65 @@ public class ExpenseService {
         expense.setReviewedBy(reviewer);
         expense.setReviewedAt(Instant.now());
 
-        return toResponse(expenseRepository.save(expense));
+        Expense saved = expenseRepository.saveAndFlush(expense);
+        eventPublisher.publishEvent(ExpenseChangedEvent.of(orgId, saved.getDate()));
+        return toResponse(saved);
+    }
+
+    @Transactional
+    public BatchReviewResponse approveExpenses(List<UUID> expenseIds, User reviewer) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        List<Object[]> rows = expenseRepository.reviewPendingExpenses(
+                orgId, new LinkedHashSet<>(expenseIds), ExpenseStatus.APPROVED.name(), reviewer.getId());
+
+        // One set-based threshold check for the whole batch rather than one per expense
+        budgetService.checkBudgetsAfterBatchApproval(orgId, rows.stream().map(row -> (UUID) row[0]).toList());
+
+        publishChanged(orgId, rows);
+        return toBatchResponse(expenseIds, rows);
+    }
+
+    @Transactional
+    public BatchReviewResponse rejectExpenses(List<UUID> expenseIds, String reason, User reviewer) {
+        if (reason == null || reason.isBlank()) {
+            throw new BadRequestException("A reason is required to reject expenses");
+        }
+        UUID orgId = TenantContext.getCurrentOrgId();
+        List<Object[]> rows = expenseRepository.reviewPendingExpenses(
+                orgId, new LinkedHashSet<>(expenseIds), ExpenseStatus.REJECTED.name(), reviewer.getId());
+        publishChanged(orgId, rows);
+        return toBatchResponse(expenseIds, rows);
+    }
+
+    private void publishChanged(UUID orgId, List<Object[]> reviewedRows) {
+        if (!reviewedRows.isEmpty()) {
+            Set<LocalDate> dates = reviewedRows.stream().map(row -> toLocalDate(row[2])).collect(Collectors.toSet());
+            eventPublisher.publishEvent(new ExpenseChangedEvent(orgId, dates));
+        }
+    }
+
+    private void checkVersion(Expense expense, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(expense.getVersion())) {
+            throw new PreconditionFailedException("Expense has been modified since it was read");
+        }
+    }
+
+    private BatchReviewResponse toBatchResponse(List<UUID> requestedIds, List<Object[]> rows) {
+        Set<UUID> updated = new HashSet<>();
+        for (Object[] row : rows) {
+            updated.add((UUID) row[0]);
+        }
+        List<UUID> distinctRequested = new ArrayList<>(new LinkedHashSet<>(requestedIds));
+        return BatchReviewResponse.builder()
+                .requested(distinctRequested.size())
+                .updated(updated.size())
+                .updatedIds(distinctRequested.stream().filter(updated::contains).toList())
+                .skippedIds(distinctRequested.stream().filter(id -> !updated.contains(id)).toList())
+                .build();
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) value;
     }
 
     @Transactional
@@ -172,13 +289,49 @@ public class ExpenseService {
         Expense expense = expenseRepository.findByIdAndOrganizationId(expenseId, orgId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
         expenseRepository.delete(expense);
+        duplicateDetectionService.forgetExpense(orgId, expenseId);
+        eventPublisher.publishEvent(ExpenseChangedEvent.of(orgId, expense.getDate()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<DuplicateCandidateResponse> getDuplicateCandidates(UUID expenseId) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        Expense expense = expenseRepository.findByIdAndOrganizationId(expenseId, orgId)
+                .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
+
+        List<DuplicateMatch> matches = duplicateDetectionService.findCandidates(
+                orgId, expense.getVendorName(), expense.getAmount(), expense.getCurrency(), expense.getDate(), expenseId, 10);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Expense> byId = expenseRepository.findAllWithCategoryByIdIn(
+                        matches.stream().map(DuplicateMatch::expenseId).toList()).stream()
+                .collect(Collectors.toMap(Expense::getId, Function.identity()));
+
+        return matches.stream()
+                .filter(match -> byId.containsKey(match.expenseId()))
+                .map(match -> {
+                    Expense candidate = byId.get(match.expenseId());
+                    return DuplicateCandidateResponse.builder()
+                            .id(candidate.getId())
+                            .vendorName(candidate.getVendorName())
+                            .amount(candidate.getAmount())
+                            .currency(candidate.getCurrency())
+                            .date(candidate.getDate())
+                            .status(candidate.getStatus().name())
+                            .score(match.score())
+                            .build();
+                })
+                .toList();
     }
 
     @Transactional
-    public BulkCreateExpenseResponse bulkCreateExpenses(BulkCreateExpenseRequest request) {
+    public BulkCreateExpenseResponse bulkCreateExpenses(BulkCreateExpenseRequest request, User submitter) {
         UUID orgId = TenantContext.getCurrentOrgId();
         List<ExpenseResponse> created = new ArrayList<>();
         List<BulkCreateExpenseResponse.BulkError> errors = new ArrayList<>();
+        Set<LocalDate> createdDates = new HashSet<>();
         int duplicates = 0;
 
         for (int i = 0; i < request.getExpenses().size(); i++) {
@@ -201,10 +354,11 @@ public class ExpenseService {
                         .description(item.getDescription())
                         .category(category)
                         .status(ExpenseStatus.NEEDS_REVIEW)
+                        .submittedBy(submitter)
                         .build();
 
                 Expense duplicate = duplicateDetectionService.checkForDuplicate(
-                        orgId, expense.getVendorName(), expense.getAmount(), expense.getDate());
+                        orgId, expense.getVendorName(), expense.getAmount(), expense.getCurrency(), expense.getDate());
                 if (duplicate != null) {
                     expense.setDuplicate(true);
                     expense.setDuplicateOf(duplicate);
@@ -212,8 +366,10 @@ public class ExpenseService {
                 }
 
                 Expense saved = expenseRepository.save(expense);
+                duplicateDetectionService.recordExpense(saved);
                 vendorService.upsertFromExpense(orgId, saved.getVendorName(), saved.getAmount(), saved.getDate(), category);
                 created.add(toResponse(saved));
+                createdDates.add(saved.getDate());
             } catch (Exception e) {
                 errors.add(BulkCreateExpenseResponse.BulkError.builder()
                         .index(i)
@@ -222,6 +378,9 @@ public class ExpenseService {
             }
         }
 
+        if (!createdDates.isEmpty()) {
+            eventPublisher.publishEvent(new ExpenseChangedEvent(orgId, createdDates));
+        }
         return BulkCreateExpenseResponse.builder()
                 .total(request.getExpenses().size())
                 .created(created.size())
@@ -268,7 +427,7 @@ public class ExpenseService {
         String html = buildExportHtml(expenses.size(), totalAmount, dateFrom, dateTo);
 
         String subject = String.format("InvoiceAI — Expense Export (%d expenses)", expenses.size());
-        emailNotificationService.sendExpenseExportEmail(user, subject, html, csv.toString().getBytes());
+        emailNotificationService.sendExpenseExportEmail(TenantContext.getCurrentOrgId(), user, subject, html, csv.toString().getBytes());
     }
 
     private String buildExportHtml(int count, BigDecimal total, LocalDate dateFrom, LocalDate dateTo) {
@@ -294,6 +453,10 @@ public class ExpenseService {
     }
 
     private ExpenseResponse toResponse(Expense expense) {
+        return responseBuilder(expense).build();
+    }
+
+    private ExpenseResponse.ExpenseResponseBuilder responseBuilder(Expense expense) {
         ExpenseResponse.ExpenseResponseBuilder builder = ExpenseResponse.builder()
                 .id(expense.getId())
                 .vendorName(expense.getVendorName())
@@ -306,6 +469,7 @@ public class ExpenseService {
                 .aiConfidence(expense.getAiConfidence())
                 .isDuplicate(expense.isDuplicate())
                 .duplicateOfId(expense.getDuplicateOf() != null ? expense.getDuplicateOf().getId() : null)
+                .version(expense.getVersion())
                 .createdAt(expense.getCreatedAt());
 
         if (expense.getCategory() != null) {
@@ -335,6 +499,6 @@ public class ExpenseService {
                     .toList());
         }
 
-        return builder.build();
+        return builder;
     }
 }
@@ -8,9 +8,15 @@ import com.invoiceai.repository.ExpenseRepository;
 import com.invoiceai.repository.InvoiceRepository;
 import com.invoiceai.service.ai.AiExtractionService;
 import com.invoiceai.service.ai.ExtractionResult;
+import com.invoiceai.service.cache.CacheInvalidationBus;
+import com.invoiceai.service.cache.ExpenseChangedEvent;
+import com.invoiceai.service.duplicate.BkTree;
+import com.invoiceai.service.duplicate.PerceptualHash;
+import com.invoiceai.service.duplicate.ReceiptHashIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +25,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -33,10 +40,19 @@ public class InvoiceProcessingService {
     private final AiExtractionService aiExtractionService;
     private final DuplicateDetectionService duplicateDetectionService;
     private final VendorService vendorService;
-
+    private final ReceiptHashIndex receiptHashIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheInvalidationBus invalidationBus;
+
+    /**
+     * Extracts an expense from the invoice with AI. Unless {@code force} is set, uploads that look
+     * like a re-photographed earlier receipt are marked DUPLICATE and skip extraction; receipts
+     * printed from one vendor template can hash alike, so the user confirms by re-running with
+     * {@code force}.
+     */
     @Async
     @Transactional
-    public void processInvoiceAsync(UUID invoiceId) {
+    public void processInvoiceAsync(UUID invoiceId, boolean force) {
         Invoice invoice = invoiceRepository.findById(invoiceId).orElse(null);
         if (invoice == null) {
             log.warn("Invoice {} not found for processing", invoiceId);
@@ -51,6 +67,10 @@ public class InvoiceProcessingService {
             // Download file from R2
             byte[] fileBytes = fileStorageService.downloadFile(invoice.getFileKey());
 
+            if (flagIfDuplicateReceipt(invoice, fileBytes, force)) {
+                return;
+            }
+
             // Run AI extraction
             ExtractionResult result = aiExtractionService.extract(
                     fileBytes, invoice.getFileType(), invoice.getFileName());
@@ -74,6 +94,7 @@ public class InvoiceProcessingService {
                     .description(result.getDescription())
                     .status(ExpenseStatus.NEEDS_REVIEW)
                     .aiConfidence(result.getConfidence())
+                    .submittedBy(invoice.getUploadedBy())
                     .build();
 
             // Add line items
@@ -95,13 +116,15 @@ public class InvoiceProcessingService {
             // Duplicate detection — flag only
             Expense duplicate = duplicateDetectionService.checkForDuplicate(
                     invoice.getOrganization().getId(),
-                    expense.getVendorName(), expense.getAmount(), expense.getDate());
+                    expense.getVendorName(), expense.getAmount(), expense.getCurrency(), expense.getDate());
             if (duplicate != null) {
                 expense.setDuplicate(true);
                 expense.setDuplicateOf(duplicate);
             }
 
             expenseRepository.save(expense);
+            duplicateDetectionService.recordExpense(expense);
+            eventPublisher.publishEvent(ExpenseChangedEvent.of(invoice.getOrganization().getId(), expense.getDate()));
 
             // Auto-maintain vendor directory
             vendorService.upsertFromExpense(
@@ -124,6 +147,44 @@ public class InvoiceProcessingService {
         }
     }
 
+    /**
+     * Records the invoice's perceptual hash and, when it is close to an earlier receipt's, marks
+     * the invoice DUPLICATE so extraction is skipped. Returns true if it did.
+     */
+    private boolean flagIfDuplicateReceipt(Invoice invoice, byte[] fileBytes, boolean force) {
+        UUID orgId = invoice.getOrganization().getId();
+        Long hash;
+        try {
+            hash = PerceptualHash.compute(fileBytes, invoice.getFileType());
+        } catch (Exception e) {
+            log.warn("Could not compute perceptual hash for invoice {}", invoice.getId(), e);
+            return false;
+        }
+        if (hash == null) {
+            return false;
+        }
+
+        // Forced reprocessing still records the hash so later uploads can match against it
+        Optional<BkTree.Match> match = force ? Optional.empty()
+                : receiptHashIndex.findClosest(orgId, hash, invoice.getId());
+        if (invoice.getPerceptualHash() == null) {
+            receiptHashIndex.add(orgId, invoice.getId(), hash);
+            invalidationBus.invalidateReplicas(ReceiptHashIndex.added(orgId, invoice.getId(), hash));
+        }
+        invoice.setPerceptualHash(hash);
+        if (match.isEmpty()) {
+            return false;
+        }
+
+        invoice.setStatus(InvoiceStatus.DUPLICATE);
+        invoice.setDuplicateOf(invoiceRepository.getReferenceById(match.get().id()));
+        invoice.setProcessingCompletedAt(Instant.now());
+        invoiceRepository.save(invoice);
+        log.info("Invoice {} looks like a duplicate of {} (distance {}), skipping extraction",
+                invoice.getId(), match.get().id(), match.get().distance());
+        return true;
+    }
+
     private Category matchCategory(UUID orgId, String categoryHint) {
         if (categoryHint == null || categoryHint.isBlank()) {
             return categoryRepository.findByOrganizationIdAndName(orgId, "Other").orElse(null);
@@ -24,8 +24,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -84,7 +87,7 @@ public class InvoiceService {
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
-                invoiceProcessingService.processInvoiceAsync(invoiceId);
+                invoiceProcessingService.processInvoiceAsync(invoiceId, false);
             }
         });
 
@@ -102,10 +105,12 @@ public class InvoiceService {
             page = invoiceRepository.findByOrganizationId(orgId, pageable);
         }
 
-        return page.map(invoice -> {
-            Expense expense = expenseRepository.findByInvoiceId(invoice.getId()).orElse(null);
-            return toResponse(invoice, expense);
-        });
+        // One lookup for the whole page instead of one per invoice
+        Map<UUID, Expense> expensesByInvoice = page.isEmpty() ? Map.of()
+                : expenseRepository.findByInvoiceIdIn(page.map(Invoice::getId).getContent()).stream()
+                        .collect(Collectors.toMap(e -> e.getInvoice().getId(), Function.identity(), (a, b) -> a));
+
+        return page.map(invoice -> toResponse(invoice, expensesByInvoice.get(invoice.getId())));
     }
 
     @Transactional(readOnly = true)
@@ -119,6 +124,35 @@ public class InvoiceService {
         return toResponse(invoice, expense);
     }
 
+    /**
+     * Re-runs extraction for an invoice flagged DUPLICATE (or one that FAILED), skipping the duplicate check.
+     */
+    @Transactional
+    public InvoiceResponse processInvoice(UUID invoiceId) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+
+        Invoice invoice = invoiceRepository.findByIdAndOrganizationId(invoiceId, orgId)
+                .orElseThrow(() -> new ResourceNotFoundException("Invoice not found"));
+
+        if (invoice.getStatus() != InvoiceStatus.DUPLICATE && invoice.getStatus() != InvoiceStatus.FAILED) {
+            throw new BadRequestException("Only DUPLICATE or FAILED invoices can be processed again");
+        }
+
+        invoice.setStatus(InvoiceStatus.PROCESSING);
+        invoice.setDuplicateOf(null);
+        invoice.setErrorMessage(null);
+        invoice = invoiceRepository.save(invoice);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invoiceProcessingService.processInvoiceAsync(invoiceId, true);
+            }
+        });
+
+        return toResponse(invoice, null);
+    }
+
     public String getDownloadUrl(UUID invoiceId) {
         UUID orgId = TenantContext.getCurrentOrgId();
 
@@ -136,6 +170,7 @@ public class InvoiceService {
                 .fileType(invoice.getFileType())
                 .status(invoice.getStatus().name())
                 .errorMessage(invoice.getErrorMessage())
+                .duplicateOfInvoiceId(invoice.getDuplicateOf() != null ? invoice.getDuplicateOf().getId() : null)
                 .createdAt(invoice.getCreatedAt());
 
         if (invoice.getUploadedBy() != null) {
@@ -0,0 +1,59 @@
+package com.invoiceai.service;
+
+import com.invoiceai.dto.request.UpdateNotificationPreferencesRequest;
+import com.invoiceai.dto.response.NotificationPreferencesResponse;
+import com.invoiceai.model.NotificationPreference;
+import com.invoiceai.model.Organization;
+import com.invoiceai.model.User;
+import com.invoiceai.repository.NotificationPreferenceRepository;
+import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.notification.NotificationRecipientResolver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class NotificationPreferenceService {
+
+    private final NotificationPreferenceRepository preferenceRepository;
+    private final NotificationRecipientResolver recipientResolver;
+
+    /** The caller's preferences in the current org; defaults if never saved. */
+    @Transactional(readOnly = true)
+    public NotificationPreferencesResponse getPreferences(User user) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        return toResponse(preferenceRepository.findByUserIdAndOrganizationId(user.getId(), orgId)
+                .orElseGet(() -> NotificationPreference.builder().build()));
+    }
+
+    @Transactional
+    public NotificationPreferencesResponse updatePreferences(User user, UpdateNotificationPreferencesRequest request) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        NotificationPreference preference = preferenceRepository.findByUserIdAndOrganizationId(user.getId(), orgId)
+                .orElseGet(() -> NotificationPreference.builder()
+                        .user(user)
+                        .organization(Organization.builder().id(orgId).build())
+                        .build());
+
+        if (request.getPolicyViolations() != null) preference.setPolicyViolations(request.getPolicyViolations());
+        if (request.getBudgetAlerts() != null) preference.setBudgetAlerts(request.getBudgetAlerts());
+        if (request.getExportEmails() != null) preference.setExportEmails(request.getExportEmails());
+        if (request.getDigestFrequency() != null) preference.setDigestFrequency(request.getDigestFrequency());
+
+        NotificationPreferencesResponse response = toResponse(preferenceRepository.save(preference));
+        recipientResolver.invalidate(orgId);
+        return response;
+    }
+
+    private NotificationPreferencesResponse toResponse(NotificationPreference preference) {
+        return NotificationPreferencesResponse.builder()
+                .policyViolations(preference.isPolicyViolations())
+                .budgetAlerts(preference.isBudgetAlerts())
+                .exportEmails(preference.isExportEmails())
+                .digestFrequency(preference.getDigestFrequency())
+                .build();
+    }
+}
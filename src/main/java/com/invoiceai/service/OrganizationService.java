@@ -9,6 +9,7 @@ import com.invoiceai.model.enums.MemberRole;
 import com.invoiceai.repository.CategoryRepository;
 import com.invoiceai.repository.OrganizationMemberRepository;
 import com.invoiceai.repository.OrganizationRepository;
+import com.invoiceai.service.notification.NotificationRecipientResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +27,7 @@ public class OrganizationService {
     private final OrganizationRepository organizationRepository;
     private final OrganizationMemberRepository memberRepository;
     private final CategoryRepository categoryRepository;
+    private final NotificationRecipientResolver recipientResolver;
 
     private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9-]");
     private static final Pattern MULTIPLE_DASHES = Pattern.compile("-{2,}");
@@ -49,6 +51,7 @@ public class OrganizationService {
                 .acceptedAt(Instant.now())
                 .build();
         memberRepository.save(member);
+        recipientResolver.invalidate(org.getId());
 
         // Seed default categories
         seedDefaultCategories(org);
@@ -0,0 +1,321 @@
+package com.invoiceai.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.invoiceai.dto.request.PolicyBackfillRequest;
+import com.invoiceai.dto.request.SimulatePolicyRequest;
+import com.invoiceai.dto.response.PolicyBackfillResponse;
+import com.invoiceai.dto.response.PolicySimulationResponse;
+import com.invoiceai.exception.BadRequestException;
+import com.invoiceai.exception.ResourceNotFoundException;
+import com.invoiceai.model.Expense;
+import com.invoiceai.model.ExpensePolicy;
+import com.invoiceai.repository.ExpensePolicyRepository;
+import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.policy.PolicyEvaluator;
+import com.invoiceai.service.policy.PolicyFacts;
+import com.invoiceai.service.policy.PolicyMatch;
+import com.invoiceai.service.policy.PolicySet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a policy over an org's historical (non-rejected) expenses: a synchronous what-if for
+ * drafts, and a background backfill that records violations for a saved policy.
+ *
+ * <p>Expenses are read in keyset-paged chunks in (date, id) order; each chunk is evaluated in
+ * {@code parallelism} slices, and the scan pauses between chunks so a large org does not
+ * starve live requests of connections. Backfill jobs are tracked in memory on the node that
+ * runs them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PolicyBackfillService {
+
+    // Skips expenses the policy already flagged, so reruns and overlapping ranges are safe.
+    // Backfilled violations are marked notified: they are history, not new alerts.
+    private static final String INSERT_VIOLATION = """
+            INSERT INTO policy_violations (organization_id, expense_id, policy_id, violation_message, notified)
+            SELECT ?, ?, ?, ?, TRUE
+             WHERE NOT EXISTS (SELECT 1 FROM policy_violations WHERE expense_id = ? AND policy_id = ?)
+            """;
+
+    private final PolicyService policyService;
+    private final ExpensePolicyRepository policyRepository;
+    private final ExpenseRepository expenseRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.policies.scan.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.policies.scan.parallelism:2}")
+    private int parallelism;
+
+    @Value("${app.policies.scan.pause-millis:100}")
+    private long pauseMillis;
+
+    @Value("${app.policies.scan.default-lookback-days:365}")
+    private int defaultLookbackDays;
+
+    @Value("${app.policies.scan.sample-size:20}")
+    private int sampleSize;
+
+    private final Cache<UUID, BackfillJob> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    private enum JobStatus { RUNNING, COMPLETED, FAILED }
+
+    private record Flagged(Expense expense, PolicyMatch match) {}
+
+    @FunctionalInterface
+    private interface ChunkHandler {
+        void accept(int scanned, List<Flagged> flagged);
+    }
+
+    public PolicySimulationResponse simulate(SimulatePolicyRequest request) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        PolicySet policies = PolicySet.compile(List.of(policyService.buildPolicy(orgId, request)));
+        LocalDate to = request.getTo() != null ? request.getTo() : LocalDate.now();
+        LocalDate from = request.getFrom() != null ? request.getFrom() : to.minusDays(defaultLookbackDays);
+        validateRange(from, to);
+
+        Tally tally = new Tally(sampleSize);
+        try {
+            scan(orgId, policies, from, to, tally::add);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Policy simulation interrupted", e);
+        }
+
+        return PolicySimulationResponse.builder()
+                .from(from)
+                .to(to)
+                .scanned(tally.scanned.get())
+                .matched(tally.matched.get())
+                .samples(List.copyOf(tally.samples))
+                .build();
+    }
+
+    /** Starts (or returns the already-running) backfill of a saved policy. */
+    public synchronized PolicyBackfillResponse startBackfill(UUID policyId, PolicyBackfillRequest request) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        ExpensePolicy policy = policyRepository.findByIdAndOrganizationId(policyId, orgId)
+                .orElseThrow(() -> new ResourceNotFoundException("Policy not found"));
+
+        BackfillJob running = jobs.asMap().values().stream()
+                .filter(j -> j.policyId.equals(policyId) && j.status == JobStatus.RUNNING)
+                .findFirst()
+                .orElse(null);
+        if (running != null) {
+            return toResponse(running);
+        }
+
+        LocalDate to = request != null && request.getTo() != null ? request.getTo() : LocalDate.now();
+        LocalDate from = request != null && request.getFrom() != null ? request.getFrom() : to.minusDays(defaultLookbackDays);
+        validateRange(from, to);
+
+        PolicySet policies = PolicySet.compile(List.of(policy));
+        BackfillJob job = new BackfillJob(orgId, policyId, from, to, sampleSize);
+        jobs.put(job.id, job);
+        Thread.ofVirtual().name("policy-backfill-" + policyId).start(() -> runBackfill(job, policies));
+        return toResponse(job);
+    }
+
+    public PolicyBackfillResponse getBackfill(UUID jobId) {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        BackfillJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.orgId.equals(orgId)) {
+            throw new ResourceNotFoundException("Backfill job not found");
+        }
+        return toResponse(job);
+    }
+
+    private void runBackfill(BackfillJob job, PolicySet policies) {
+        try {
+            scan(job.orgId, policies, job.from, job.to, (scanned, flagged) -> {
+                job.tally.add(scanned, flagged);
+                job.inserted.addAndGet(insertViolations(job, flagged));
+            });
+            job.finish(JobStatus.COMPLETED, null);
+            log.info("Policy backfill {} for policy {}: scanned {}, matched {}, inserted {}",
+                    job.id, job.policyId, job.tally.scanned.get(), job.tally.matched.get(), job.inserted.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(JobStatus.FAILED, "Interrupted");
+        } catch (Exception e) {
+            log.error("Policy backfill {} for policy {} failed", job.id, job.policyId, e);
+            job.finish(JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private int insertViolations(BackfillJob job, List<Flagged> flagged) {
+        if (flagged.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = flagged.stream()
+                .map(f -> new Object[]{job.orgId, f.expense().getId(), job.policyId, f.match().message(),
+                        f.expense().getId(), job.policyId})
+                .toList();
+        int inserted = 0;
+        for (int count : jdbcTemplate.batchUpdate(INSERT_VIOLATION, rows)) {
+            inserted += Math.max(count, 0);
+        }
+        return inserted;
+    }
+
+    private void scan(UUID orgId, PolicySet policies, LocalDate from, LocalDate to, ChunkHandler handler)
+            throws InterruptedException {
+        LocalDate afterDate = from.minusDays(1);
+        UUID afterId = new UUID(0L, 0L);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                List<Expense> page = expenseRepository.findPolicyScanPage(
+                        orgId, from, to, afterDate, afterId, PageRequest.of(0, chunkSize));
+                if (page.isEmpty()) {
+                    return;
+                }
+                handler.accept(page.size(), evaluate(executor, orgId, policies, page));
+                if (page.size() < chunkSize) {
+                    return;
+                }
+                Expense last = page.getLast();
+                afterDate = last.getDate();
+                afterId = last.getId();
+                Thread.sleep(pauseMillis);
+            }
+        }
+    }
+
+    /** Each slice gets its own facts, whose memoized lookups are reused across the slice. */
+    private List<Flagged> evaluate(ExecutorService executor, UUID orgId, PolicySet policies, List<Expense> page)
+            throws InterruptedException {
+        int sliceSize = Math.ceilDiv(page.size(), Math.max(parallelism, 1));
+        List<Future<List<Flagged>>> slices = new ArrayList<>();
+        for (int start = 0; start < page.size(); start += sliceSize) {
+            List<Expense> slice = page.subList(start, Math.min(start + sliceSize, page.size()));
+            slices.add(executor.submit(() -> {
+                PolicyFacts facts = policyService.factsFor(orgId);
+                List<Flagged> flagged = new ArrayList<>();
+                for (Expense expense : slice) {
+                    for (PolicyMatch match : PolicyEvaluator.evaluate(policies, expense, facts)) {
+                        flagged.add(new Flagged(expense, match));
+                    }
+                }
+                return flagged;
+            }));
+        }
+
+        List<Flagged> flagged = new ArrayList<>();
+        for (Future<List<Flagged>> slice : slices) {
+            try {
+                flagged.addAll(slice.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return flagged;
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+    }
+
+    private PolicyBackfillResponse toResponse(BackfillJob job) {
+        return PolicyBackfillResponse.builder()
+                .jobId(job.id)
+                .policyId(job.policyId)
+                .status(job.status.name())
+                .from(job.from)
+                .to(job.to)
+                .scanned(job.tally.scanned.get())
+                .matched(job.tally.matched.get())
+                .inserted(job.inserted.get())
+                .samples(List.copyOf(job.tally.samples))
+                .error(job.error)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .build();
+    }
+
+    /** Counts and the first few matches. Updated by the scanning thread, read by any. */
+    private static final class Tally {
+        private final int sampleSize;
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong matched = new AtomicLong();
+        private final List<PolicySimulationResponse.Sample> samples = Collections.synchronizedList(new ArrayList<>());
+
+        private Tally(int sampleSize) {
+            this.sampleSize = sampleSize;
+        }
+
+        private void add(int scannedInChunk, List<Flagged> flagged) {
+            scanned.addAndGet(scannedInChunk);
+            matched.addAndGet(flagged.size());
+            for (Flagged f : flagged) {
+                if (samples.size() >= sampleSize) {
+                    break;
+                }
+                samples.add(PolicySimulationResponse.Sample.builder()
+                        .expenseId(f.expense().getId())
+                        .vendorName(f.expense().getVendorName())
+                        .amount(f.expense().getAmount())
+                        .date(f.expense().getDate())
+                        .violationMessage(f.match().message())
+                        .build());
+            }
+        }
+    }
+
+    private static final class BackfillJob {
+        private final UUID id = UUID.randomUUID();
+        private final UUID orgId;
+        private final UUID policyId;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Tally tally;
+        private final AtomicLong inserted = new AtomicLong();
+        private final Instant startedAt = Instant.now();
+        private volatile JobStatus status = JobStatus.RUNNING;
+        private volatile String error;
+        private volatile Instant finishedAt;
+
+        private BackfillJob(UUID orgId, UUID policyId, LocalDate from, LocalDate to, int sampleSize) {
+            this.orgId = orgId;
+            this.policyId = policyId;
+            this.from = from;
+            this.to = to;
+            this.tally = new Tally(sampleSize);
+        }
+
+        private void finish(JobStatus status, String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.status = status;
+        }
+    }
+}
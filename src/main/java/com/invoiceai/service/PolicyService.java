@@ -4,14 +4,23 @@ import com.invoiceai.dto.request.CreatePolicyRequest;
 import com.invoiceai.dto.request.UpdatePolicyRequest;
 import com.invoiceai.dto.response.PolicyResponse;
 import com.invoiceai.dto.response.PolicyViolationResponse;
+import com.invoiceai.exception.BadRequestException;
 import com.invoiceai.exception.ResourceNotFoundException;
 import com.invoiceai.model.*;
 import com.invoiceai.model.enums.PolicyRuleType;
+import com.invoiceai.model.enums.WindowDimension;
 import com.invoiceai.repository.CategoryRepository;
 import com.invoiceai.repository.ExpensePolicyRepository;
-import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.repository.ExpenseDailyRollupRepository;
+import com.invoiceai.repository.ExpenseWindowCounterRepository;
 import com.invoiceai.repository.PolicyViolationRepository;
 import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.cache.CacheInvalidation;
+import com.invoiceai.service.cache.CacheInvalidationBus;
+import com.invoiceai.service.cache.OrgCacheRegistry;
+import com.invoiceai.service.policy.PolicyEvaluator;
+import com.invoiceai.service.policy.PolicyFacts;
+import com.invoiceai.service.policy.PolicySet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -21,8 +30,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -33,8 +43,13 @@ public class PolicyService {
     private final ExpensePolicyRepository policyRepository;
     private final PolicyViolationRepository violationRepository;
     private final CategoryRepository categoryRepository;
-    private final ExpenseRepository expenseRepository;
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final ExpenseWindowCounterRepository windowCounterRepository;
     private final EmailNotificationService emailNotificationService;
+    private final OrgCacheRegistry caches;
+    private final CacheInvalidationBus invalidationBus;
+
+    private static final String ACTIVE_POLICIES = "active";
 
     @Transactional(readOnly = true)
     public List<PolicyResponse> getPolicies() {
@@ -47,7 +62,15 @@ public class PolicyService {
     @Transactional
     public PolicyResponse createPolicy(CreatePolicyRequest request) {
         UUID orgId = TenantContext.getCurrentOrgId();
+        ExpensePolicy policy = buildPolicy(orgId, request);
+
+        PolicyResponse response = toResponse(policyRepository.save(policy));
+        invalidatePolicies(orgId);
+        return response;
+    }
 
+    /** Validated, unsaved policy; also used to simulate drafts. */
+    ExpensePolicy buildPolicy(UUID orgId, CreatePolicyRequest request) {
         Category category = null;
         if (request.getCategoryId() != null) {
             category = categoryRepository.findById(request.getCategoryId())
@@ -62,9 +85,11 @@ public class PolicyService {
                 .category(category)
                 .thresholdAmount(request.getThresholdAmount())
                 .requiredField(request.getRequiredField())
+                .maxCount(request.getMaxCount())
+                .windowDays(request.getWindowDays())
                 .build();
-
-        return toResponse(policyRepository.save(policy));
+        validateWindow(policy);
+        return policy;
     }
 
     @Transactional
@@ -81,9 +106,14 @@ public class PolicyService {
             policy.setCategory(category);
         }
         if (request.getThresholdAmount() != null) policy.setThresholdAmount(request.getThresholdAmount());
+        if (request.getMaxCount() != null) policy.setMaxCount(request.getMaxCount());
+        if (request.getWindowDays() != null) policy.setWindowDays(request.getWindowDays());
         if (request.getIsActive() != null) policy.setActive(request.getIsActive());
+        validateWindow(policy);
 
-        return toResponse(policyRepository.save(policy));
+        PolicyResponse response = toResponse(policyRepository.save(policy));
+        invalidatePolicies(orgId);
+        return response;
     }
 
     @Transactional
@@ -92,6 +122,7 @@ public class PolicyService {
         ExpensePolicy policy = policyRepository.findByIdAndOrganizationId(policyId, orgId)
                 .orElseThrow(() -> new ResourceNotFoundException("Policy not found"));
         policyRepository.delete(policy);
+        invalidatePolicies(orgId);
     }
 
     @Transactional(readOnly = true)
@@ -103,80 +134,81 @@ public class PolicyService {
 
     /**
      * Evaluate an expense against all active policies.
-     * Called during expense creation — violations saved synchronously, email sent async.
+     * Called during expense creation — violations saved and their email queued in the same transaction.
      */
     @Transactional
     public List<PolicyViolation> evaluateExpense(Expense expense) {
         UUID orgId = expense.getOrganization().getId();
-        List<ExpensePolicy> activePolicies = policyRepository.findByOrganizationIdAndIsActiveTrue(orgId);
-        List<PolicyViolation> violations = new ArrayList<>();
+        PolicySet policies = getActivePolicies(orgId);
+        if (policies.isEmpty()) {
+            return List.of();
+        }
 
-        for (ExpensePolicy policy : activePolicies) {
-            String violation = checkPolicy(policy, expense, orgId);
-            if (violation != null) {
-                PolicyViolation pv = PolicyViolation.builder()
+        List<PolicyViolation> violations = PolicyEvaluator.evaluate(policies, expense, factsFor(orgId)).stream()
+                .map(match -> PolicyViolation.builder()
                         .organization(expense.getOrganization())
                         .expense(expense)
-                        .policy(policy)
-                        .violationMessage(violation)
-                        .build();
-                violations.add(violationRepository.save(pv));
-            }
-        }
+                        .policy(ExpensePolicy.builder().id(match.policy().id()).build())
+                        .violationMessage(match.message())
+                        .build())
+                .toList();
 
         if (!violations.isEmpty()) {
+            violations = violationRepository.saveAll(violations);
             emailNotificationService.sendPolicyViolationNotification(expense, violations);
         }
 
         return violations;
     }
 
-    private String checkPolicy(ExpensePolicy policy, Expense expense, UUID orgId) {
-        return switch (policy.getRuleType()) {
-            case MAX_AMOUNT_PER_EXPENSE -> {
-                if (policy.getThresholdAmount() != null && expense.getAmount().compareTo(policy.getThresholdAmount()) > 0) {
-                    if (policy.getCategory() == null || (expense.getCategory() != null &&
-                            expense.getCategory().getId().equals(policy.getCategory().getId()))) {
-                        yield String.format("Expense amount $%s exceeds limit of $%s (%s)",
-                                expense.getAmount(), policy.getThresholdAmount(), policy.getName());
-                    }
-                }
-                yield null;
-            }
-            case MAX_AMOUNT_PER_CATEGORY_MONTHLY -> {
-                if (policy.getThresholdAmount() != null && expense.getCategory() != null) {
-                    if (policy.getCategory() == null || expense.getCategory().getId().equals(policy.getCategory().getId())) {
-                        LocalDate monthStart = expense.getDate().withDayOfMonth(1);
-                        LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
-                        UUID catId = expense.getCategory().getId();
-                        BigDecimal monthlyTotal = expenseRepository.sumApprovedAmountByCategoryAndDateRange(
-                                orgId, catId, monthStart, monthEnd);
-                        BigDecimal projected = monthlyTotal.add(expense.getAmount());
-                        if (projected.compareTo(policy.getThresholdAmount()) > 0) {
-                            yield String.format("Category monthly spend $%s (with this expense) exceeds limit of $%s (%s)",
-                                    projected, policy.getThresholdAmount(), policy.getName());
-                        }
-                    }
-                }
-                yield null;
+    /**
+     * The org's active policies, compiled once and cached until a policy (or a category a
+     * policy refers to) changes.
+     */
+    PolicySet getActivePolicies(UUID orgId) {
+        return caches.cache(OrgCacheRegistry.POLICIES).get(orgId, ACTIVE_POLICIES,
+                () -> PolicySet.compile(policyRepository.findByOrganizationIdAndIsActiveTrue(orgId)));
+    }
+
+    /**
+     * Aggregates from the rollup and window-counter tables. Both are synchronized with
+     * {@code expenses}, so pending expense inserts are flushed before they are read.
+     * Lookups are memoized for the life of the instance, which is not thread-safe.
+     */
+    PolicyFacts factsFor(UUID orgId) {
+        return new PolicyFacts() {
+            // Rules (or scanned expenses) sharing a window share one lookup
+            private final Map<List<Object>, BigDecimal> categoryMonths = new HashMap<>();
+            private final Map<List<Object>, WindowTotals> windows = new HashMap<>();
+
+            @Override
+            public BigDecimal approvedCategoryMonthTotal(UUID categoryId, LocalDate monthStart) {
+                return categoryMonths.computeIfAbsent(List.of(categoryId, monthStart), k ->
+                        rollupRepository.sumApprovedAmountByCategoryAndDateRange(
+                                orgId, categoryId, monthStart, monthStart.plusMonths(1).minusDays(1)));
             }
-            case REQUIRED_FIELD -> {
-                if (policy.getRequiredField() != null) {
-                    boolean missing = switch (policy.getRequiredField()) {
-                        case "description" -> expense.getDescription() == null || expense.getDescription().isBlank();
-                        case "category" -> expense.getCategory() == null;
-                        default -> false;
-                    };
-                    if (missing) {
-                        yield String.format("Required field '%s' is missing (%s)",
-                                policy.getRequiredField(), policy.getName());
-                    }
-                }
-                yield null;
+
+            @Override
+            public WindowTotals window(WindowDimension dimension, String key, LocalDate from, LocalDate to) {
+                return windows.computeIfAbsent(List.of(dimension, key, from, to), k -> {
+                    Object[] row = windowCounterRepository.sumWindow(orgId, dimension, key, from, to).getFirst();
+                    return new WindowTotals(((Number) row[0]).longValue(), (BigDecimal) row[1]);
+                });
             }
         };
     }
 
+    private void invalidatePolicies(UUID orgId) {
+        invalidationBus.invalidate(CacheInvalidation.org(orgId, OrgCacheRegistry.POLICIES));
+    }
+
+    private void validateWindow(ExpensePolicy policy) {
+        if (policy.getRuleType() == PolicyRuleType.MAX_EXPENSES_PER_VENDOR_IN_WINDOW
+                && (policy.getMaxCount() == null || policy.getWindowDays() == null)) {
+            throw new BadRequestException("maxCount and windowDays are required for " + policy.getRuleType());
+        }
+    }
+
     private PolicyResponse toResponse(ExpensePolicy policy) {
         PolicyResponse.PolicyResponseBuilder builder = PolicyResponse.builder()
                 .id(policy.getId())
@@ -184,6 +216,8 @@ public class PolicyService {
                 .ruleType(policy.getRuleType().name())
                 .thresholdAmount(policy.getThresholdAmount())
                 .requiredField(policy.getRequiredField())
+                .maxCount(policy.getMaxCount())
+                .windowDays(policy.getWindowDays())
                 .isActive(policy.isActive())
                 .createdAt(policy.getCreatedAt());
 
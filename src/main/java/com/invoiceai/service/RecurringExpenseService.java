@@ -10,15 +10,20 @@ import com.invoiceai.repository.CategoryRepository;
 import com.invoiceai.repository.ExpenseRepository;
 import com.invoiceai.repository.RecurringExpenseRepository;
 import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.cache.ExpenseChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -29,6 +34,17 @@ public class RecurringExpenseService {
     private final RecurringExpenseRepository recurringExpenseRepository;
     private final ExpenseRepository expenseRepository;
     private final CategoryRepository categoryRepository;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.recurring.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${app.recurring.lease-seconds:600}")
+    private int leaseSeconds;
+
+    @Value("${app.recurring.max-catch-up-periods:60}")
+    private int maxCatchUpPeriods;
 
     @Transactional(readOnly = true)
     public List<RecurringExpenseResponse> getRecurringExpenses() {
@@ -80,43 +96,67 @@ public class RecurringExpenseService {
     }
 
     /**
-     * Process all due recurring expenses — called by scheduler (no TenantContext).
-     * Creates expenses with APPROVED status.
+     * Leases the next chunk of due recurring expenses for this node — called by scheduler (no
+     * TenantContext). Returns (id, organization id) rows.
+     */
+    public List<Object[]> claimDue(LocalDate today) {
+        return recurringExpenseRepository.claimDue(today, chunkSize, leaseSeconds);
+    }
+
+    /**
+     * Creates an APPROVED expense for every period of one recurring expense due by {@code today}
+     * (at most {@code max-catch-up-periods} per call) and moves its next due date past them.
+     * Periods that already have an expense are skipped, so reruns never duplicate. Releases the
+     * lease on success; a failed row keeps it, so it is retried by the first scheduled run after
+     * the lease expires. Returns the number of expenses created.
      */
     @Transactional
-    public int processDueRecurringExpenses() {
-        LocalDate today = LocalDate.now();
-        List<RecurringExpense> dueItems = recurringExpenseRepository.findByIsActiveTrueAndNextDueDateLessThanEqual(today);
-        int processed = 0;
-
-        for (RecurringExpense recurring : dueItems) {
-            try {
-                Expense expense = Expense.builder()
+    public int processRecurringExpense(UUID recurringId, LocalDate today) {
+        RecurringExpense recurring = recurringExpenseRepository.findByIdForUpdate(recurringId).orElse(null);
+        if (recurring == null) {
+            return 0;
+        }
+        recurring.setClaimedUntil(null);
+        if (!recurring.isActive() || recurring.getNextDueDate().isAfter(today)) {
+            return 0;
+        }
+
+        Set<LocalDate> existing = expenseRepository.findRecurringDueDates(recurringId, recurring.getNextDueDate());
+        List<Expense> created = new ArrayList<>();
+        LocalDate due = recurring.getNextDueDate();
+        for (int periods = 0; !due.isAfter(today) && periods < Math.max(maxCatchUpPeriods, 1); periods++) {
+            if (!existing.contains(due)) {
+                created.add(Expense.builder()
                         .organization(recurring.getOrganization())
                         .vendorName(recurring.getVendorName())
                         .amount(recurring.getAmount())
                         .currency(recurring.getCurrency())
                         .taxAmount(recurring.getTaxAmount())
-                        .date(recurring.getNextDueDate())
+                        .date(due)
                         .description(recurring.getDescription())
                         .category(recurring.getCategory())
                         .status(ExpenseStatus.APPROVED)
-                        .build();
-                expenseRepository.save(expense);
-
-                recurring.setLastCreatedAt(Instant.now());
-                recurring.setNextDueDate(calculateNextDueDate(recurring.getNextDueDate(), recurring.getFrequency()));
-                recurringExpenseRepository.save(recurring);
-
-                processed++;
-                log.info("Created recurring expense for vendor={} amount={} org={}",
-                        recurring.getVendorName(), recurring.getAmount(), recurring.getOrganization().getId());
-            } catch (Exception e) {
-                log.error("Failed to process recurring expense {}", recurring.getId(), e);
+                        .recurringExpense(recurring)
+                        .recurringDueDate(due)
+                        .build());
             }
+            due = calculateNextDueDate(due, recurring.getFrequency());
+        }
+        recurring.setNextDueDate(due);
+        if (created.isEmpty()) {
+            return 0;
         }
 
-        return processed;
+        expenseRepository.saveAll(created);
+        created.forEach(duplicateDetectionService::recordExpense);
+        recurring.setLastCreatedAt(Instant.now());
+        UUID orgId = recurring.getOrganization().getId();
+        eventPublisher.publishEvent(ExpenseChangedEvent.of(orgId,
+                created.stream().map(Expense::getDate).toArray(LocalDate[]::new)));
+
+        log.info("Created {} recurring expense(s) for vendor={} amount={} org={}",
+                created.size(), recurring.getVendorName(), recurring.getAmount(), orgId);
+        return created.size();
     }
 
     private LocalDate calculateNextDueDate(LocalDate current, RecurringFrequency frequency) {
@@ -0,0 +1,163 @@
+package com.invoiceai.service;
+
+import com.invoiceai.dto.response.TaxSummaryResponse;
+import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.security.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Line-level tax report of approved expenses for accountants. Rows are streamed from a database
+ * cursor straight to the output, so report size doesn't affect memory use. Only the cursor runs in
+ * a transaction; the cached summary is read outside it, so a caller waiting on the cache holds no
+ * connection.
+ */
+@Service
+@RequiredArgsConstructor
+public class TaxReportService {
+
+    private static final String[] COLUMNS = {"Date", "Vendor", "Category", "Description", "Currency", "Amount", "Tax"};
+    private static final int XLSX_FLUSH_INTERVAL = 1000;
+    private static final int SUMMARY_VENDOR_LIMIT = 50;
+
+    private final ExpenseRepository expenseRepository;
+    private final TaxSummaryService taxSummaryService;
+    private final PlatformTransactionManager transactionManager;
+
+    public void writeCsv(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+
+        BigDecimal[] totals = {BigDecimal.ZERO, BigDecimal.ZERO};
+        streamRows(orgId, from, to, row -> {
+            BigDecimal amount = (BigDecimal) row[6];
+            BigDecimal tax = row[7] != null ? (BigDecimal) row[7] : BigDecimal.ZERO;
+            writer.write(row[1] + "," + csv((String) row[2]) + "," + csv((String) row[3]) + ","
+                    + csv((String) row[4]) + "," + row[5] + "," + amount + "," + tax + "\n");
+            totals[0] = totals[0].add(amount);
+            totals[1] = totals[1].add(tax);
+        });
+        writer.write("Total,,,,," + totals[0] + "," + totals[1] + "\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes an "Expenses" sheet with every line and a "Summary" sheet with the category and
+     * top-vendor breakdowns.
+     */
+    public void writeXlsx(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        UUID orgId = TenantContext.getCurrentOrgId();
+        try (Workbook workbook = new Workbook(out, "InvoiceAI", "1.0")) {
+            Worksheet lines = workbook.newWorksheet("Expenses");
+            for (int col = 0; col < COLUMNS.length; col++) {
+                lines.value(0, col, COLUMNS[col]);
+            }
+            lines.range(0, 0, 0, COLUMNS.length - 1).style().bold().set();
+
+            int[] next = {1};
+            streamRows(orgId, from, to, row -> {
+                int r = next[0]++;
+                lines.value(r, 0, (LocalDate) row[1]);
+                lines.style(r, 0).format("yyyy-mm-dd").set();
+                lines.value(r, 1, (String) row[2]);
+                lines.value(r, 2, (String) row[3]);
+                lines.value(r, 3, (String) row[4]);
+                lines.value(r, 4, (String) row[5]);
+                lines.value(r, 5, (BigDecimal) row[6]);
+                lines.value(r, 6, row[7] != null ? (BigDecimal) row[7] : BigDecimal.ZERO);
+                if (next[0] % XLSX_FLUSH_INTERVAL == 0) {
+                    lines.flush();
+                }
+            });
+            int r = next[0];
+            lines.value(r, 0, "Total");
+            if (r > 1) {
+                lines.formula(r, 5, "SUM(F2:F" + r + ")");
+                lines.formula(r, 6, "SUM(G2:G" + r + ")");
+            }
+            lines.range(r, 0, r, COLUMNS.length - 1).style().bold().set();
+            lines.finish();
+
+            writeSummary(workbook.newWorksheet("Summary"),
+                    taxSummaryService.getTaxSummary(from, to, SUMMARY_VENDOR_LIMIT), from, to);
+        }
+    }
+
+    private interface RowWriter {
+        void write(Object[] row) throws IOException;
+    }
+
+    /** Feeds the report rows to {@code writer} inside a read-only transaction, which the cursor needs. */
+    private void streamRows(UUID orgId, LocalDate from, LocalDate to, RowWriter writer) throws IOException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        try {
+            transaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = expenseRepository.streamTaxReportRows(orgId, from, to)) {
+                    for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                        writer.write(row);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeSummary(Worksheet sheet, TaxSummaryResponse summary, LocalDate from, LocalDate to)
+            throws IOException {
+        sheet.value(0, 0, "Tax summary " + from + " to " + to);
+        sheet.value(1, 0, "Total tax");
+        sheet.value(1, 1, summary.getTotalTax());
+
+        int r = 3;
+        sheet.value(r, 0, "Category");
+        sheet.value(r, 1, "Tax");
+        sheet.range(r, 0, r, 1).style().bold().set();
+        for (TaxSummaryResponse.TaxByCategory category : summary.getByCategory()) {
+            r++;
+            sheet.value(r, 0, category.getCategoryName());
+            sheet.value(r, 1, category.getTaxAmount());
+        }
+
+        r += 2;
+        sheet.value(r, 0, "Vendor");
+        sheet.value(r, 1, "Tax");
+        sheet.range(r, 0, r, 1).style().bold().set();
+        for (TaxSummaryResponse.TaxByVendor vendor : summary.getByVendor()) {
+            r++;
+            sheet.value(r, 0, vendor.getVendorCount() != null
+                    ? vendor.getVendorName() + " (" + vendor.getVendorCount() + " vendors)"
+                    : vendor.getVendorName());
+            sheet.value(r, 1, vendor.getTaxAmount());
+        }
+        sheet.finish();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Spreadsheets evaluate cells starting with these as formulas; the quote makes them text
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
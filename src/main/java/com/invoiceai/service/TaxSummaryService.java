@@ -1,14 +1,16 @@
 package com.invoiceai.service;
 
 import com.invoiceai.dto.response.TaxSummaryResponse;
-import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.repository.ExpenseDailyRollupRepository;
 import com.invoiceai.security.TenantContext;
+import com.invoiceai.service.cache.OrgCacheRegistry;
+import com.invoiceai.service.cache.PeriodKey;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,31 +18,60 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TaxSummaryService {
 
-    private final ExpenseRepository expenseRepository;
+    // GROUPING() ids returned by ExpenseDailyRollupRepository.taxSummary
+    private static final int BY_CATEGORY = 1;
+    private static final int BY_VENDOR = 2;
+    private static final int TOTAL = 3;
 
-    @Transactional(readOnly = true)
-    public TaxSummaryResponse getTaxSummary(LocalDate dateFrom, LocalDate dateTo) {
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final OrgCacheRegistry caches;
+
+    /**
+     * Total tax with per-category and per-vendor breakdowns. Vendors beyond the top
+     * {@code vendorLimit} are combined into a trailing "Other" entry.
+     */
+    public TaxSummaryResponse getTaxSummary(LocalDate dateFrom, LocalDate dateTo, int vendorLimit) {
         UUID orgId = TenantContext.getCurrentOrgId();
+        return caches.cache(OrgCacheRegistry.TAX_SUMMARY).get(orgId,
+                new PeriodKey("tax", dateFrom, dateTo, vendorLimit, dateFrom, dateTo),
+                () -> loadTaxSummary(orgId, dateFrom, dateTo, vendorLimit));
+    }
+
+    private TaxSummaryResponse loadTaxSummary(UUID orgId, LocalDate dateFrom, LocalDate dateTo, int vendorLimit) {
+        BigDecimal totalTax = BigDecimal.ZERO;
+        List<TaxSummaryResponse.TaxByCategory> byCategory = new ArrayList<>();
+        List<TaxSummaryResponse.TaxByVendor> byVendor = new ArrayList<>();
+        TaxSummaryResponse.TaxByVendor other = null;
 
-        BigDecimal totalTax = expenseRepository.sumTaxByDateRange(orgId, dateFrom, dateTo);
-
-        List<TaxSummaryResponse.TaxByCategory> byCategory = expenseRepository
-                .sumTaxByCategory(orgId, dateFrom, dateTo)
-                .stream()
-                .map(row -> TaxSummaryResponse.TaxByCategory.builder()
-                        .categoryName(row[0] != null ? (String) row[0] : "Uncategorized")
-                        .taxAmount((BigDecimal) row[1])
-                        .build())
-                .toList();
-
-        List<TaxSummaryResponse.TaxByVendor> byVendor = expenseRepository
-                .sumTaxByVendor(orgId, dateFrom, dateTo)
-                .stream()
-                .map(row -> TaxSummaryResponse.TaxByVendor.builder()
-                        .vendorName((String) row[0])
-                        .taxAmount((BigDecimal) row[1])
-                        .build())
-                .toList();
+        for (Object[] row : rollupRepository.taxSummary(orgId, dateFrom, dateTo, vendorLimit)) {
+            int groupingId = ((Number) row[0]).intValue();
+            BigDecimal taxAmount = row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO;
+            switch (groupingId) {
+                case TOTAL -> totalTax = taxAmount;
+                case BY_CATEGORY -> byCategory.add(TaxSummaryResponse.TaxByCategory.builder()
+                        .categoryName(row[1] != null ? (String) row[1] : "Uncategorized")
+                        .taxAmount(taxAmount)
+                        .build());
+                case BY_VENDOR -> {
+                    if (row[2] != null) {
+                        byVendor.add(TaxSummaryResponse.TaxByVendor.builder()
+                                .vendorName((String) row[2])
+                                .taxAmount(taxAmount)
+                                .build());
+                    } else {
+                        other = TaxSummaryResponse.TaxByVendor.builder()
+                                .vendorName("Other")
+                                .taxAmount(taxAmount)
+                                .vendorCount(((Number) row[4]).intValue())
+                                .build();
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected grouping id " + groupingId);
+            }
+        }
+        if (other != null) {
+            byVendor.add(other);
+        }
 
         return TaxSummaryResponse.builder()
                 .totalTax(totalTax)
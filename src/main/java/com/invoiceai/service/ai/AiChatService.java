@@ -1,10 +1,41 @@
 package com.invoiceai.service.ai;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public interface AiChatService {
 
-    String chat(String systemPrompt, List<ChatMessage> conversationHistory);
+    /**
+     * Runs the conversation to a final reply, executing any {@code tools} the model calls
+     * along the way.
+     */
+    String chat(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools);
+
+    /**
+     * Streams the reply, passing each text delta to {@code onToken} as the provider emits it.
+     * Tool calls are executed between rounds as in {@link #chat}. Blocks until the reply is
+     * complete. Interrupting the calling thread, or throwing from {@code onToken}, aborts the
+     * provider request.
+     */
+    void chatStream(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools,
+                    Consumer<String> onToken);
+
+    /**
+     * Approximate number of tokens of conversation history to send with each request; older
+     * turns are folded into a summary (see {@link com.invoiceai.service.AssistantConversationService}).
+     */
+    int historyTokenBudget();
 
     record ChatMessage(String role, String content) {}
+
+    /**
+     * A function the model may call. {@code parameters} is a JSON Schema object describing its
+     * arguments; {@code handler} receives them and returns a JSON-serializable result.
+     */
+    record ChatTool(String name, String description, Map<String, Object> parameters,
+                    Function<JsonNode, Object> handler) {}
 }
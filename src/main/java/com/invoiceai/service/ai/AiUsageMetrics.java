@@ -0,0 +1,31 @@
+package com.invoiceai.service.ai;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exports provider token usage as the {@code ai.tokens} counter, tagged by provider,
+ * operation (chat, extraction) and type (input, cache_read, cache_write, output).
+ * Prompt-cache hit rate is {@code cache_read / input}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AiUsageMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    void record(String provider, String operation, TokenUsage usage) {
+        count(provider, operation, "input", usage.input());
+        count(provider, operation, "cache_read", usage.cacheRead());
+        count(provider, operation, "cache_write", usage.cacheWrite());
+        count(provider, operation, "output", usage.output());
+    }
+
+    private void count(String provider, String operation, String type, long tokens) {
+        if (tokens > 0) {
+            meterRegistry.counter("ai.tokens", "provider", provider, "operation", operation, "type", type)
+                    .increment(tokens);
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package com.invoiceai.service.ai;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.invoiceai.service.ai.ToolLoop.ToolCall;
+import com.invoiceai.service.ai.ToolLoop.Turn;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @ConditionalOnProperty(name = "app.ai.provider", havingValue = "claude")
+@RequiredArgsConstructor
 @Slf4j
 public class ClaudeChatService implements AiChatService {
 
@@ -26,49 +39,158 @@ public class ClaudeChatService implements AiChatService {
     @Value("${app.ai.claude.model}")
     private String model;
 
+    @Value("${app.ai.claude.history-token-budget:16000}")
+    private int historyTokenBudget;
+
+    private final AiUsageMetrics usageMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
     @Override
-    public String chat(String systemPrompt, List<ChatMessage> conversationHistory) {
+    public int historyTokenBudget() {
+        return historyTokenBudget;
+    }
+
+    @Override
+    public String chat(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools) {
         try {
-            List<Map<String, Object>> messages = new ArrayList<>();
-            for (ChatMessage msg : conversationHistory) {
-                messages.add(Map.of(
-                        "role", msg.role(),
-                        "content", msg.content()
-                ));
-            }
+            return converse(systemPrompt, conversationHistory, tools, null);
+        } catch (Exception e) {
+            log.error("Claude chat failed", e);
+            throw new RuntimeException("AI chat failed", e);
+        }
+    }
 
-            Map<String, Object> requestMap = Map.of(
-                    "model", model,
-                    "max_tokens", 1024,
-                    "system", systemPrompt,
-                    "messages", messages
-            );
+    @Override
+    public void chatStream(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools,
+                           Consumer<String> onToken) {
+        try {
+            converse(systemPrompt, conversationHistory, tools, onToken);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("AI chat stream cancelled", e);
+        } catch (Exception e) {
+            throw new RuntimeException("AI chat stream failed", e);
+        }
+    }
 
-            String requestBody = objectMapper.writeValueAsString(requestMap);
+    private String converse(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools,
+                            Consumer<String> onToken) throws Exception {
+        return ToolLoop.run(ClaudeRequests.messages(conversationHistory), tools,
+                messages -> onToken == null
+                        ? send(systemPrompt, messages, tools)
+                        : stream(systemPrompt, messages, tools, onToken),
+                ClaudeRequests::toolResults, objectMapper);
+    }
+
+    private Turn send(String systemPrompt, List<Object> messages, List<ChatTool> tools) throws Exception {
+        HttpRequest request = buildRequest(systemPrompt, messages, tools, false);
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create("https://api.anthropic.com/v1/messages"))
-                    .header("Content-Type", "application/json")
-                    .header("x-api-key", apiKey)
-                    .header("anthropic-version", "2023-06-01")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            log.error("Claude Chat API error: {} - {}", response.statusCode(), response.body());
+            throw new RuntimeException("Claude API returned status " + response.statusCode());
+        }
 
+        JsonNode root = objectMapper.readTree(response.body());
+        usageMetrics.record("claude", "chat", TokenUsage.fromClaude(root.path("usage")));
+        return toTurn(root.path("content"));
+    }
+
+    private Turn stream(String systemPrompt, List<Object> messages, List<ChatTool> tools,
+                        Consumer<String> onToken) throws Exception {
+        HttpRequest request = buildRequest(systemPrompt, messages, tools, true);
+
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+
+        // Closing the body stream cancels the exchange if we stop early
+        try (Stream<String> lines = response.body()) {
             if (response.statusCode() != 200) {
-                log.error("Claude Chat API error: {} - {}", response.statusCode(), response.body());
+                log.error("Claude Chat API error: {} - {}", response.statusCode(), lines.collect(Collectors.joining("\n")));
                 throw new RuntimeException("Claude API returned status " + response.statusCode());
             }
+            TokenUsage usage = TokenUsage.NONE;
+            // Content blocks by index; text and tool input JSON arrive as fragments
+            Map<Integer, ObjectNode> blocks = new TreeMap<>();
+            Map<Integer, StringBuilder> fragments = new HashMap<>();
+            for (String data : (Iterable<String>) ServerSentEvents.data(lines)::iterator) {
+                JsonNode event = objectMapper.readTree(data);
+                int index = event.path("index").asInt();
+                switch (event.path("type").asText()) {
+                    case "message_start" -> usage = TokenUsage.fromClaude(event.at("/message/usage"));
+                    case "message_delta" -> usage = usage.withOutput(event.at("/usage/output_tokens").asLong());
+                    case "content_block_start" -> {
+                        blocks.put(index, event.path("content_block").deepCopy());
+                        fragments.put(index, new StringBuilder());
+                    }
+                    case "content_block_delta" -> {
+                        JsonNode delta = event.path("delta");
+                        switch (delta.path("type").asText()) {
+                            case "text_delta" -> {
+                                String text = delta.path("text").asText("");
+                                fragments.get(index).append(text);
+                                if (!text.isEmpty()) {
+                                    onToken.accept(text);
+                                }
+                            }
+                            case "input_json_delta" -> fragments.get(index).append(delta.path("partial_json").asText(""));
+                            default -> { }
+                        }
+                    }
+                    case "error" -> throw new RuntimeException("Claude stream error: " + event.at("/error/message").asText());
+                    default -> { }
+                }
+            }
+            usageMetrics.record("claude", "chat", usage);
 
-            JsonNode root = objectMapper.readTree(response.body());
-            return root.at("/content/0/text").asText();
-        } catch (Exception e) {
-            log.error("Claude chat failed", e);
-            throw new RuntimeException("AI chat failed", e);
+            ArrayNode content = objectMapper.createArrayNode();
+            blocks.forEach((index, block) -> {
+                String fragment = fragments.get(index).toString();
+                switch (block.path("type").asText()) {
+                    case "text" -> block.put("text", fragment);
+                    case "tool_use" -> block.set("input", readJson(fragment.isEmpty() ? "{}" : fragment));
+                    default -> { }
+                }
+                content.add(block);
+            });
+            return toTurn(content);
+        }
+    }
+
+    private Turn toTurn(JsonNode content) {
+        StringBuilder text = new StringBuilder();
+        List<ToolCall> toolCalls = new ArrayList<>();
+        for (JsonNode block : content) {
+            switch (block.path("type").asText()) {
+                case "text" -> text.append(block.path("text").asText());
+                case "tool_use" -> toolCalls.add(new ToolCall(
+                        block.path("id").asText(), block.path("name").asText(), block.path("input")));
+                default -> { }
+            }
         }
+        return new Turn(text.toString(), toolCalls, Map.of("role", "assistant", "content", content));
+    }
+
+    private JsonNode readJson(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpRequest buildRequest(String systemPrompt, List<Object> messages, List<ChatTool> tools, boolean stream)
+            throws JsonProcessingException {
+        String requestBody = objectMapper.writeValueAsString(
+                ClaudeRequests.chat(model, systemPrompt, messages, tools, stream));
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create("https://api.anthropic.com/v1/messages"))
+                .header("Content-Type", "application/json")
+                .header("x-api-key", apiKey)
+                .header("anthropic-version", "2023-06-01")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
     }
 }
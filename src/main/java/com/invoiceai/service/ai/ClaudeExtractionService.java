@@ -2,6 +2,7 @@ package com.invoiceai.service.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -15,10 +16,10 @@ import java.net.http.HttpResponse;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Service
 @ConditionalOnProperty(name = "app.ai.provider", havingValue = "claude")
+@RequiredArgsConstructor
 @Slf4j
 public class ClaudeExtractionService implements AiExtractionService {
 
@@ -28,6 +29,7 @@ public class ClaudeExtractionService implements AiExtractionService {
     @Value("${app.ai.claude.model}")
     private String model;
 
+    private final AiUsageMetrics usageMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
@@ -41,38 +43,9 @@ public class ClaudeExtractionService implements AiExtractionService {
     public ExtractionResult extract(byte[] fileBytes, String fileType, String fileName) {
         try {
             String base64Data = java.util.Base64.getEncoder().encodeToString(fileBytes);
-            String mediaType = mapMediaType(fileType);
-            boolean isPdf = "application/pdf".equals(fileType);
-
-            // Build the file content block - PDFs use "document" type, images use "image" type
-            Map<String, Object> sourceBlock = Map.of(
-                    "type", "base64",
-                    "media_type", mediaType,
-                    "data", base64Data
-            );
-
-            Map<String, Object> fileBlock = Map.of(
-                    "type", isPdf ? "document" : "image",
-                    "source", sourceBlock
-            );
-
-            Map<String, Object> textBlock = Map.of(
-                    "type", "text",
-                    "text", EXTRACTION_PROMPT
-            );
-
-            Map<String, Object> message = Map.of(
-                    "role", "user",
-                    "content", List.of(fileBlock, textBlock)
-            );
-
-            Map<String, Object> requestMap = Map.of(
-                    "model", model,
-                    "max_tokens", 4096,
-                    "messages", List.of(message)
-            );
-
-            String requestBody = objectMapper.writeValueAsString(requestMap);
+
+            String requestBody = objectMapper.writeValueAsString(
+                    ClaudeRequests.extraction(model, EXTRACTION_PROMPT, mapMediaType(fileType), base64Data));
 
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create("https://api.anthropic.com/v1/messages"))
@@ -98,6 +71,7 @@ public class ClaudeExtractionService implements AiExtractionService {
 
     private ExtractionResult parseClaudeResponse(String responseBody) throws Exception {
         JsonNode root = objectMapper.readTree(responseBody);
+        usageMetrics.record("claude", "extraction", TokenUsage.fromClaude(root.path("usage")));
         String text = root.at("/content/0/text").asText();
 
         // Extract JSON from potential markdown code blocks
@@ -0,0 +1,101 @@
+package com.invoiceai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.invoiceai.service.ai.AiChatService.ChatMessage;
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import com.invoiceai.service.ai.ToolLoop.ToolCall;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request bodies for the Claude Messages API. The stable prefix (assistant system prompt,
+ * extraction instructions) is sent as a system block with a {@code cache_control} breakpoint
+ * so repeat calls read it from the prompt cache instead of reprocessing it.
+ */
+final class ClaudeRequests {
+
+    private static final Map<String, Object> EPHEMERAL = Map.of("type", "ephemeral");
+
+    private ClaudeRequests() {}
+
+    static List<Object> messages(List<ChatMessage> conversationHistory) {
+        List<Object> messages = new ArrayList<>();
+        for (ChatMessage msg : conversationHistory) {
+            messages.add(Map.of(
+                    "role", msg.role(),
+                    "content", msg.content()
+            ));
+        }
+        return messages;
+    }
+
+    /** Tools come before the system block in Claude's cache prefix, so they are cached with it. */
+    static Map<String, Object> chat(String model, String systemPrompt, List<Object> messages, List<ChatTool> tools, boolean stream) {
+        Map<String, Object> requestMap = new HashMap<>(Map.of(
+                "model", model,
+                "max_tokens", 1024,
+                "system", cachedSystem(systemPrompt),
+                "messages", messages,
+                "stream", stream
+        ));
+        if (!tools.isEmpty()) {
+            requestMap.put("tools", tools.stream()
+                    .map(tool -> Map.of(
+                            "name", tool.name(),
+                            "description", tool.description(),
+                            "input_schema", tool.parameters()))
+                    .toList());
+        }
+        return requestMap;
+    }
+
+    /** All results go back in a single user message, one tool_result block per call. */
+    static List<Object> toolResults(List<ToolCall> calls, List<JsonNode> results) {
+        List<Map<String, Object>> blocks = new ArrayList<>();
+        for (int i = 0; i < calls.size(); i++) {
+            blocks.add(Map.of(
+                    "type", "tool_result",
+                    "tool_use_id", calls.get(i).id(),
+                    "content", results.get(i).toString()
+            ));
+        }
+        return List.of(Map.of("role", "user", "content", blocks));
+    }
+
+    /** PDFs use a "document" block, images an "image" block; the instructions come first as the cached prefix. */
+    static Map<String, Object> extraction(String model, String prompt, String mediaType, String base64Data) {
+        Map<String, Object> sourceBlock = Map.of(
+                "type", "base64",
+                "media_type", mediaType,
+                "data", base64Data
+        );
+
+        Map<String, Object> fileBlock = Map.of(
+                "type", "application/pdf".equals(mediaType) ? "document" : "image",
+                "source", sourceBlock
+        );
+
+        Map<String, Object> message = Map.of(
+                "role", "user",
+                "content", List.of(fileBlock)
+        );
+
+        return Map.of(
+                "model", model,
+                "max_tokens", 4096,
+                "system", cachedSystem(prompt),
+                "messages", List.of(message)
+        );
+    }
+
+    private static List<Map<String, Object>> cachedSystem(String text) {
+        return List.of(Map.of(
+                "type", "text",
+                "text", text,
+                "cache_control", EPHEMERAL
+        ));
+    }
+}
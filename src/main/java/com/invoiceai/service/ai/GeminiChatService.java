@@ -1,7 +1,12 @@
 package com.invoiceai.service.ai;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.invoiceai.service.ai.ToolLoop.ToolCall;
+import com.invoiceai.service.ai.ToolLoop.Turn;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -14,9 +19,13 @@ import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @ConditionalOnProperty(name = "app.ai.provider", havingValue = "gemini", matchIfMissing = true)
+@RequiredArgsConstructor
 @Slf4j
 public class GeminiChatService implements AiChatService {
 
@@ -26,51 +35,129 @@ public class GeminiChatService implements AiChatService {
     @Value("${app.ai.gemini.model}")
     private String model;
 
+    @Value("${app.ai.gemini.history-token-budget:16000}")
+    private int historyTokenBudget;
+
+    private final GeminiContextCache contextCache;
+    private final AiUsageMetrics usageMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
     @Override
-    public String chat(String systemPrompt, List<ChatMessage> conversationHistory) {
+    public int historyTokenBudget() {
+        return historyTokenBudget;
+    }
+
+    @Override
+    public String chat(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools) {
         try {
-            List<Map<String, Object>> contents = new ArrayList<>();
-            for (ChatMessage msg : conversationHistory) {
-                String role = "assistant".equals(msg.role()) ? "model" : "user";
-                contents.add(Map.of(
-                        "role", role,
-                        "parts", List.of(Map.of("text", msg.content()))
-                ));
-            }
+            return converse(systemPrompt, conversationHistory, tools, null);
+        } catch (Exception e) {
+            log.error("Gemini chat failed", e);
+            throw new RuntimeException("AI chat failed", e);
+        }
+    }
+
+    @Override
+    public void chatStream(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools,
+                           Consumer<String> onToken) {
+        try {
+            converse(systemPrompt, conversationHistory, tools, onToken);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("AI chat stream cancelled", e);
+        } catch (Exception e) {
+            throw new RuntimeException("AI chat stream failed", e);
+        }
+    }
 
-            Map<String, Object> requestMap = Map.of(
-                    "system_instruction", Map.of(
-                            "parts", List.of(Map.of("text", systemPrompt))
-                    ),
-                    "contents", contents
-            );
+    private String converse(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools,
+                            Consumer<String> onToken) throws Exception {
+        String cachedContent = contextCache.handleFor(systemPrompt, tools);
+        return ToolLoop.run(GeminiRequests.contents(conversationHistory), tools,
+                contents -> onToken == null
+                        ? send(systemPrompt, cachedContent, contents, tools)
+                        : stream(systemPrompt, cachedContent, contents, tools, onToken),
+                GeminiRequests::toolResults, objectMapper);
+    }
+
+    private Turn send(String systemPrompt, String cachedContent, List<Object> contents, List<ChatTool> tools)
+            throws Exception {
+        HttpRequest request = buildRequest(systemPrompt, cachedContent, contents, tools, false);
 
-            String requestBody = objectMapper.writeValueAsString(requestMap);
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() != 200) {
+            log.error("Gemini Chat API error: {} - {}", response.statusCode(), response.body());
+            throw new RuntimeException("Gemini API returned status " + response.statusCode());
+        }
 
-            String url = "https://generativelanguage.googleapis.com/v1beta/models/"
-                    + model + ":generateContent?key=" + apiKey;
+        JsonNode root = objectMapper.readTree(response.body());
+        usageMetrics.record("gemini", "chat", TokenUsage.fromGemini(root.path("usageMetadata")));
+        return toTurn(root.at("/candidates/0/content/parts"));
+    }
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
+    private Turn stream(String systemPrompt, String cachedContent, List<Object> contents, List<ChatTool> tools,
+                        Consumer<String> onToken) throws Exception {
+        HttpRequest request = buildRequest(systemPrompt, cachedContent, contents, tools, true);
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
 
+        // Closing the body stream cancels the exchange if we stop early
+        try (Stream<String> lines = response.body()) {
             if (response.statusCode() != 200) {
-                log.error("Gemini Chat API error: {} - {}", response.statusCode(), response.body());
+                log.error("Gemini Chat API error: {} - {}", response.statusCode(), lines.collect(Collectors.joining("\n")));
                 throw new RuntimeException("Gemini API returned status " + response.statusCode());
             }
+            TokenUsage usage = TokenUsage.NONE;
+            ArrayNode parts = objectMapper.createArrayNode();
+            for (String data : (Iterable<String>) ServerSentEvents.data(lines)::iterator) {
+                JsonNode chunk = objectMapper.readTree(data);
+                // Each chunk carries the running totals
+                if (chunk.has("usageMetadata")) {
+                    usage = TokenUsage.fromGemini(chunk.path("usageMetadata"));
+                }
+                for (JsonNode part : chunk.at("/candidates/0/content/parts")) {
+                    parts.add(part);
+                    String text = part.path("text").asText("");
+                    if (!text.isEmpty()) {
+                        onToken.accept(text);
+                    }
+                }
+            }
+            usageMetrics.record("gemini", "chat", usage);
+            return toTurn(parts);
+        }
+    }
 
-            JsonNode root = objectMapper.readTree(response.body());
-            return root.at("/candidates/0/content/parts/0/text").asText();
-        } catch (Exception e) {
-            log.error("Gemini chat failed", e);
-            throw new RuntimeException("AI chat failed", e);
+    /** Parts are echoed back verbatim so any thought signatures on function calls survive. */
+    private static Turn toTurn(JsonNode parts) {
+        StringBuilder text = new StringBuilder();
+        List<ToolCall> toolCalls = new ArrayList<>();
+        for (JsonNode part : parts) {
+            if (part.has("functionCall")) {
+                JsonNode call = part.path("functionCall");
+                toolCalls.add(new ToolCall(call.hasNonNull("id") ? call.path("id").asText() : null,
+                        call.path("name").asText(), call.path("args")));
+            } else {
+                text.append(part.path("text").asText(""));
+            }
         }
+        return new Turn(text.toString(), toolCalls, Map.of("role", "model", "parts", parts));
+    }
+
+    private HttpRequest buildRequest(String systemPrompt, String cachedContent, List<Object> contents,
+                                     List<ChatTool> tools, boolean stream) throws JsonProcessingException {
+        String requestBody = objectMapper.writeValueAsString(
+                GeminiRequests.chat(systemPrompt, cachedContent, contents, tools));
+
+        String url = "https://generativelanguage.googleapis.com/v1beta/models/" + model
+                + (stream ? ":streamGenerateContent?alt=sse&key=" : ":generateContent?key=") + apiKey;
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
     }
 }
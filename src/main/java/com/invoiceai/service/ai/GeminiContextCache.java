@@ -0,0 +1,113 @@
+package com.invoiceai.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Gemini context-cache handles ({@code cachedContents/...}) for system prompts and their
+ * tools, created on first use and reused until shortly before they expire server-side.
+ * Prompts estimated below Gemini's minimum cacheable size are sent inline without asking.
+ * Prompts Gemini still rejects (400) are remembered for the same period and sent inline;
+ * other failures are retried on the next call.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ai.provider", havingValue = "gemini", matchIfMissing = true)
+@Slf4j
+public class GeminiContextCache {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final String apiKey;
+    private final String model;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int minTokens;
+    private final Cache<String, Optional<String>> handles;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    public GeminiContextCache(
+            @Value("${app.ai.gemini.api-key}") String apiKey,
+            @Value("${app.ai.gemini.model}") String model,
+            @Value("${app.ai.gemini.context-cache.enabled:true}") boolean enabled,
+            @Value("${app.ai.gemini.context-cache.ttl-minutes:30}") long ttlMinutes,
+            @Value("${app.ai.gemini.context-cache.min-tokens:4096}") int minTokens) {
+        this.apiKey = apiKey;
+        this.model = model;
+        this.enabled = enabled;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.minTokens = minTokens;
+        // Drop handles a minute early so a request never references an expired cache
+        this.handles = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(ttl.minusMinutes(1))
+                .build();
+    }
+
+    /** Handle to pass as {@code cachedContent}, or null to send the prompt and tools inline. */
+    String handleFor(String systemPrompt, List<ChatTool> tools) {
+        if (!enabled || estimateTokens(systemPrompt, tools) < minTokens) {
+            return null;
+        }
+        // Tool declarations are fixed per name, so the names identify them
+        String key = tools.stream().map(ChatTool::name).collect(Collectors.joining(",", "[", "]")) + systemPrompt;
+        Optional<String> handle = handles.get(key, k -> create(systemPrompt, tools));
+        return handle != null ? handle.orElse(null) : null;
+    }
+
+    /** Rough size of the cached content: about four characters per token, tools included. */
+    static int estimateTokens(String systemPrompt, List<ChatTool> tools) {
+        long chars = systemPrompt.length();
+        for (ChatTool tool : tools) {
+            chars += tool.name().length() + tool.description().length() + tool.parameters().toString().length();
+        }
+        return (int) (chars / CHARS_PER_TOKEN);
+    }
+
+    /** Empty when Gemini rejects the prompt; null (not cached) on transient failures. */
+    private Optional<String> create(String systemPrompt, List<ChatTool> tools) {
+        try {
+            String requestBody = objectMapper.writeValueAsString(GeminiRequests.cachedContent(model, systemPrompt, tools, ttl));
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("https://generativelanguage.googleapis.com/v1beta/cachedContents?key=" + apiKey))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() == 400) {
+                log.debug("Gemini declined context cache: {}", response.body());
+                return Optional.empty();
+            }
+            if (response.statusCode() != 200) {
+                log.warn("Gemini context cache error: {} - {}", response.statusCode(), response.body());
+                return null;
+            }
+            return Optional.of(objectMapper.readTree(response.body()).path("name").asText());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("Gemini context cache creation failed", e);
+            return null;
+        }
+    }
+}
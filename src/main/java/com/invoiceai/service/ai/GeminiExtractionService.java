@@ -2,6 +2,7 @@ package com.invoiceai.service.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -19,6 +20,7 @@ import java.util.List;
 
 @Service
 @ConditionalOnProperty(name = "app.ai.provider", havingValue = "gemini", matchIfMissing = true)
+@RequiredArgsConstructor
 @Slf4j
 public class GeminiExtractionService implements AiExtractionService {
 
@@ -28,6 +30,8 @@ public class GeminiExtractionService implements AiExtractionService {
     @Value("${app.ai.gemini.model}")
     private String model;
 
+    private final GeminiContextCache contextCache;
+    private final AiUsageMetrics usageMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
@@ -54,28 +58,8 @@ public class GeminiExtractionService implements AiExtractionService {
         try {
             String base64Data = Base64.getEncoder().encodeToString(fileBytes);
 
-            String mimeType = fileType;
-
-            String requestBody = objectMapper.writeValueAsString(new Object() {
-                public final Object[] contents = new Object[]{
-                    new Object() {
-                        public final Object[] parts = new Object[]{
-                            new Object() {
-                                public final String text = EXTRACTION_PROMPT;
-                            },
-                            new Object() {
-                                public final Object inline_data = new Object() {
-                                    public final String mime_type = mimeType;
-                                    public final String data = base64Data;
-                                };
-                            }
-                        };
-                    }
-                };
-                public final Object generationConfig = new Object() {
-                    public final String responseMimeType = "application/json";
-                };
-            });
+            String requestBody = objectMapper.writeValueAsString(GeminiRequests.extraction(
+                    EXTRACTION_PROMPT, contextCache.handleFor(EXTRACTION_PROMPT, List.of()), fileType, base64Data));
 
             String url = "https://generativelanguage.googleapis.com/v1beta/models/" + model + ":generateContent?key=" + apiKey;
 
@@ -101,6 +85,7 @@ public class GeminiExtractionService implements AiExtractionService {
 
     private ExtractionResult parseGeminiResponse(String responseBody) throws Exception {
         JsonNode root = objectMapper.readTree(responseBody);
+        usageMetrics.record("gemini", "extraction", TokenUsage.fromGemini(root.path("usageMetadata")));
         String text = root.at("/candidates/0/content/parts/0/text").asText();
 
         JsonNode data = objectMapper.readTree(text);
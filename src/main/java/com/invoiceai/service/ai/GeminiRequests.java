@@ -0,0 +1,104 @@
+package com.invoiceai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.invoiceai.service.ai.AiChatService.ChatMessage;
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import com.invoiceai.service.ai.ToolLoop.ToolCall;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request bodies for the Gemini API. The system instruction (and tools) are either inlined or,
+ * when {@code cachedContent} names a context cache created by {@link GeminiContextCache},
+ * referenced by handle so Gemini does not reprocess them.
+ */
+final class GeminiRequests {
+
+    private GeminiRequests() {}
+
+    static List<Object> contents(List<ChatMessage> conversationHistory) {
+        List<Object> contents = new ArrayList<>();
+        for (ChatMessage msg : conversationHistory) {
+            String role = "assistant".equals(msg.role()) ? "model" : "user";
+            contents.add(Map.of(
+                    "role", role,
+                    "parts", List.of(Map.of("text", msg.content()))
+            ));
+        }
+        return contents;
+    }
+
+    /** With a cache handle the tools live in the cached content; Gemini rejects them repeated here. */
+    static Map<String, Object> chat(String systemPrompt, String cachedContent, List<Object> contents, List<ChatTool> tools) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("contents", contents);
+        withSystemPrompt(requestMap, systemPrompt, cachedContent);
+        if (cachedContent == null && !tools.isEmpty()) {
+            requestMap.put("tools", toolDeclarations(tools));
+        }
+        return requestMap;
+    }
+
+    /** All results go back in a single user turn, one functionResponse part per call. */
+    static List<Object> toolResults(List<ToolCall> calls, List<JsonNode> results) {
+        List<Map<String, Object>> parts = new ArrayList<>();
+        for (int i = 0; i < calls.size(); i++) {
+            Map<String, Object> functionResponse = new HashMap<>();
+            functionResponse.put("name", calls.get(i).name());
+            // response must be an object, so wrap arrays and scalars
+            functionResponse.put("response", Map.of("result", results.get(i)));
+            if (calls.get(i).id() != null) {
+                functionResponse.put("id", calls.get(i).id());
+            }
+            parts.add(Map.of("functionResponse", functionResponse));
+        }
+        return List.of(Map.of("role", "user", "parts", parts));
+    }
+
+    static Map<String, Object> extraction(String prompt, String cachedContent, String mimeType, String base64Data) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("contents", List.of(Map.of(
+                "role", "user",
+                "parts", List.of(Map.of("inline_data", Map.of(
+                        "mime_type", mimeType,
+                        "data", base64Data
+                )))
+        )));
+        requestMap.put("generationConfig", Map.of("responseMimeType", "application/json"));
+        withSystemPrompt(requestMap, prompt, cachedContent);
+        return requestMap;
+    }
+
+    static Map<String, Object> cachedContent(String model, String systemPrompt, List<ChatTool> tools, Duration ttl) {
+        Map<String, Object> requestMap = new HashMap<>(Map.of(
+                "model", "models/" + model,
+                "systemInstruction", Map.of("parts", List.of(Map.of("text", systemPrompt))),
+                "ttl", ttl.toSeconds() + "s"
+        ));
+        if (!tools.isEmpty()) {
+            requestMap.put("tools", toolDeclarations(tools));
+        }
+        return requestMap;
+    }
+
+    private static List<Map<String, Object>> toolDeclarations(List<ChatTool> tools) {
+        return List.of(Map.of("functionDeclarations", tools.stream()
+                .map(tool -> Map.of(
+                        "name", tool.name(),
+                        "description", tool.description(),
+                        "parameters", tool.parameters()))
+                .toList()));
+    }
+
+    private static void withSystemPrompt(Map<String, Object> requestMap, String systemPrompt, String cachedContent) {
+        if (cachedContent != null) {
+            requestMap.put("cachedContent", cachedContent);
+        } else {
+            requestMap.put("system_instruction", Map.of("parts", List.of(Map.of("text", systemPrompt))));
+        }
+    }
+}
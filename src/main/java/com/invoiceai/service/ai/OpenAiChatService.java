@@ -1,22 +1,33 @@
 package com.invoiceai.service.ai;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoiceai.service.ai.ToolLoop.ToolCall;
+import com.invoiceai.service.ai.ToolLoop.Turn;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @ConditionalOnProperty(name = "app.ai.provider", havingValue = "openai")
+@RequiredArgsConstructor
 @Slf4j
 public class OpenAiChatService implements AiChatService {
 
@@ -26,49 +37,193 @@ public class OpenAiChatService implements AiChatService {
     @Value("${app.ai.openai.model}")
     private String model;
 
+    @Value("${app.ai.openai.history-token-budget:12000}")
+    private int historyTokenBudget;
+
+    private final AiUsageMetrics usageMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
     @Override
-    public String chat(String systemPrompt, List<ChatMessage> conversationHistory) {
+    public int historyTokenBudget() {
+        return historyTokenBudget;
+    }
+
+    @Override
+    public String chat(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools) {
         try {
-            List<Map<String, Object>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", systemPrompt));
-
-            for (ChatMessage msg : conversationHistory) {
-                messages.add(Map.of(
-                        "role", msg.role(),
-                        "content", msg.content()
-                ));
-            }
+            return converse(systemPrompt, conversationHistory, tools, null);
+        } catch (Exception e) {
+            log.error("OpenAI chat failed", e);
+            throw new RuntimeException("AI chat failed", e);
+        }
+    }
+
+    @Override
+    public void chatStream(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools,
+                           Consumer<String> onToken) {
+        try {
+            converse(systemPrompt, conversationHistory, tools, onToken);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("AI chat stream cancelled", e);
+        } catch (Exception e) {
+            throw new RuntimeException("AI chat stream failed", e);
+        }
+    }
+
+    private String converse(String systemPrompt, List<ChatMessage> conversationHistory, List<ChatTool> tools,
+                            Consumer<String> onToken) throws Exception {
+        // System prompt first: OpenAI caches repeated prompt prefixes automatically
+        List<Object> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", systemPrompt));
+        for (ChatMessage msg : conversationHistory) {
+            messages.add(Map.of(
+                    "role", msg.role(),
+                    "content", msg.content()
+            ));
+        }
+
+        return ToolLoop.run(messages, tools,
+                turnMessages -> onToken == null
+                        ? send(turnMessages, tools)
+                        : stream(turnMessages, tools, onToken),
+                OpenAiChatService::toolResults, objectMapper);
+    }
+
+    private Turn send(List<Object> messages, List<ChatTool> tools) throws Exception {
+        HttpRequest request = buildRequest(messages, tools, false);
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() != 200) {
+            log.error("OpenAI Chat API error: {} - {}", response.statusCode(), response.body());
+            throw new RuntimeException("OpenAI API returned status " + response.statusCode());
+        }
 
-            Map<String, Object> requestMap = Map.of(
-                    "model", model,
-                    "max_tokens", 1024,
-                    "messages", messages
-            );
+        JsonNode root = objectMapper.readTree(response.body());
+        usageMetrics.record("openai", "chat", TokenUsage.fromOpenAi(root.path("usage")));
 
-            String requestBody = objectMapper.writeValueAsString(requestMap);
+        JsonNode message = root.at("/choices/0/message");
+        List<ToolCall> toolCalls = new ArrayList<>();
+        for (JsonNode call : message.path("tool_calls")) {
+            toolCalls.add(new ToolCall(call.path("id").asText(), call.at("/function/name").asText(),
+                    readArguments(call.at("/function/arguments").asText())));
+        }
+        return toTurn(message.path("content").asText(""), toolCalls);
+    }
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create("https://api.openai.com/v1/chat/completions"))
-                    .header("Content-Type", "application/json")
-                    .header("Authorization", "Bearer " + apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
+    private Turn stream(List<Object> messages, List<ChatTool> tools, Consumer<String> onToken) throws Exception {
+        HttpRequest request = buildRequest(messages, tools, true);
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
 
+        // Closing the body stream cancels the exchange if we stop early
+        try (Stream<String> lines = response.body()) {
             if (response.statusCode() != 200) {
-                log.error("OpenAI Chat API error: {} - {}", response.statusCode(), response.body());
+                log.error("OpenAI Chat API error: {} - {}", response.statusCode(), lines.collect(Collectors.joining("\n")));
                 throw new RuntimeException("OpenAI API returned status " + response.statusCode());
             }
+            StringBuilder text = new StringBuilder();
+            // Tool calls by index: id and name arrive first, arguments as JSON fragments
+            Map<Integer, PendingCall> pendingCalls = new TreeMap<>();
+            for (String data : (Iterable<String>) ServerSentEvents.data(lines)::iterator) {
+                if ("[DONE]".equals(data)) {
+                    break;
+                }
+                JsonNode chunk = objectMapper.readTree(data);
+                // Sent on a final chunk with no choices when include_usage is set
+                if (chunk.hasNonNull("usage")) {
+                    usageMetrics.record("openai", "chat", TokenUsage.fromOpenAi(chunk.path("usage")));
+                }
+                JsonNode delta = chunk.at("/choices/0/delta");
+                String content = delta.path("content").asText("");
+                if (!content.isEmpty()) {
+                    text.append(content);
+                    onToken.accept(content);
+                }
+                for (JsonNode call : delta.path("tool_calls")) {
+                    PendingCall pending = pendingCalls.computeIfAbsent(call.path("index").asInt(),
+                            index -> new PendingCall(call.path("id").asText(), call.at("/function/name").asText(), new StringBuilder()));
+                    pending.arguments().append(call.at("/function/arguments").asText(""));
+                }
+            }
 
-            JsonNode root = objectMapper.readTree(response.body());
-            return root.at("/choices/0/message/content").asText();
-        } catch (Exception e) {
-            log.error("OpenAI chat failed", e);
-            throw new RuntimeException("AI chat failed", e);
+            List<ToolCall> toolCalls = new ArrayList<>();
+            for (PendingCall pending : pendingCalls.values()) {
+                toolCalls.add(new ToolCall(pending.id(), pending.name(), readArguments(pending.arguments().toString())));
+            }
+            return toTurn(text.toString(), toolCalls);
+        }
+    }
+
+    private record PendingCall(String id, String name, StringBuilder arguments) {}
+
+    /** The assistant message is rebuilt so only fields the API accepts on input are echoed back. */
+    private static Turn toTurn(String text, List<ToolCall> toolCalls) {
+        Map<String, Object> assistantMessage = new HashMap<>();
+        assistantMessage.put("role", "assistant");
+        assistantMessage.put("content", text.isEmpty() ? null : text);
+        if (!toolCalls.isEmpty()) {
+            assistantMessage.put("tool_calls", toolCalls.stream()
+                    .map(call -> Map.of(
+                            "id", call.id(),
+                            "type", "function",
+                            "function", Map.of("name", call.name(), "arguments", call.arguments().toString())))
+                    .toList());
+        }
+        return new Turn(text, toolCalls, assistantMessage);
+    }
+
+    private static List<Object> toolResults(List<ToolCall> calls, List<JsonNode> results) {
+        List<Object> messages = new ArrayList<>();
+        for (int i = 0; i < calls.size(); i++) {
+            messages.add(Map.of(
+                    "role", "tool",
+                    "tool_call_id", calls.get(i).id(),
+                    "content", results.get(i).toString()
+            ));
+        }
+        return messages;
+    }
+
+    private JsonNode readArguments(String arguments) {
+        try {
+            return objectMapper.readTree(arguments.isBlank() ? "{}" : arguments);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
         }
     }
+
+    private HttpRequest buildRequest(List<Object> messages, List<ChatTool> tools, boolean stream)
+            throws JsonProcessingException {
+        Map<String, Object> requestMap = new HashMap<>(Map.of(
+                "model", model,
+                "max_tokens", 1024,
+                "messages", messages,
+                "stream", stream
+        ));
+        if (stream) {
+            requestMap.put("stream_options", Map.of("include_usage", true));
+        }
+        if (!tools.isEmpty()) {
+            requestMap.put("tools", tools.stream()
+                    .map(tool -> Map.of(
+                            "type", "function",
+                            "function", Map.of(
+                                    "name", tool.name(),
+                                    "description", tool.description(),
+                                    "parameters", tool.parameters())))
+                    .toList());
+        }
+
+        String requestBody = objectMapper.writeValueAsString(requestMap);
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create("https://api.openai.com/v1/chat/completions"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
+    }
 }
@@ -2,6 +2,7 @@ package com.invoiceai.service.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -19,6 +20,7 @@ import java.util.List;
 
 @Service
 @ConditionalOnProperty(name = "app.ai.provider", havingValue = "openai")
+@RequiredArgsConstructor
 @Slf4j
 public class OpenAiExtractionService implements AiExtractionService {
 
@@ -28,6 +30,7 @@ public class OpenAiExtractionService implements AiExtractionService {
     @Value("${app.ai.openai.model}")
     private String model;
 
+    private final AiUsageMetrics usageMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
@@ -83,6 +86,7 @@ public class OpenAiExtractionService implements AiExtractionService {
 
     private ExtractionResult parseResponse(String responseBody) throws Exception {
         JsonNode root = objectMapper.readTree(responseBody);
+        usageMetrics.record("openai", "extraction", TokenUsage.fromOpenAi(root.path("usage")));
         String text = root.at("/choices/0/message/content").asText();
         JsonNode data = objectMapper.readTree(text);
 
@@ -0,0 +1,19 @@
+package com.invoiceai.service.ai;
+
+import java.util.stream.Stream;
+
+/**
+ * Minimal reader for the SSE bodies returned by the providers' streaming endpoints.
+ * All three send one JSON object per {@code data:} line.
+ */
+final class ServerSentEvents {
+
+    private ServerSentEvents() {}
+
+    static Stream<String> data(Stream<String> lines) {
+        return lines
+                .filter(line -> line.startsWith("data:"))
+                .map(line -> line.substring(5).trim())
+                .filter(data -> !data.isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.invoiceai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Token counts reported by a provider for one call. {@code input} is the whole prompt;
+ * {@code cacheRead} is the part of it served from the provider's prompt cache and
+ * {@code cacheWrite} the part written to it.
+ */
+record TokenUsage(long input, long cacheRead, long cacheWrite, long output) {
+
+    static final TokenUsage NONE = new TokenUsage(0, 0, 0, 0);
+
+    /** Claude's {@code input_tokens} excludes cached tokens, so they are added back. */
+    static TokenUsage fromClaude(JsonNode usage) {
+        long cacheRead = usage.path("cache_read_input_tokens").asLong();
+        long cacheWrite = usage.path("cache_creation_input_tokens").asLong();
+        return new TokenUsage(
+                usage.path("input_tokens").asLong() + cacheRead + cacheWrite,
+                cacheRead,
+                cacheWrite,
+                usage.path("output_tokens").asLong());
+    }
+
+    static TokenUsage fromOpenAi(JsonNode usage) {
+        return new TokenUsage(
+                usage.path("prompt_tokens").asLong(),
+                usage.at("/prompt_tokens_details/cached_tokens").asLong(),
+                0,
+                usage.path("completion_tokens").asLong());
+    }
+
+    static TokenUsage fromGemini(JsonNode usageMetadata) {
+        return new TokenUsage(
+                usageMetadata.path("promptTokenCount").asLong(),
+                usageMetadata.path("cachedContentTokenCount").asLong(),
+                0,
+                usageMetadata.path("candidatesTokenCount").asLong());
+    }
+
+    TokenUsage withOutput(long output) {
+        return new TokenUsage(input, cacheRead, cacheWrite, output);
+    }
+}
@@ -0,0 +1,74 @@
+package com.invoiceai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provider-neutral tool-calling loop: send the conversation, run any tools the model asks
+ * for, append the calls and their results in the provider's message format, and repeat until
+ * the model answers in text.
+ */
+@Slf4j
+final class ToolLoop {
+
+    static final int MAX_TOOL_ROUNDS = 5;
+
+    private ToolLoop() {}
+
+    record ToolCall(String id, String name, JsonNode arguments) {}
+
+    /** One model response: its text, requested tool calls, and the message to echo back. */
+    record Turn(String text, List<ToolCall> toolCalls, Object assistantMessage) {}
+
+    @FunctionalInterface
+    interface TurnSender {
+        Turn send(List<Object> messages) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface ResultFormatter {
+        List<Object> format(List<ToolCall> calls, List<JsonNode> results);
+    }
+
+    /** Returns the final reply text. {@code messages} is extended in place. */
+    static String run(List<Object> messages, List<ChatTool> tools, TurnSender sender,
+                      ResultFormatter formatter, ObjectMapper objectMapper) throws Exception {
+        for (int round = 0; round <= MAX_TOOL_ROUNDS; round++) {
+            Turn turn = sender.send(messages);
+            if (turn.toolCalls().isEmpty()) {
+                return turn.text();
+            }
+            List<JsonNode> results = new ArrayList<>(turn.toolCalls().size());
+            for (ToolCall call : turn.toolCalls()) {
+                results.add(invoke(tools, call, objectMapper));
+            }
+            messages.add(turn.assistantMessage());
+            messages.addAll(formatter.format(turn.toolCalls(), results));
+        }
+        throw new IllegalStateException("Model kept calling tools after " + MAX_TOOL_ROUNDS + " rounds");
+    }
+
+    /** Tool failures are reported back to the model rather than failing the conversation. */
+    private static JsonNode invoke(List<ChatTool> tools, ToolCall call, ObjectMapper objectMapper) {
+        ChatTool tool = tools.stream()
+                .filter(t -> t.name().equals(call.name()))
+                .findFirst()
+                .orElse(null);
+        if (tool == null) {
+            return objectMapper.valueToTree(Map.of("error", "Unknown tool: " + call.name()));
+        }
+        try {
+            return objectMapper.valueToTree(tool.handler().apply(call.arguments()));
+        } catch (Exception e) {
+            log.debug("Tool {} failed for arguments {}", call.name(), call.arguments(), e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return objectMapper.valueToTree(Map.of("error", message));
+        }
+    }
+}
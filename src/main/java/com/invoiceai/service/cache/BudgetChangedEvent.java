@@ -0,0 +1,8 @@
+package com.invoiceai.service.cache;
+
+import java.util.UUID;
+
+/**
+ * Published when a budget is created, updated or deleted.
+ */
+public record BudgetChangedEvent(UUID orgId) {}
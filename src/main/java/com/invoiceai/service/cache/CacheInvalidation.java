@@ -0,0 +1,15 @@
+package com.invoiceai.service.cache;
+
+import java.util.UUID;
+
+/**
+ * A request to drop cached entries. A null {@code key} drops everything the org has in
+ * {@code cacheName}; a null {@code orgId} drops the whole cache. What a non-null key covers is up
+ * to the cache's handler.
+ */
+public record CacheInvalidation(UUID orgId, String cacheName, String key) {
+
+    public static CacheInvalidation org(UUID orgId, String cacheName) {
+        return new CacheInvalidation(orgId, cacheName, null);
+    }
+}
@@ -0,0 +1,125 @@
+package com.invoiceai.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps in-process caches coherent across replicas. Invalidations are sent with
+ * {@code pg_notify} on the caller's connection, so Postgres delivers them to the other nodes
+ * only if the surrounding transaction commits; this node evicts after commit.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    static final String CHANNEL = "cache_invalidation";
+
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private record Message(UUID node, UUID org, String cache, String key) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final List<CacheInvalidationHandler> handlers;
+    private final boolean enabled;
+    private final UUID nodeId = UUID.randomUUID();
+
+    public CacheInvalidationBus(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            List<CacheInvalidationHandler> handlers,
+            @Value("${app.cache.bus.enabled:true}") boolean enabled,
+            @Value("${spring.datasource.url}") String datasourceUrl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.handlers = handlers;
+        this.enabled = enabled && datasourceUrl.startsWith("jdbc:postgresql:");
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Evicts on this node after commit (immediately outside a transaction) and on every other node.
+     */
+    public void invalidate(CacheInvalidation invalidation) {
+        notifyReplicas(invalidation);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyLocally(invalidation);
+                }
+            });
+        } else {
+            applyLocally(invalidation);
+        }
+    }
+
+    /**
+     * Evicts on the other nodes only, for caches this node has already updated in place.
+     */
+    public void invalidateReplicas(CacheInvalidation invalidation) {
+        notifyReplicas(invalidation);
+    }
+
+    /** Drops everything cached on this node, e.g. when invalidations may have been missed. */
+    public void invalidateAllLocally() {
+        for (CacheInvalidationHandler handler : handlers) {
+            handler.invalidateAll();
+        }
+    }
+
+    void receive(String payload) {
+        Message message;
+        try {
+            message = objectMapper.readValue(payload, Message.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload);
+            return;
+        }
+        if (!nodeId.equals(message.node())) {
+            applyLocally(new CacheInvalidation(message.org(), message.cache(), message.key()));
+        }
+    }
+
+    private void applyLocally(CacheInvalidation invalidation) {
+        for (CacheInvalidationHandler handler : handlers) {
+            handler.invalidate(invalidation);
+        }
+    }
+
+    private void notifyReplicas(CacheInvalidation invalidation) {
+        if (!enabled) {
+            return;
+        }
+        String payload = toPayload(invalidation.key(), invalidation);
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            // Too many keys to fit: widen to the org's whole cache
+            payload = toPayload(null, invalidation);
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", (RowCallbackHandler) rs -> { }, CHANNEL, payload);
+    }
+
+    private String toPayload(String key, CacheInvalidation invalidation) {
+        try {
+            return objectMapper.writeValueAsString(
+                    new Message(nodeId, invalidation.orgId(), invalidation.cacheName(), key));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize cache invalidation", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.invoiceai.service.cache;
+
+/**
+ * Implemented by components holding in-process state that {@link CacheInvalidationBus} may need
+ * to evict. Handlers ignore invalidations for cache names they don't own.
+ */
+public interface CacheInvalidationHandler {
+
+    void invalidate(CacheInvalidation invalidation);
+
+    void invalidateAll();
+}
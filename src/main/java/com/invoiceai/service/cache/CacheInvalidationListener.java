@@ -0,0 +1,121 @@
+package com.invoiceai.service.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds a dedicated (non-pooled) connection that LISTENs for invalidations from other replicas.
+ * Notifications sent while the connection is down are lost, so every (re)connect flushes all
+ * local caches before resuming.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationListener {
+
+    private static final int POLL_TIMEOUT_MS = 5_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final CacheInvalidationBus bus;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public CacheInvalidationListener(
+            CacheInvalidationBus bus,
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password) {
+        this.bus = bus;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!bus.isEnabled()) {
+            log.info("Cache invalidation bus disabled — caches are local to this node");
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "cache-invalidation-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        closeQuietly(connection);
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        long backoffMs = 1_000;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(url, username, password)) {
+                connection = conn;
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute("LISTEN " + CacheInvalidationBus.CHANNEL);
+                }
+                bus.invalidateAllLocally();
+                log.info("Listening for cache invalidations");
+                backoffMs = 1_000;
+
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            try {
+                                bus.receive(notification.getParameter());
+                            } catch (RuntimeException e) {
+                                log.error("Failed to apply cache invalidation {}", notification.getParameter(), e);
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener disconnected, retrying in {} ms: {}", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // shutting down
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.invoiceai.service.cache;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Published when expenses are created, edited, reviewed or deleted. {@code dates} are the expense
+ * dates touched (old and new for edits); an empty set means any date may be affected.
+ */
+public record ExpenseChangedEvent(UUID orgId, Set<LocalDate> dates) {
+
+    public static ExpenseChangedEvent of(UUID orgId, LocalDate... dates) {
+        // copyOf tolerates repeats, e.g. an edit that keeps the same date
+        return new ExpenseChangedEvent(orgId, Set.copyOf(Arrays.asList(dates)));
+    }
+
+    public static ExpenseChangedEvent anyDate(UUID orgId) {
+        return new ExpenseChangedEvent(orgId, Set.of());
+    }
+
+    /** Invalidation key understood by {@link PeriodKey}, or null for all dates. */
+    public String invalidationKey() {
+        return dates.isEmpty() ? null
+                : dates.stream().sorted().map(LocalDate::toString).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,10 @@
+package com.invoiceai.service.cache;
+
+/**
+ * Cache key that decides for itself whether an invalidation key covers it, instead of
+ * plain {@code toString()} equality.
+ */
+public interface InvalidationKey {
+
+    boolean matches(String invalidationKey);
+}
@@ -0,0 +1,59 @@
+package com.invoiceai.service.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named {@link OrgScopedCache}s, created on first use with the app-wide size and TTL limits.
+ * Evict through {@link CacheInvalidationBus} so every replica drops the same entries.
+ */
+@Component
+public class OrgCacheRegistry implements CacheInvalidationHandler {
+
+    public static final String DASHBOARD = "dashboard";
+    public static final String TAX_SUMMARY = "tax-summary";
+    public static final String BUDGET_PROGRESS = "budget-progress";
+    public static final String CATEGORIES = "categories";
+    public static final String ASSISTANT_CONTEXT = "assistant-context";
+    public static final String POLICIES = "policies";
+    public static final String NOTIFICATION_RECIPIENTS = "notification-recipients";
+
+    private final long maxEntries;
+    private final Duration ttl;
+    private final Map<String, OrgScopedCache> caches = new ConcurrentHashMap<>();
+
+    public OrgCacheRegistry(
+            @Value("${app.cache.max-entries:10000}") long maxEntries,
+            @Value("${app.cache.ttl-minutes:10}") long ttlMinutes) {
+        this.maxEntries = maxEntries;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    public OrgScopedCache cache(String name) {
+        return caches.computeIfAbsent(name, n -> new OrgScopedCache(n, maxEntries, ttl));
+    }
+
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        OrgScopedCache cache = caches.get(invalidation.cacheName());
+        if (cache == null) {
+            return;
+        }
+        if (invalidation.orgId() == null) {
+            cache.invalidateAll();
+        } else if (invalidation.key() == null) {
+            cache.invalidateOrg(invalidation.orgId());
+        } else {
+            cache.invalidate(invalidation.orgId(), invalidation.key());
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        caches.values().forEach(OrgScopedCache::invalidateAll);
+    }
+}
@@ -0,0 +1,92 @@
+package com.invoiceai.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache whose entries belong to one organization. Values must be immutable.
+ *
+ * <p>Concurrent misses on the same key are coalesced: the first caller runs the loader on its own
+ * thread (so its {@code TenantContext} applies) and the others wait for its result. A failed load
+ * is not cached. Look up outside a transaction where possible: a waiter keeps whatever pooled
+ * connection its caller's transaction holds, so a burst of cold-cache requests could drain the
+ * pool. Loaders that only run repository queries get a short transaction per query.
+ */
+public class OrgScopedCache {
+
+    private record Key(UUID orgId, Object key) {}
+
+    private final String name;
+    private final ConcurrentMap<Key, CompletableFuture<Object>> entries;
+
+    OrgScopedCache(String name, long maxEntries, Duration ttl) {
+        this.name = name;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .<Key, CompletableFuture<Object>>build()
+                .asMap();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(UUID orgId, Object key, Supplier<T> loader) {
+        Key cacheKey = new Key(orgId, key);
+        CompletableFuture<Object> existing = entries.get(cacheKey);
+        if (existing == null) {
+            CompletableFuture<Object> loading = new CompletableFuture<>();
+            existing = entries.putIfAbsent(cacheKey, loading);
+            if (existing == null) {
+                try {
+                    T value = loader.get();
+                    loading.complete(value);
+                    return value;
+                } catch (RuntimeException | Error e) {
+                    entries.remove(cacheKey, loading);
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return (T) existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidateOrg(UUID orgId) {
+        entries.keySet().removeIf(k -> k.orgId().equals(orgId));
+    }
+
+    /**
+     * Drops the org's entries covered by {@code invalidationKey}: keys implementing
+     * {@link InvalidationKey} decide for themselves, others must match its {@code toString()}.
+     */
+    public void invalidate(UUID orgId, String invalidationKey) {
+        invalidateIf(orgId, key -> key instanceof InvalidationKey k
+                ? k.matches(invalidationKey)
+                : invalidationKey.equals(key.toString()));
+    }
+
+    public void invalidateIf(UUID orgId, Predicate<Object> keyFilter) {
+        entries.keySet().removeIf(k -> k.orgId().equals(orgId) && keyFilter.test(k.key()));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package com.invoiceai.service.cache;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Cache key for a report over a date range. {@code dependsFrom}/{@code dependsTo} bound the
+ * expense dates that can change the result (e.g. a summary also reads the previous period);
+ * a null {@code dependsTo} means open-ended. Invalidated by a comma-separated list of
+ * changed expense dates.
+ */
+public record PeriodKey(String view, LocalDate from, LocalDate to, int limit,
+                        LocalDate dependsFrom, LocalDate dependsTo) implements InvalidationKey {
+
+    public static PeriodKey of(String view, LocalDate from, LocalDate to) {
+        return new PeriodKey(view, from, to, 0, from, to);
+    }
+
+    public boolean dependsOn(LocalDate date) {
+        return !date.isBefore(dependsFrom) && (dependsTo == null || !date.isAfter(dependsTo));
+    }
+
+    @Override
+    public boolean matches(String changedDates) {
+        return Arrays.stream(changedDates.split(","))
+                .map(LocalDate::parse)
+                .anyMatch(this::dependsOn);
+    }
+}
@@ -0,0 +1,35 @@
+package com.invoiceai.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Translates expense, category and budget changes into invalidations of the cached dashboard,
+ * tax and budget-progress results and the assistant context. The bus applies them once the
+ * change commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportCacheInvalidator {
+
+    private static final String[] EXPENSE_REPORTS = {
+            OrgCacheRegistry.DASHBOARD, OrgCacheRegistry.TAX_SUMMARY, OrgCacheRegistry.BUDGET_PROGRESS};
+
+    private final CacheInvalidationBus bus;
+
+    @EventListener
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        String key = event.invalidationKey();
+        for (String name : EXPENSE_REPORTS) {
+            bus.invalidate(new CacheInvalidation(event.orgId(), name, key));
+        }
+        // Pending counts and recent expenses depend on every expense, not just a date range
+        bus.invalidate(CacheInvalidation.org(event.orgId(), OrgCacheRegistry.ASSISTANT_CONTEXT));
+    }
+
+    @EventListener
+    public void onBudgetChanged(BudgetChangedEvent event) {
+        bus.invalidate(CacheInvalidation.org(event.orgId(), OrgCacheRegistry.BUDGET_PROGRESS));
+    }
+}
@@ -0,0 +1,90 @@
+package com.invoiceai.service.duplicate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Burkhard-Keller tree over 64-bit hashes under Hamming distance. A lookup within radius r only
+ * descends into children whose edge distance lies in [d - r, d + r], so it touches a small
+ * fraction of the tree. Not thread-safe.
+ */
+public class BkTree {
+
+    public record Match(UUID id, int distance) {}
+
+    private static final class Node {
+        private final long hash;
+        private final List<UUID> ids = new ArrayList<>(1);
+        private Map<Integer, Node> children;
+
+        private Node(long hash) {
+            this.hash = hash;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    public void add(long hash, UUID id) {
+        size++;
+        if (root == null) {
+            root = new Node(hash);
+            root.ids.add(id);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance == 0) {
+                node.ids.add(id);
+                return;
+            }
+            if (node.children == null) {
+                node.children = new HashMap<>(4);
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                child = new Node(hash);
+                child.ids.add(id);
+                node.children.put(distance, child);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    public List<Match> search(long hash, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance <= maxDistance) {
+                for (UUID id : node.ids) {
+                    matches.add(new Match(id, distance));
+                }
+            }
+            if (node.children != null) {
+                for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                    if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                        pending.push(child.getValue());
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,207 @@
+package com.invoiceai.service.duplicate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.service.cache.CacheInvalidation;
+import com.invoiceai.service.cache.CacheInvalidationHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of each organization's recent expenses, bucketed by date and then amount,
+ * so duplicate checks are range lookups instead of a query per create.
+ *
+ * <p>An org's index is loaded on first use and evicted after it has been idle (or when too many
+ * orgs are resident). It is also reloaded every {@code reload-hours} however busy the org is, so
+ * the window moves forward and entries that have aged out of it are dropped. Entries may outlive a rolled-back or deleted expense, so callers verify
+ * matches against the database before using them. Other replicas' writes arrive as
+ * invalidations of {@link #CACHE_NAME} carrying the added or removed entry in their key, and are
+ * applied to the org's index if it is loaded; an invalidation without a key drops the index.
+ */
+@Component
+@Slf4j
+public class DuplicateCandidateIndex implements CacheInvalidationHandler {
+
+    public static final String CACHE_NAME = "duplicate-candidates";
+
+    private static final String REMOVED = "-";
+    private static final String SEPARATOR = "|";
+
+    private final ExpenseRepository expenseRepository;
+    private final int windowDays;
+    private final Cache<UUID, OrgIndex> orgIndexes;
+
+    public DuplicateCandidateIndex(
+            ExpenseRepository expenseRepository,
+            @Value("${app.duplicates.index-window-days:180}") int windowDays,
+            @Value("${app.duplicates.max-indexed-orgs:500}") long maxIndexedOrgs,
+            @Value("${app.duplicates.idle-eviction-minutes:30}") long idleEvictionMinutes,
+            @Value("${app.duplicates.reload-hours:24}") long reloadHours) {
+        this.expenseRepository = expenseRepository;
+        this.windowDays = windowDays;
+        this.orgIndexes = Caffeine.newBuilder()
+                .maximumSize(maxIndexedOrgs)
+                .expireAfterAccess(Duration.ofMinutes(idleEvictionMinutes))
+                .expireAfterWrite(Duration.ofHours(reloadHours))
+                .build();
+    }
+
+    /**
+     * Expenses in {@code currency} dated within [from, to] with an amount within
+     * [minAmount, maxAmount]. Ranges older than the index window are read from the database.
+     */
+    public List<IndexedExpense> find(UUID orgId, String currency, LocalDate from, LocalDate to,
+                                     BigDecimal minAmount, BigDecimal maxAmount) {
+        OrgIndex index = orgIndexes.get(orgId, this::load);
+        List<IndexedExpense> result = new ArrayList<>(index.find(currency, from, to, minAmount, maxAmount));
+
+        if (from.isBefore(index.windowStart)) {
+            LocalDate olderTo = to.isBefore(index.windowStart) ? to : index.windowStart.minusDays(1);
+            for (Object[] row : expenseRepository.findDuplicateCandidateRows(orgId, currency, from, olderTo, minAmount, maxAmount)) {
+                result.add(toIndexed(row));
+            }
+        }
+        return result;
+    }
+
+    public void add(UUID orgId, UUID expenseId, String vendorName, BigDecimal amount, String currency, LocalDate date) {
+        put(orgId, new IndexedExpense(expenseId, VendorNames.normalize(vendorName), amount, currency, date));
+    }
+
+    public void remove(UUID orgId, UUID expenseId) {
+        OrgIndex index = orgIndexes.getIfPresent(orgId);
+        if (index != null) {
+            index.remove(expenseId);
+        }
+    }
+
+    public void evict(UUID orgId) {
+        orgIndexes.invalidate(orgId);
+    }
+
+    /** Tells other replicas to apply {@link #add} for the expense to their copy of the org's index. */
+    public static CacheInvalidation added(UUID orgId, UUID expenseId, String vendorName, BigDecimal amount,
+                                          String currency, LocalDate date) {
+        // Vendor last: it is the only field that may contain the separator
+        String key = String.join(SEPARATOR, expenseId.toString(), amount.toPlainString(), currency,
+                date.toString(), VendorNames.normalize(vendorName));
+        return new CacheInvalidation(orgId, CACHE_NAME, key);
+    }
+
+    /** Tells other replicas to apply {@link #remove} for the expense. */
+    public static CacheInvalidation removed(UUID orgId, UUID expenseId) {
+        return new CacheInvalidation(orgId, CACHE_NAME, REMOVED + expenseId);
+    }
+
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        if (!CACHE_NAME.equals(invalidation.cacheName())) {
+            return;
+        }
+        if (invalidation.orgId() == null) {
+            orgIndexes.invalidateAll();
+        } else if (invalidation.key() == null) {
+            orgIndexes.invalidate(invalidation.orgId());
+        } else if (invalidation.key().startsWith(REMOVED)) {
+            remove(invalidation.orgId(), UUID.fromString(invalidation.key().substring(REMOVED.length())));
+        } else {
+            String[] fields = invalidation.key().split(Pattern.quote(SEPARATOR), 5);
+            put(invalidation.orgId(), new IndexedExpense(UUID.fromString(fields[0]), fields[4],
+                    new BigDecimal(fields[1]), fields[2], LocalDate.parse(fields[3])));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        orgIndexes.invalidateAll();
+    }
+
+    private void put(UUID orgId, IndexedExpense expense) {
+        OrgIndex index = orgIndexes.getIfPresent(orgId);
+        if (index != null) {
+            index.put(expense);
+        }
+    }
+
+    private OrgIndex load(UUID orgId) {
+        LocalDate windowStart = LocalDate.now().minusDays(windowDays);
+        OrgIndex index = new OrgIndex(windowStart);
+        List<Object[]> rows = expenseRepository.findDuplicateIndexRows(orgId, windowStart);
+        for (Object[] row : rows) {
+            index.put(toIndexed(row));
+        }
+        log.debug("Loaded duplicate index for org={} with {} expenses", orgId, rows.size());
+        return index;
+    }
+
+    private IndexedExpense toIndexed(Object[] row) {
+        LocalDate date = row[4] instanceof Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) row[4];
+        return new IndexedExpense((UUID) row[0], VendorNames.normalize((String) row[1]), (BigDecimal) row[2],
+                (String) row[3], date);
+    }
+
+    private static final class OrgIndex {
+
+        private final LocalDate windowStart;
+        private final NavigableMap<LocalDate, NavigableMap<BigDecimal, List<IndexedExpense>>> buckets = new TreeMap<>();
+        private final Map<UUID, IndexedExpense> byId = new HashMap<>();
+
+        private OrgIndex(LocalDate windowStart) {
+            this.windowStart = windowStart;
+        }
+
+        synchronized List<IndexedExpense> find(String currency, LocalDate from, LocalDate to,
+                                               BigDecimal minAmount, BigDecimal maxAmount) {
+            List<IndexedExpense> result = new ArrayList<>();
+            for (NavigableMap<BigDecimal, List<IndexedExpense>> byAmount : buckets.subMap(from, true, to, true).values()) {
+                for (List<IndexedExpense> entries : byAmount.subMap(minAmount, true, maxAmount, true).values()) {
+                    for (IndexedExpense entry : entries) {
+                        if (entry.currency().equals(currency)) {
+                            result.add(entry);
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        synchronized void put(IndexedExpense expense) {
+            remove(expense.id());
+            byId.put(expense.id(), expense);
+            buckets.computeIfAbsent(expense.date(), d -> new TreeMap<>())
+                    .computeIfAbsent(expense.amount(), a -> new ArrayList<>(1))
+                    .add(expense);
+        }
+
+        synchronized void remove(UUID expenseId) {
+            IndexedExpense existing = byId.remove(expenseId);
+            if (existing == null) {
+                return;
+            }
+            NavigableMap<BigDecimal, List<IndexedExpense>> byAmount = buckets.get(existing.date());
+            List<IndexedExpense> entries = byAmount.get(existing.amount());
+            entries.removeIf(e -> e.id().equals(expenseId));
+            if (entries.isEmpty()) {
+                byAmount.remove(existing.amount());
+                if (byAmount.isEmpty()) {
+                    buckets.remove(existing.date());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.invoiceai.service.duplicate;
+
+import java.util.UUID;
+
+/**
+ * A likely duplicate and its similarity score in [0, 1] (1 = same vendor, amount and date).
+ */
+public record DuplicateMatch(UUID expenseId, double score) {}
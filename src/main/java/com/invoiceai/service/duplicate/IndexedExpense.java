@@ -0,0 +1,10 @@
+package com.invoiceai.service.duplicate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * The slice of an expense kept in the duplicate candidate index.
+ */
+public record IndexedExpense(UUID id, String normalizedVendor, BigDecimal amount, String currency, LocalDate date) {}
@@ -0,0 +1,71 @@
+package com.invoiceai.service.duplicate;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * 64-bit difference hash (dHash) of a receipt image or the first page of a PDF.
+ * Two photos of the same receipt land a few bits apart even though their bytes differ.
+ */
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+    private static final float PDF_RENDER_DPI = 72f;
+
+    private PerceptualHash() {}
+
+    /**
+     * Returns the hash, or null when the file cannot be decoded (e.g. WebP without an ImageIO plugin).
+     */
+    public static Long compute(byte[] fileBytes, String fileType) throws IOException {
+        BufferedImage image = "application/pdf".equals(fileType)
+                ? renderFirstPage(fileBytes)
+                : ImageIO.read(new ByteArrayInputStream(fileBytes));
+        return image != null ? dHash(image) : null;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    static long dHash(BufferedImage image) {
+        // Area averaging keeps the downscale stable across resolutions and JPEG noise
+        Image scaled = image.getScaledInstance(WIDTH, HEIGHT, Image.SCALE_AREA_AVERAGING);
+        BufferedImage gray = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        try {
+            g.drawImage(scaled, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int left = gray.getRaster().getSample(x, y, 0);
+                int right = gray.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    private static BufferedImage renderFirstPage(byte[] pdfBytes) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            return new PDFRenderer(document).renderImageWithDPI(0, PDF_RENDER_DPI, ImageType.GRAY);
+        }
+    }
+}
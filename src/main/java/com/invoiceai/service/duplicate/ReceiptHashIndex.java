@@ -0,0 +1,102 @@
+package com.invoiceai.service.duplicate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.invoiceai.repository.InvoiceRepository;
+import com.invoiceai.service.cache.CacheInvalidation;
+import com.invoiceai.service.cache.CacheInvalidationHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per-org BK-tree of invoice perceptual hashes, loaded lazily and evicted when idle
+ * (same policy as {@link DuplicateCandidateIndex}). Other replicas' additions arrive as
+ * invalidations whose key carries the invoice id and hash.
+ */
+@Component
+@Slf4j
+public class ReceiptHashIndex implements CacheInvalidationHandler {
+
+    public static final String CACHE_NAME = "receipt-hashes";
+
+    private static final String SEPARATOR = ":";
+
+    private final InvoiceRepository invoiceRepository;
+    private final int maxDistance;
+    private final Cache<UUID, BkTree> trees;
+
+    public ReceiptHashIndex(
+            InvoiceRepository invoiceRepository,
+            @Value("${app.duplicates.receipt-hash-max-distance:6}") int maxDistance,
+            @Value("${app.duplicates.max-indexed-orgs:500}") long maxIndexedOrgs,
+            @Value("${app.duplicates.idle-eviction-minutes:30}") long idleEvictionMinutes) {
+        this.invoiceRepository = invoiceRepository;
+        this.maxDistance = maxDistance;
+        this.trees = Caffeine.newBuilder()
+                .maximumSize(maxIndexedOrgs)
+                .expireAfterAccess(Duration.ofMinutes(idleEvictionMinutes))
+                .build();
+    }
+
+    /**
+     * Closest other invoice within the configured Hamming distance, if any.
+     */
+    public Optional<BkTree.Match> findClosest(UUID orgId, long hash, UUID excludeInvoiceId) {
+        BkTree tree = trees.get(orgId, this::load);
+        synchronized (tree) {
+            return tree.search(hash, maxDistance).stream()
+                    .filter(match -> !match.id().equals(excludeInvoiceId))
+                    .min(Comparator.comparingInt(BkTree.Match::distance));
+        }
+    }
+
+    public void add(UUID orgId, UUID invoiceId, long hash) {
+        BkTree tree = trees.getIfPresent(orgId);
+        if (tree != null) {
+            synchronized (tree) {
+                tree.add(hash, invoiceId);
+            }
+        }
+    }
+
+    /** Tells other replicas to apply {@link #add} to their copy of the org's tree. */
+    public static CacheInvalidation added(UUID orgId, UUID invoiceId, long hash) {
+        return new CacheInvalidation(orgId, CACHE_NAME, invoiceId + SEPARATOR + hash);
+    }
+
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        if (!CACHE_NAME.equals(invalidation.cacheName())) {
+            return;
+        }
+        if (invalidation.orgId() == null) {
+            trees.invalidateAll();
+        } else if (invalidation.key() == null) {
+            trees.invalidate(invalidation.orgId());
+        } else {
+            int separator = invalidation.key().indexOf(SEPARATOR);
+            add(invalidation.orgId(), UUID.fromString(invalidation.key().substring(0, separator)),
+                    Long.parseLong(invalidation.key().substring(separator + 1)));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        trees.invalidateAll();
+    }
+
+    private BkTree load(UUID orgId) {
+        BkTree tree = new BkTree();
+        for (Object[] row : invoiceRepository.findPerceptualHashes(orgId)) {
+            tree.add((Long) row[1], (UUID) row[0]);
+        }
+        log.debug("Loaded receipt hash index for org={} with {} hashes", orgId, tree.size());
+        return tree;
+    }
+}
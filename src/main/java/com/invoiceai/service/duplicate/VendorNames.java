@@ -0,0 +1,92 @@
+package com.invoiceai.service.duplicate;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Vendor name normalization and similarity used by duplicate detection,
+ * so "Amazon.com, Inc." and "AMAZON" compare as the same vendor.
+ */
+public final class VendorNames {
+
+    private static final Pattern URL_PREFIX = Pattern.compile("^(https?://)?(www\\.)?");
+    private static final Pattern DOMAIN_SUFFIX = Pattern.compile("\\.(com|net|org|io|co|biz|us|uk|de|ca|au|in)\\b");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> LEGAL_SUFFIXES = Set.of(
+            "inc", "incorporated", "llc", "llp", "ltd", "limited", "corp", "corporation",
+            "co", "company", "gmbh", "plc", "sa", "ag", "bv", "pty", "pvt");
+
+    private VendorNames() {}
+
+    public static String normalize(String vendorName) {
+        if (vendorName == null) {
+            return "";
+        }
+        String lower = vendorName.trim().toLowerCase(Locale.ROOT);
+        String stripped = URL_PREFIX.matcher(lower).replaceFirst("");
+        stripped = DOMAIN_SUFFIX.matcher(stripped).replaceAll(" ");
+        stripped = NON_ALPHANUMERIC.matcher(stripped).replaceAll(" ").trim();
+
+        String normalized = Arrays.stream(stripped.split(" "))
+                .filter(token -> !token.isEmpty() && !LEGAL_SUFFIXES.contains(token))
+                .collect(Collectors.joining(" "));
+        // A name made only of suffixes ("Co.") keeps its stripped form
+        return normalized.isEmpty() ? stripped : normalized;
+    }
+
+    /**
+     * Jaro-Winkler similarity of two normalized names, in [0, 1].
+     */
+    public static double similarity(String a, String b) {
+        if (a.equals(b)) {
+            return 1.0;
+        }
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0.0;
+        }
+
+        int matchWindow = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] aMatched = new boolean[a.length()];
+        boolean[] bMatched = new boolean[b.length()];
+
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int start = Math.max(0, i - matchWindow);
+            int end = Math.min(b.length() - 1, i + matchWindow);
+            for (int j = start; j <= end; j++) {
+                if (!bMatched[j] && a.charAt(i) == b.charAt(j)) {
+                    aMatched[i] = true;
+                    bMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        int transpositions = 0;
+        int k = 0;
+        for (int i = 0; i < a.length(); i++) {
+            if (!aMatched[i]) continue;
+            while (!bMatched[k]) k++;
+            if (a.charAt(i) != b.charAt(k)) transpositions++;
+            k++;
+        }
+
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3.0;
+
+        int prefix = 0;
+        for (int i = 0; i < Math.min(4, Math.min(a.length(), b.length())); i++) {
+            if (a.charAt(i) != b.charAt(i)) break;
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+}
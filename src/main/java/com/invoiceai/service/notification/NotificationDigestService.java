@@ -0,0 +1,50 @@
+package com.invoiceai.service.notification;
+
+import com.invoiceai.model.NotificationDigestItem;
+import com.invoiceai.model.User;
+import com.invoiceai.repository.NotificationDigestItemRepository;
+import com.invoiceai.repository.UserRepository;
+import com.invoiceai.service.EmailNotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Turns held notifications into one digest email per recipient and org. Each recipient's
+ * items are taken and the digest queued in one transaction, so a failure leaves them held.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDigestService {
+
+    private final NotificationDigestItemRepository digestItemRepository;
+    private final UserRepository userRepository;
+    private final EmailNotificationService emailNotificationService;
+
+    /** (organization id, user id) pairs with held items due now. */
+    @Transactional(readOnly = true)
+    public List<Object[]> findDueRecipients(boolean includeDaily) {
+        return digestItemRepository.findDueRecipients(includeDaily);
+    }
+
+    /** Returns false when there was nothing left to send (e.g. another node took it). */
+    @Transactional
+    public boolean sendDigest(UUID orgId, UUID userId) {
+        List<NotificationDigestItem> items = digestItemRepository.takeForRecipient(orgId, userId);
+        if (items.isEmpty()) {
+            return false;
+        }
+        String email = userRepository.findById(userId).map(User::getEmail).orElse(null);
+        if (email == null) {
+            return false;
+        }
+        emailNotificationService.sendDigestEmail(orgId, email, items);
+        log.debug("Queued digest of {} items for user {} org {}", items.size(), userId, orgId);
+        return true;
+    }
+}
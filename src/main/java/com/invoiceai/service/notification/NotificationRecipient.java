@@ -0,0 +1,26 @@
+package com.invoiceai.service.notification;
+
+import com.invoiceai.model.enums.DigestFrequency;
+import com.invoiceai.model.enums.NotificationType;
+
+import java.util.UUID;
+
+/** An org admin and the notifications they have opted into. */
+public record NotificationRecipient(
+        UUID userId,
+        String email,
+        boolean policyViolations,
+        boolean budgetAlerts,
+        DigestFrequency digestFrequency) {
+
+    public boolean wants(NotificationType type) {
+        return switch (type) {
+            case POLICY_VIOLATION -> policyViolations;
+            case BUDGET_ALERT -> budgetAlerts;
+        };
+    }
+
+    public boolean immediate() {
+        return digestFrequency == DigestFrequency.IMMEDIATE;
+    }
+}
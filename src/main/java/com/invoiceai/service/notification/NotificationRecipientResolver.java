@@ -0,0 +1,52 @@
+package com.invoiceai.service.notification;
+
+import com.invoiceai.model.enums.DigestFrequency;
+import com.invoiceai.model.enums.MemberRole;
+import com.invoiceai.model.enums.NotificationType;
+import com.invoiceai.repository.OrganizationMemberRepository;
+import com.invoiceai.service.cache.CacheInvalidation;
+import com.invoiceai.service.cache.CacheInvalidationBus;
+import com.invoiceai.service.cache.OrgCacheRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Org admins (owners and admins) with their notification preferences, loaded in one query and
+ * cached per org. Call {@link #invalidate} when membership or preferences change.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationRecipientResolver {
+
+    private static final String ADMINS = "admins";
+    private static final List<MemberRole> ADMIN_ROLES = List.of(MemberRole.OWNER, MemberRole.ADMIN);
+
+    private final OrganizationMemberRepository memberRepository;
+    private final OrgCacheRegistry caches;
+    private final CacheInvalidationBus invalidationBus;
+
+    /** Admins who have not opted out of {@code type}. */
+    public List<NotificationRecipient> recipientsFor(UUID orgId, NotificationType type) {
+        List<NotificationRecipient> admins = caches.cache(OrgCacheRegistry.NOTIFICATION_RECIPIENTS)
+                .get(orgId, ADMINS, () -> loadAdmins(orgId));
+        return admins.stream().filter(r -> r.wants(type)).toList();
+    }
+
+    public void invalidate(UUID orgId) {
+        invalidationBus.invalidate(CacheInvalidation.org(orgId, OrgCacheRegistry.NOTIFICATION_RECIPIENTS));
+    }
+
+    private List<NotificationRecipient> loadAdmins(UUID orgId) {
+        return memberRepository.findNotificationRecipients(orgId, ADMIN_ROLES).stream()
+                .map(row -> new NotificationRecipient(
+                        (UUID) row[0],
+                        (String) row[1],
+                        row[2] == null || (Boolean) row[2],
+                        row[3] == null || (Boolean) row[3],
+                        row[4] == null ? DigestFrequency.IMMEDIATE : (DigestFrequency) row[4]))
+                .toList();
+    }
+}
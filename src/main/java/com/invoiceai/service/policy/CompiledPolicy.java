@@ -0,0 +1,31 @@
+package com.invoiceai.service.policy;
+
+import com.invoiceai.model.ExpensePolicy;
+import com.invoiceai.model.enums.PolicyRuleType;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/** Detached, immutable copy of an active {@link ExpensePolicy}. */
+public record CompiledPolicy(
+        UUID id,
+        String name,
+        PolicyRuleType ruleType,
+        UUID categoryId,
+        BigDecimal thresholdAmount,
+        String requiredField,
+        Integer maxCount,
+        Integer windowDays) {
+
+    static CompiledPolicy of(ExpensePolicy policy) {
+        return new CompiledPolicy(
+                policy.getId(),
+                policy.getName(),
+                policy.getRuleType(),
+                policy.getCategory() != null ? policy.getCategory().getId() : null,
+                policy.getThresholdAmount(),
+                policy.getRequiredField(),
+                policy.getMaxCount(),
+                policy.getWindowDays());
+    }
+}
@@ -0,0 +1,138 @@
+package com.invoiceai.service.policy;
+
+import com.invoiceai.model.Expense;
+import com.invoiceai.model.enums.ExpenseStatus;
+import com.invoiceai.model.enums.PolicyRuleType;
+import com.invoiceai.model.enums.WindowDimension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/** Evaluates an expense against a {@link PolicySet}. Stateless. */
+public final class PolicyEvaluator {
+
+    private PolicyEvaluator() {}
+
+    /**
+     * Monthly category rules share one total: every such rule applying to this expense measures
+     * the expense's own category, so {@code facts} is asked at most once per call for it.
+     * Windowed rules cost one {@link PolicyFacts#window} lookup each, whatever the history size.
+     */
+    public static List<PolicyMatch> evaluate(PolicySet policies, Expense expense, PolicyFacts facts) {
+        UUID categoryId = expense.getCategory() != null ? expense.getCategory().getId() : null;
+        Map<PolicyRuleType, List<CompiledPolicy>> rules = policies.rulesFor(categoryId);
+        if (rules.isEmpty()) {
+            return List.of();
+        }
+
+        List<PolicyMatch> matches = new ArrayList<>();
+        for (CompiledPolicy policy : rules.getOrDefault(PolicyRuleType.MAX_AMOUNT_PER_EXPENSE, List.of())) {
+            if (policy.thresholdAmount() != null && expense.getAmount().compareTo(policy.thresholdAmount()) > 0) {
+                matches.add(new PolicyMatch(policy, String.format("Expense amount $%s exceeds limit of $%s (%s)",
+                        expense.getAmount(), policy.thresholdAmount(), policy.name())));
+            }
+        }
+
+        List<CompiledPolicy> monthly = rules.getOrDefault(PolicyRuleType.MAX_AMOUNT_PER_CATEGORY_MONTHLY, List.of());
+        if (categoryId != null && !monthly.isEmpty()) {
+            BigDecimal projected = null;
+            for (CompiledPolicy policy : monthly) {
+                if (policy.thresholdAmount() == null) {
+                    continue;
+                }
+                if (projected == null) {
+                    LocalDate monthStart = expense.getDate().withDayOfMonth(1);
+                    projected = facts.approvedCategoryMonthTotal(categoryId, monthStart);
+                    // An approved (historical) expense is already in the total
+                    if (expense.getStatus() != ExpenseStatus.APPROVED) {
+                        projected = projected.add(expense.getAmount());
+                    }
+                }
+                if (projected.compareTo(policy.thresholdAmount()) > 0) {
+                    matches.add(new PolicyMatch(policy, String.format(
+                            "Category monthly spend $%s (with this expense) exceeds limit of $%s (%s)",
+                            projected, policy.thresholdAmount(), policy.name())));
+                }
+            }
+        }
+
+        String vendorKey = vendorKey(expense.getVendorName());
+        for (CompiledPolicy policy : rules.getOrDefault(PolicyRuleType.MAX_AMOUNT_PER_VENDOR_MONTHLY, List.of())) {
+            if (policy.thresholdAmount() == null) {
+                continue;
+            }
+            LocalDate monthStart = expense.getDate().withDayOfMonth(1);
+            BigDecimal total = facts.window(WindowDimension.VENDOR, vendorKey,
+                    monthStart, monthStart.plusMonths(1).minusDays(1)).amount();
+            if (total.compareTo(policy.thresholdAmount()) > 0) {
+                matches.add(new PolicyMatch(policy, String.format(
+                        "Monthly spend with %s of $%s exceeds limit of $%s (%s)",
+                        expense.getVendorName(), total, policy.thresholdAmount(), policy.name())));
+            }
+        }
+
+        String submitterKey = expense.getSubmittedBy() != null ? expense.getSubmittedBy().getId().toString() : null;
+        if (submitterKey != null) {
+            checkSubmitterCap(rules.getOrDefault(PolicyRuleType.MAX_AMOUNT_PER_SUBMITTER_DAILY, List.of()),
+                    expense, submitterKey, 1, "Daily", facts, matches);
+            checkSubmitterCap(rules.getOrDefault(PolicyRuleType.MAX_AMOUNT_PER_SUBMITTER_WEEKLY, List.of()),
+                    expense, submitterKey, 7, "7-day", facts, matches);
+        }
+
+        for (CompiledPolicy policy : rules.getOrDefault(PolicyRuleType.MAX_EXPENSES_PER_VENDOR_IN_WINDOW, List.of())) {
+            if (policy.maxCount() == null || policy.windowDays() == null) {
+                continue;
+            }
+            long count = facts.window(WindowDimension.VENDOR, vendorKey,
+                    expense.getDate().minusDays(policy.windowDays() - 1), expense.getDate()).count();
+            if (count > policy.maxCount()) {
+                matches.add(new PolicyMatch(policy, String.format(
+                        "%d expenses from %s within %d days exceeds limit of %d (%s)",
+                        count, expense.getVendorName(), policy.windowDays(), policy.maxCount(), policy.name())));
+            }
+        }
+
+        for (CompiledPolicy policy : rules.getOrDefault(PolicyRuleType.REQUIRED_FIELD, List.of())) {
+            if (policy.requiredField() != null && isMissing(expense, policy.requiredField())) {
+                matches.add(new PolicyMatch(policy, String.format("Required field '%s' is missing (%s)",
+                        policy.requiredField(), policy.name())));
+            }
+        }
+        return matches;
+    }
+
+    /** Windows are rolling and end on the expense date. */
+    private static void checkSubmitterCap(List<CompiledPolicy> policies, Expense expense, String submitterKey,
+                                          int days, String label, PolicyFacts facts, List<PolicyMatch> matches) {
+        for (CompiledPolicy policy : policies) {
+            if (policy.thresholdAmount() == null) {
+                continue;
+            }
+            BigDecimal total = facts.window(WindowDimension.SUBMITTER, submitterKey,
+                    expense.getDate().minusDays(days - 1), expense.getDate()).amount();
+            if (total.compareTo(policy.thresholdAmount()) > 0) {
+                matches.add(new PolicyMatch(policy, String.format(
+                        "%s spend by submitter of $%s exceeds limit of $%s (%s)",
+                        label, total, policy.thresholdAmount(), policy.name())));
+            }
+        }
+    }
+
+    /** Matches the trigger's {@code lower(vendor_name)}. */
+    static String vendorKey(String vendorName) {
+        return vendorName.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isMissing(Expense expense, String field) {
+        return switch (field) {
+            case "description" -> expense.getDescription() == null || expense.getDescription().isBlank();
+            case "category" -> expense.getCategory() == null;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.invoiceai.service.policy;
+
+import com.invoiceai.model.enums.WindowDimension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/** Aggregates the evaluator may need, looked up on demand. */
+public interface PolicyFacts {
+
+    /** Approved spend in the category for the month starting {@code monthStart}. */
+    BigDecimal approvedCategoryMonthTotal(UUID categoryId, LocalDate monthStart);
+
+    /**
+     * Non-rejected expenses for the vendor or submitter {@code key} dated {@code from} to
+     * {@code to}, inclusive. Includes the expense being evaluated once it has been saved.
+     */
+    WindowTotals window(WindowDimension dimension, String key, LocalDate from, LocalDate to);
+
+    record WindowTotals(long count, BigDecimal amount) {}
+}
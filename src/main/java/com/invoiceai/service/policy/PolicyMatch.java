@@ -0,0 +1,3 @@
+package com.invoiceai.service.policy;
+
+public record PolicyMatch(CompiledPolicy policy, String message) {}
@@ -0,0 +1,81 @@
+package com.invoiceai.service.policy;
+
+import com.invoiceai.model.ExpensePolicy;
+import com.invoiceai.model.enums.PolicyRuleType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An org's active policies, indexed by expense category and rule type. Rules without a category
+ * (and required-field rules, which ignore it) are merged into every category's index at compile
+ * time, so evaluating an expense is one map lookup plus the rules that can actually apply.
+ * Immutable; cached per org by {@link com.invoiceai.service.PolicyService}.
+ */
+public final class PolicySet {
+
+    public static final PolicySet EMPTY = compile(List.of());
+
+    private final Map<PolicyRuleType, List<CompiledPolicy>> uncategorized;
+    private final Map<UUID, Map<PolicyRuleType, List<CompiledPolicy>>> byCategory;
+    private final int size;
+
+    private PolicySet(Map<PolicyRuleType, List<CompiledPolicy>> uncategorized,
+                      Map<UUID, Map<PolicyRuleType, List<CompiledPolicy>>> byCategory, int size) {
+        this.uncategorized = uncategorized;
+        this.byCategory = byCategory;
+        this.size = size;
+    }
+
+    public static PolicySet compile(Collection<ExpensePolicy> policies) {
+        List<CompiledPolicy> global = new ArrayList<>();
+        Map<UUID, List<CompiledPolicy>> scoped = new HashMap<>();
+        for (ExpensePolicy policy : policies) {
+            CompiledPolicy compiled = CompiledPolicy.of(policy);
+            if (compiled.categoryId() == null || compiled.ruleType() == PolicyRuleType.REQUIRED_FIELD) {
+                global.add(compiled);
+            } else {
+                scoped.computeIfAbsent(compiled.categoryId(), id -> new ArrayList<>()).add(compiled);
+            }
+        }
+
+        Map<UUID, Map<PolicyRuleType, List<CompiledPolicy>>> byCategory = new HashMap<>();
+        scoped.forEach((categoryId, rules) -> {
+            List<CompiledPolicy> merged = new ArrayList<>(global);
+            merged.addAll(rules);
+            byCategory.put(categoryId, index(merged));
+        });
+        return new PolicySet(index(global), Map.copyOf(byCategory), policies.size());
+    }
+
+    private static Map<PolicyRuleType, List<CompiledPolicy>> index(List<CompiledPolicy> rules) {
+        Map<PolicyRuleType, List<CompiledPolicy>> index = new EnumMap<>(PolicyRuleType.class);
+        for (CompiledPolicy rule : rules) {
+            index.computeIfAbsent(rule.ruleType(), t -> new ArrayList<>()).add(rule);
+        }
+        index.replaceAll((t, list) -> List.copyOf(list));
+        return Collections.unmodifiableMap(index);
+    }
+
+    /** Rules that can apply to an expense in {@code categoryId} (null for uncategorized). */
+    public Map<PolicyRuleType, List<CompiledPolicy>> rulesFor(UUID categoryId) {
+        if (categoryId == null) {
+            return uncategorized;
+        }
+        return byCategory.getOrDefault(categoryId, uncategorized);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
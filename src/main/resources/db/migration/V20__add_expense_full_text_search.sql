@@ -0,0 +1,26 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE expenses ADD COLUMN search_vector TSVECTOR;
+
+-- Vendor name is weighted above description so vendor hits rank first.
+CREATE OR REPLACE FUNCTION expenses_search_vector_update() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector :=
+        setweight(to_tsvector('simple', coalesce(NEW.vendor_name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(NEW.description, '')), 'B');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_expenses_search_vector
+    BEFORE INSERT OR UPDATE OF vendor_name, description ON expenses
+    FOR EACH ROW EXECUTE FUNCTION expenses_search_vector_update();
+
+UPDATE expenses SET search_vector =
+    setweight(to_tsvector('simple', coalesce(vendor_name, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'B');
+
+CREATE INDEX idx_expenses_search_vector ON expenses USING GIN (search_vector);
+
+-- Serves the substring vendor filter (lower(vendor_name) LIKE '%term%')
+CREATE INDEX idx_expenses_vendor_trgm ON expenses USING GIN (lower(vendor_name) gin_trgm_ops);
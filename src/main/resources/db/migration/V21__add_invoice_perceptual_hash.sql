@@ -0,0 +1,5 @@
+ALTER TABLE invoices ADD COLUMN perceptual_hash BIGINT;
+ALTER TABLE invoices ADD COLUMN duplicate_of_invoice_id UUID REFERENCES invoices(id) ON DELETE SET NULL;
+
+-- Loads an org's hashes into the in-memory BK-tree
+CREATE INDEX idx_invoices_org_perceptual_hash ON invoices(organization_id) WHERE perceptual_hash IS NOT NULL;
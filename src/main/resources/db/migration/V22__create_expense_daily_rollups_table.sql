@@ -0,0 +1,75 @@
+CREATE TABLE expense_daily_rollups (
+    id              BIGSERIAL PRIMARY KEY,
+    organization_id UUID NOT NULL REFERENCES organizations(id) ON DELETE CASCADE,
+    day             DATE NOT NULL,
+    category_id     UUID,
+    vendor_name     VARCHAR(255) NOT NULL,
+    status          VARCHAR(50) NOT NULL,
+    currency        VARCHAR(3) NOT NULL,
+    total_amount    DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    tax_amount      DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    expense_count   INT NOT NULL DEFAULT 0,
+    CONSTRAINT uq_expense_daily_rollups
+        UNIQUE NULLS NOT DISTINCT (organization_id, day, category_id, vendor_name, status, currency)
+);
+
+CREATE INDEX idx_expense_daily_rollups_org_status_day ON expense_daily_rollups(organization_id, status, day);
+
+-- Applies one expense's contribution (sign = 1 to add, -1 to remove) to its rollup row.
+-- category_id has no FK: expenses.category_id is SET NULL on category delete, and the
+-- resulting expense UPDATE moves the amounts to the uncategorized row.
+CREATE OR REPLACE FUNCTION expense_daily_rollups_add(
+    p_org UUID, p_day DATE, p_category UUID, p_vendor VARCHAR, p_status VARCHAR, p_currency VARCHAR,
+    p_amount DECIMAL, p_tax DECIMAL, p_sign INT) RETURNS void AS $$
+BEGIN
+    INSERT INTO expense_daily_rollups
+        (organization_id, day, category_id, vendor_name, status, currency, total_amount, tax_amount, expense_count)
+    VALUES (p_org, p_day, p_category, p_vendor, p_status, p_currency,
+            p_sign * p_amount, p_sign * coalesce(p_tax, 0), p_sign)
+    ON CONFLICT ON CONSTRAINT uq_expense_daily_rollups DO UPDATE SET
+        total_amount  = expense_daily_rollups.total_amount + EXCLUDED.total_amount,
+        tax_amount    = expense_daily_rollups.tax_amount + EXCLUDED.tax_amount,
+        expense_count = expense_daily_rollups.expense_count + EXCLUDED.expense_count;
+
+    IF p_sign < 0 THEN
+        DELETE FROM expense_daily_rollups
+         WHERE organization_id = p_org AND day = p_day AND category_id IS NOT DISTINCT FROM p_category
+           AND vendor_name = p_vendor AND status = p_status AND currency = p_currency
+           AND expense_count = 0;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION expenses_rollup_update() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM expense_daily_rollups_add(OLD.organization_id, OLD.date, OLD.category_id, OLD.vendor_name,
+                                          OLD.status, OLD.currency, OLD.amount, OLD.tax_amount, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM expense_daily_rollups_add(NEW.organization_id, NEW.date, NEW.category_id, NEW.vendor_name,
+                                          NEW.status, NEW.currency, NEW.amount, NEW.tax_amount, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_expenses_rollup_insert_delete
+    AFTER INSERT OR DELETE ON expenses
+    FOR EACH ROW EXECUTE FUNCTION expenses_rollup_update();
+
+-- Hibernate rewrites every column on update; only touch rollups when a rolled-up column changed
+CREATE TRIGGER trg_expenses_rollup_update
+    AFTER UPDATE ON expenses
+    FOR EACH ROW
+    WHEN ((OLD.organization_id, OLD.date, OLD.category_id, OLD.vendor_name, OLD.status, OLD.currency, OLD.amount, OLD.tax_amount)
+          IS DISTINCT FROM
+          (NEW.organization_id, NEW.date, NEW.category_id, NEW.vendor_name, NEW.status, NEW.currency, NEW.amount, NEW.tax_amount))
+    EXECUTE FUNCTION expenses_rollup_update();
+
+INSERT INTO expense_daily_rollups
+    (organization_id, day, category_id, vendor_name, status, currency, total_amount, tax_amount, expense_count)
+SELECT organization_id, date, category_id, vendor_name, status, currency,
+       SUM(amount), SUM(coalesce(tax_amount, 0)), COUNT(*)
+  FROM expenses
+ GROUP BY organization_id, date, category_id, vendor_name, status, currency;
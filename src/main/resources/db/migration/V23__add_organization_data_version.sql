@@ -0,0 +1,38 @@
+-- Monotonic per-org counter behind the conditional-GET ETags. Bumped once per statement
+-- (not per row) for every org whose expenses, invoices, budgets, categories or policies changed.
+ALTER TABLE organizations ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION organizations_bump_data_version() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE organizations SET data_version = data_version + 1
+         WHERE id IN (SELECT organization_id FROM new_rows);
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE organizations SET data_version = data_version + 1
+         WHERE id IN (SELECT organization_id FROM old_rows);
+    ELSE
+        UPDATE organizations SET data_version = data_version + 1
+         WHERE id IN (SELECT organization_id FROM new_rows UNION SELECT organization_id FROM old_rows);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Transition tables need one trigger per event
+DO $$
+DECLARE
+    t TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['expenses', 'invoices', 'budgets', 'categories', 'expense_policies'] LOOP
+        EXECUTE format('CREATE TRIGGER trg_%1$s_data_version_insert AFTER INSERT ON %1$I
+                            REFERENCING NEW TABLE AS new_rows
+                            FOR EACH STATEMENT EXECUTE FUNCTION organizations_bump_data_version()', t);
+        EXECUTE format('CREATE TRIGGER trg_%1$s_data_version_update AFTER UPDATE ON %1$I
+                            REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+                            FOR EACH STATEMENT EXECUTE FUNCTION organizations_bump_data_version()', t);
+        EXECUTE format('CREATE TRIGGER trg_%1$s_data_version_delete AFTER DELETE ON %1$I
+                            REFERENCING OLD TABLE AS old_rows
+                            FOR EACH STATEMENT EXECUTE FUNCTION organizations_bump_data_version()', t);
+    END LOOP;
+END;
+$$;
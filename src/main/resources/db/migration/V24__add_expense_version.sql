@@ -0,0 +1,2 @@
+-- Optimistic-locking counter for expenses; also the basis of their ETags
+ALTER TABLE expenses ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
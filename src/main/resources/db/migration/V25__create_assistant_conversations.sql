@@ -0,0 +1,25 @@
+CREATE TABLE assistant_conversations (
+    id                  UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    organization_id     UUID NOT NULL REFERENCES organizations(id) ON DELETE CASCADE,
+    user_id             UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    title               VARCHAR(200),
+    -- Rolling summary of every message with seq <= summarized_through
+    summary             TEXT,
+    summarized_through  INT NOT NULL DEFAULT 0,
+    message_count       INT NOT NULL DEFAULT 0,
+    created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at          TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_assistant_conversations_org_user ON assistant_conversations(organization_id, user_id, updated_at DESC);
+
+CREATE TABLE assistant_messages (
+    id              BIGSERIAL PRIMARY KEY,
+    conversation_id UUID NOT NULL REFERENCES assistant_conversations(id) ON DELETE CASCADE,
+    seq             INT NOT NULL,
+    role            VARCHAR(20) NOT NULL,
+    content         TEXT NOT NULL,
+    token_estimate  INT NOT NULL,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    UNIQUE (conversation_id, seq)
+);
@@ -0,0 +1,78 @@
+ALTER TABLE expenses ADD COLUMN submitted_by UUID REFERENCES users(id) ON DELETE SET NULL;
+
+UPDATE expenses e SET submitted_by = i.uploaded_by FROM invoices i WHERE e.invoice_id = i.id;
+
+ALTER TABLE expense_policies ADD COLUMN max_count INT;
+ALTER TABLE expense_policies ADD COLUMN window_days INT;
+
+-- Per-day count and spend of non-rejected expenses by vendor (lower-cased name) and by submitter,
+-- so windowed policy rules read at most one row per day in the window.
+CREATE TABLE expense_window_counters (
+    id              BIGSERIAL PRIMARY KEY,
+    organization_id UUID NOT NULL REFERENCES organizations(id) ON DELETE CASCADE,
+    dimension       VARCHAR(20) NOT NULL,
+    dimension_key   VARCHAR(255) NOT NULL,
+    day             DATE NOT NULL,
+    total_amount    DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    expense_count   INT NOT NULL DEFAULT 0,
+    CONSTRAINT uq_expense_window_counters UNIQUE (organization_id, dimension, dimension_key, day)
+);
+
+CREATE OR REPLACE FUNCTION expense_window_counters_add(
+    p_org UUID, p_dimension VARCHAR, p_key VARCHAR, p_day DATE, p_amount DECIMAL, p_sign INT) RETURNS void AS $$
+BEGIN
+    IF p_key IS NULL THEN
+        RETURN;
+    END IF;
+
+    INSERT INTO expense_window_counters (organization_id, dimension, dimension_key, day, total_amount, expense_count)
+    VALUES (p_org, p_dimension, p_key, p_day, p_sign * p_amount, p_sign)
+    ON CONFLICT ON CONSTRAINT uq_expense_window_counters DO UPDATE SET
+        total_amount  = expense_window_counters.total_amount + EXCLUDED.total_amount,
+        expense_count = expense_window_counters.expense_count + EXCLUDED.expense_count;
+
+    IF p_sign < 0 THEN
+        DELETE FROM expense_window_counters
+         WHERE organization_id = p_org AND dimension = p_dimension AND dimension_key = p_key AND day = p_day
+           AND expense_count = 0;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION expenses_window_counters_update() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.status <> 'REJECTED' THEN
+        PERFORM expense_window_counters_add(OLD.organization_id, 'VENDOR', lower(OLD.vendor_name), OLD.date, OLD.amount, -1);
+        PERFORM expense_window_counters_add(OLD.organization_id, 'SUBMITTER', OLD.submitted_by::text, OLD.date, OLD.amount, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.status <> 'REJECTED' THEN
+        PERFORM expense_window_counters_add(NEW.organization_id, 'VENDOR', lower(NEW.vendor_name), NEW.date, NEW.amount, 1);
+        PERFORM expense_window_counters_add(NEW.organization_id, 'SUBMITTER', NEW.submitted_by::text, NEW.date, NEW.amount, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_expenses_window_counters_insert_delete
+    AFTER INSERT OR DELETE ON expenses
+    FOR EACH ROW EXECUTE FUNCTION expenses_window_counters_update();
+
+CREATE TRIGGER trg_expenses_window_counters_update
+    AFTER UPDATE ON expenses
+    FOR EACH ROW
+    WHEN ((OLD.organization_id, OLD.date, OLD.vendor_name, OLD.submitted_by, OLD.status, OLD.amount)
+          IS DISTINCT FROM
+          (NEW.organization_id, NEW.date, NEW.vendor_name, NEW.submitted_by, NEW.status, NEW.amount))
+    EXECUTE FUNCTION expenses_window_counters_update();
+
+INSERT INTO expense_window_counters (organization_id, dimension, dimension_key, day, total_amount, expense_count)
+SELECT organization_id, 'VENDOR', lower(vendor_name), date, SUM(amount), COUNT(*)
+  FROM expenses
+ WHERE status <> 'REJECTED'
+ GROUP BY organization_id, lower(vendor_name), date;
+
+INSERT INTO expense_window_counters (organization_id, dimension, dimension_key, day, total_amount, expense_count)
+SELECT organization_id, 'SUBMITTER', submitted_by::text, date, SUM(amount), COUNT(*)
+  FROM expenses
+ WHERE status <> 'REJECTED' AND submitted_by IS NOT NULL
+ GROUP BY organization_id, submitted_by, date;
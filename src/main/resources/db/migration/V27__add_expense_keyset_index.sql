@@ -0,0 +1,2 @@
+-- Keyset pagination over an org's expenses in (date, id) order, used by policy simulation and backfill
+CREATE INDEX idx_expenses_org_date_id ON expenses(organization_id, date, id);
@@ -0,0 +1,83 @@
+-- Per-budget threshold lists replace the fixed 80% / 100% flags
+ALTER TABLE budgets ADD COLUMN alert_thresholds INT[] NOT NULL DEFAULT '{80,100}';
+
+UPDATE budgets
+   SET alert_thresholds = array_remove(ARRAY[CASE WHEN alert_at_80 THEN 80 END, CASE WHEN alert_at_100 THEN 100 END], NULL);
+
+ALTER TABLE budgets DROP COLUMN alert_at_80;
+ALTER TABLE budgets DROP COLUMN alert_at_100;
+
+ALTER TABLE budget_alerts ADD COLUMN threshold INT;
+
+UPDATE budget_alerts
+   SET threshold = CASE alert_type WHEN 'THRESHOLD_80' THEN 80 ELSE 100 END,
+       alert_type = 'THRESHOLD';
+
+ALTER TABLE budget_alerts ALTER COLUMN threshold SET NOT NULL;
+
+DROP INDEX idx_budget_alerts_unique;
+CREATE UNIQUE INDEX idx_budget_alerts_unique ON budget_alerts(budget_id, alert_type, threshold, month);
+
+-- Approved spend per month for the whole org (category_id NULL) and per category. An approval
+-- updates these rows, which stay locked until it commits, so concurrent approvals see
+-- consecutive before/after totals and each threshold crossing is seen by exactly one of them.
+CREATE TABLE approved_monthly_spend (
+    id              BIGSERIAL PRIMARY KEY,
+    organization_id UUID NOT NULL REFERENCES organizations(id) ON DELETE CASCADE,
+    month           DATE NOT NULL,
+    category_id     UUID,
+    total_amount    DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    CONSTRAINT uq_approved_monthly_spend UNIQUE NULLS NOT DISTINCT (organization_id, month, category_id)
+);
+
+CREATE OR REPLACE FUNCTION approved_monthly_spend_add(
+    p_org UUID, p_day DATE, p_category UUID, p_amount DECIMAL, p_sign INT) RETURNS void AS $$
+BEGIN
+    INSERT INTO approved_monthly_spend (organization_id, month, category_id, total_amount)
+    VALUES (p_org, date_trunc('month', p_day)::date, NULL, p_sign * p_amount)
+    ON CONFLICT ON CONSTRAINT uq_approved_monthly_spend DO UPDATE SET
+        total_amount = approved_monthly_spend.total_amount + EXCLUDED.total_amount;
+
+    IF p_category IS NOT NULL THEN
+        INSERT INTO approved_monthly_spend (organization_id, month, category_id, total_amount)
+        VALUES (p_org, date_trunc('month', p_day)::date, p_category, p_sign * p_amount)
+        ON CONFLICT ON CONSTRAINT uq_approved_monthly_spend DO UPDATE SET
+            total_amount = approved_monthly_spend.total_amount + EXCLUDED.total_amount;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION expenses_monthly_spend_update() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.status = 'APPROVED' THEN
+        PERFORM approved_monthly_spend_add(OLD.organization_id, OLD.date, OLD.category_id, OLD.amount, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.status = 'APPROVED' THEN
+        PERFORM approved_monthly_spend_add(NEW.organization_id, NEW.date, NEW.category_id, NEW.amount, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_expenses_monthly_spend_insert_delete
+    AFTER INSERT OR DELETE ON expenses
+    FOR EACH ROW EXECUTE FUNCTION expenses_monthly_spend_update();
+
+CREATE TRIGGER trg_expenses_monthly_spend_update
+    AFTER UPDATE ON expenses
+    FOR EACH ROW
+    WHEN ((OLD.organization_id, OLD.date, OLD.category_id, OLD.status, OLD.amount)
+          IS DISTINCT FROM
+          (NEW.organization_id, NEW.date, NEW.category_id, NEW.status, NEW.amount))
+    EXECUTE FUNCTION expenses_monthly_spend_update();
+
+INSERT INTO approved_monthly_spend (organization_id, month, category_id, total_amount)
+SELECT organization_id, date_trunc('month', date)::date, NULL, SUM(amount)
+  FROM expenses
+ WHERE status = 'APPROVED'
+ GROUP BY organization_id, date_trunc('month', date)
+UNION ALL
+SELECT organization_id, date_trunc('month', date)::date, category_id, SUM(amount)
+  FROM expenses
+ WHERE status = 'APPROVED' AND category_id IS NOT NULL
+ GROUP BY organization_id, date_trunc('month', date), category_id;
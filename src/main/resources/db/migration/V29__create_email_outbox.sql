@@ -0,0 +1,22 @@
+-- Outgoing mail, written in the transaction that produced it and delivered by the dispatcher.
+-- A claimed row's next_attempt_at is pushed out by the lease, so a crashed sender's rows are
+-- picked up again once the lease expires.
+CREATE TABLE email_outbox (
+    id              BIGSERIAL PRIMARY KEY,
+    organization_id UUID REFERENCES organizations(id) ON DELETE CASCADE,
+    recipient       VARCHAR(255) NOT NULL,
+    subject         VARCHAR(500) NOT NULL,
+    html_body       TEXT NOT NULL,
+    attachment_name VARCHAR(255),
+    attachment_type VARCHAR(100),
+    attachment      BYTEA,
+    status          VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts        INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    last_error      TEXT,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    sent_at         TIMESTAMPTZ
+);
+
+CREATE INDEX idx_email_outbox_due ON email_outbox(next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_email_outbox_sent ON email_outbox(sent_at) WHERE status = 'SENT';
@@ -0,0 +1,16 @@
+ALTER TABLE notification_preferences ADD COLUMN digest_frequency VARCHAR(20) NOT NULL DEFAULT 'IMMEDIATE';
+
+-- Notifications held for recipients who chose a digest, until the next digest run sends them
+-- as one email and deletes them.
+CREATE TABLE notification_digest_items (
+    id              BIGSERIAL PRIMARY KEY,
+    organization_id UUID NOT NULL REFERENCES organizations(id) ON DELETE CASCADE,
+    user_id         UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    type            VARCHAR(30) NOT NULL,
+    title           VARCHAR(500) NOT NULL,
+    detail          TEXT,
+    link            VARCHAR(500),
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_notification_digest_items_recipient ON notification_digest_items(organization_id, user_id, id);
@@ -0,0 +1,12 @@
+-- Lease taken by the node processing a due recurring expense
+ALTER TABLE recurring_expenses ADD COLUMN claimed_until TIMESTAMPTZ;
+
+DROP INDEX idx_recurring_due;
+CREATE INDEX idx_recurring_due ON recurring_expenses(next_due_date) WHERE is_active;
+
+-- Idempotency key for generated expenses: at most one expense per recurring expense and period
+ALTER TABLE expenses ADD COLUMN recurring_expense_id UUID REFERENCES recurring_expenses(id) ON DELETE SET NULL;
+ALTER TABLE expenses ADD COLUMN recurring_due_date DATE;
+
+CREATE UNIQUE INDEX idx_expenses_recurring_occurrence ON expenses(recurring_expense_id, recurring_due_date)
+    WHERE recurring_expense_id IS NOT NULL;
@@ -0,0 +1,18 @@
+-- A rollup rebuild used to LOCK TABLE expenses, stalling writes for every org. Writers now take
+-- their org's rollup lock shared (so they never wait on each other) and a rebuild takes it
+-- exclusive, which only holds up writes to the org being rebuilt.
+CREATE OR REPLACE FUNCTION expenses_rollup_update() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM pg_advisory_xact_lock_shared(hashtext('expense_daily_rollups'), hashtext(OLD.organization_id::text));
+        PERFORM expense_daily_rollups_add(OLD.organization_id, OLD.date, OLD.category_id, OLD.vendor_name,
+                                          OLD.status, OLD.currency, OLD.amount, OLD.tax_amount, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM pg_advisory_xact_lock_shared(hashtext('expense_daily_rollups'), hashtext(NEW.organization_id::text));
+        PERFORM expense_daily_rollups_add(NEW.organization_id, NEW.date, NEW.category_id, NEW.vendor_name,
+                                          NEW.status, NEW.currency, NEW.amount, NEW.tax_amount, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,127 @@
+package com.invoiceai.controller;
+
+import com.invoiceai.security.JwtTokenProvider;
+import com.invoiceai.support.TestOrganization;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the list endpoints against N+1 loading: each page costs a fixed number of statements
+ * no matter how many rows (and associations) it holds. Every test runs over a small and a larger
+ * page and expects the same count from both.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ListQueryCountTest {
+
+    // Each includes the JWT filter's user lookup. The page fits in one request, so Spring Data
+    // skips the count query.
+    private static final long EXPENSES = 4;   // ETag data_version, page with category + invoice, batched line items
+    private static final long INVOICES = 3;   // page with uploader, linked expenses for the whole page
+    private static final long VIOLATIONS = 2; // page with expense + policy
+    private static final long AUDIT_LOGS = 2; // page with user
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TestOrganization org;
+
+    @AfterEach
+    void cleanUp() {
+        if (org != null) {
+            org.delete();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 12})
+    void expenseListUsesAFixedNumberOfStatements(int rows) throws Exception {
+        seed(rows);
+        assertThat(statementsFor("/expenses?size=50")).isEqualTo(EXPENSES);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 12})
+    void invoiceListUsesAFixedNumberOfStatements(int rows) throws Exception {
+        seed(rows);
+        assertThat(statementsFor("/invoices?size=50")).isEqualTo(INVOICES);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 12})
+    void violationListUsesAFixedNumberOfStatements(int rows) throws Exception {
+        seed(rows);
+        assertThat(statementsFor("/policies/violations?size=50")).isEqualTo(VIOLATIONS);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 12})
+    void auditLogListUsesAFixedNumberOfStatements(int rows) throws Exception {
+        seed(rows);
+        assertThat(statementsFor("/audit-logs?size=50")).isEqualTo(AUDIT_LOGS);
+    }
+
+    private void seed(int rows) {
+        org = TestOrganization.create(jdbc);
+        UUID policyId = UUID.randomUUID();
+        jdbc.update("INSERT INTO expense_policies (id, organization_id, name, rule_type, threshold_amount) "
+                + "VALUES (?, ?, 'Cap', 'MAX_AMOUNT_PER_EXPENSE', 10)", policyId, org.id());
+
+        for (int i = 0; i < rows; i++) {
+            UUID categoryId = UUID.randomUUID();
+            UUID invoiceId = UUID.randomUUID();
+            UUID expenseId = UUID.randomUUID();
+            jdbc.update("INSERT INTO categories (id, organization_id, name) VALUES (?, ?, ?)",
+                    categoryId, org.id(), "Category " + i);
+            jdbc.update("INSERT INTO invoices (id, organization_id, file_key, file_name, file_size, file_type, status, uploaded_by) "
+                    + "VALUES (?, ?, ?, 'receipt.pdf', 100, 'application/pdf', 'EXTRACTED', ?)",
+                    invoiceId, org.id(), "key-" + invoiceId, org.ownerId());
+            jdbc.update("INSERT INTO expenses (id, organization_id, vendor_name, amount, date, status, category_id, invoice_id) "
+                    + "VALUES (?, ?, ?, 50, ?, 'NEEDS_REVIEW', ?, ?)",
+                    expenseId, org.id(), "Vendor " + i, LocalDate.of(2026, 1, 1).plusDays(i), categoryId, invoiceId);
+            jdbc.update("INSERT INTO expense_line_items (expense_id, description, unit_price, total) VALUES (?, 'Item', 25, 25)",
+                    expenseId);
+            jdbc.update("INSERT INTO expense_line_items (expense_id, description, unit_price, total) VALUES (?, 'Item', 25, 25)",
+                    expenseId);
+            jdbc.update("INSERT INTO policy_violations (organization_id, expense_id, policy_id, violation_message) "
+                    + "VALUES (?, ?, ?, 'Over cap')", org.id(), expenseId, policyId);
+            jdbc.update("INSERT INTO audit_logs (organization_id, user_id, entity_type, entity_id, action) "
+                    + "VALUES (?, ?, 'EXPENSE', ?, 'CREATE')", org.id(), org.ownerId(), expenseId);
+        }
+    }
+
+    private long statementsFor(String url) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mvc.perform(get(url)
+                        .header("Authorization", "Bearer " + jwtTokenProvider.generateAccessToken(org.ownerId(), org.ownerEmail()))
+                        .header("X-Organization-Id", org.id().toString()))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,112 @@
+package com.invoiceai.service;
+
+import com.invoiceai.model.AssistantConversation;
+import com.invoiceai.model.AssistantMessage;
+import com.invoiceai.repository.AssistantConversationRepository;
+import com.invoiceai.repository.AssistantMessageRepository;
+import com.invoiceai.service.ai.AiChatService;
+import com.invoiceai.service.ai.AiChatService.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.invoiceai.service.AssistantConversationService.ASSISTANT;
+import static com.invoiceai.service.AssistantConversationService.USER;
+import static com.invoiceai.service.AssistantConversationService.estimateTokens;
+import static com.invoiceai.service.AssistantConversationService.foldPoint;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssistantConversationServiceTest {
+
+    private static final UUID CONVERSATION_ID = UUID.randomUUID();
+    // 40 characters, 11 tokens
+    private static final String SUMMARY = "s".repeat(40);
+
+    private final AssistantConversationRepository conversationRepository = mock(AssistantConversationRepository.class);
+    private final AssistantMessageRepository messageRepository = mock(AssistantMessageRepository.class);
+    private final AiChatService aiChatService = mock(AiChatService.class);
+    private final AssistantConversationService service =
+            new AssistantConversationService(conversationRepository, messageRepository, aiChatService);
+
+    @BeforeEach
+    void setUp() {
+        when(conversationRepository.findById(CONVERSATION_ID)).thenReturn(Optional.of(AssistantConversation.builder()
+                .id(CONVERSATION_ID)
+                .summary(SUMMARY)
+                .build()));
+        // Five turns of 20 tokens each, ending on the user's question
+        when(messageRepository.findByConversationIdAndSeqGreaterThanOrderBySeq(CONVERSATION_ID, 0))
+                .thenReturn(turns(USER, ASSISTANT, USER, ASSISTANT, USER));
+        when(aiChatService.chat(anyString(), any(), any())).thenReturn(SUMMARY);
+    }
+
+    @Test
+    void estimateRoundsUpToAtLeastOneTokenPerMessage() {
+        assertThat(estimateTokens(null)).isZero();
+        assertThat(estimateTokens("")).isEqualTo(1);
+        assertThat(estimateTokens("x".repeat(76))).isEqualTo(20);
+        assertThat(estimateTokens(SUMMARY)).isEqualTo(11);
+    }
+
+    @Test
+    void foldPointKeepsMessagesThatFitTheTargetExactly() {
+        List<AssistantMessage> messages = turns(USER, ASSISTANT, USER, ASSISTANT, USER);
+
+        // The newest three add up to the target
+        assertThat(foldPoint(messages, 60)).isEqualTo(2);
+        // One token short: the newest two fit, and the kept history moves on to start with a user turn
+        assertThat(foldPoint(messages, 59)).isEqualTo(4);
+    }
+
+    @Test
+    void foldPointNeverFoldsTheLatestUserMessage() {
+        assertThat(foldPoint(turns(USER, ASSISTANT, USER, ASSISTANT), 0)).isEqualTo(2);
+        assertThat(foldPoint(turns(ASSISTANT, ASSISTANT), 0)).isZero();
+    }
+
+    @Test
+    void historyAtTheBudgetIsSentWithoutFolding() {
+        // Summary 11 + five turns of 20
+        List<ChatMessage> history = service.history(CONVERSATION_ID, 111);
+
+        verify(aiChatService, never()).chat(anyString(), any(), any());
+        assertThat(history).hasSize(7);
+    }
+
+    @Test
+    void historyOverTheBudgetFoldsUntilSummaryAndRecentFitHalfOfIt() {
+        List<ChatMessage> history = service.history(CONVERSATION_ID, 110);
+
+        // Half the budget, less the summary, leaves 44 tokens: the newest two turns fit, and the
+        // assistant turn is folded too so the kept history starts with the user's
+        verify(conversationRepository).updateSummary(eq(CONVERSATION_ID), eq(SUMMARY), eq(4));
+        assertThat(history).extracting(ChatMessage::role).containsExactly(USER, ASSISTANT, USER);
+        int sent = estimateTokens(SUMMARY) + estimateTokens(history.getLast().content());
+        assertThat(sent).isEqualTo(31).isLessThanOrEqualTo(110 / 2);
+    }
+
+    private static List<AssistantMessage> turns(String... roles) {
+        List<AssistantMessage> messages = new ArrayList<>();
+        for (int i = 0; i < roles.length; i++) {
+            String content = Character.toString('a' + i).repeat(76);
+            messages.add(AssistantMessage.builder()
+                    .seq(i + 1)
+                    .role(roles[i])
+                    .content(content)
+                    .tokenEstimate(estimateTokens(content))
+                    .build());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,106 @@
+package com.invoiceai.service;
+
+import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.service.cache.CacheInvalidationBus;
+import com.invoiceai.service.duplicate.DuplicateCandidateIndex;
+import com.invoiceai.service.duplicate.DuplicateMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DuplicateDetectionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final UUID orgId = UUID.randomUUID();
+    private final ExpenseRepository expenseRepository = mock(ExpenseRepository.class);
+    private final List<Object[]> indexRows = new ArrayList<>();
+    private DuplicateDetectionService service;
+
+    @BeforeEach
+    void setUp() {
+        when(expenseRepository.findDuplicateIndexRows(eq(orgId), any())).thenReturn(indexRows);
+        DuplicateCandidateIndex index = new DuplicateCandidateIndex(expenseRepository, 180, 10, 30, 24);
+        // 1% amount tolerance, 2 days date tolerance, 0.75 minimum score
+        service = new DuplicateDetectionService(expenseRepository, index, mock(CacheInvalidationBus.class),
+                BigDecimal.ONE, 2, 0.75);
+    }
+
+    @Test
+    void identicalVendorAmountAndDateScoresOne() {
+        UUID existing = indexed("Amazon.com, Inc.", "100.00", "USD", TODAY);
+
+        List<DuplicateMatch> matches = find("AMAZON", "100.00", "USD", TODAY);
+
+        assertThat(matches).containsExactly(new DuplicateMatch(existing, 1.0));
+    }
+
+    @Test
+    void amountAndDateDistanceLowerTheScoreLinearly() {
+        UUID amountOff = indexed("Amazon", "101.00", "USD", TODAY);
+        UUID dateOff = indexed("Amazon", "100.00", "USD", TODAY.minusDays(2));
+
+        List<DuplicateMatch> matches = find("Amazon", "100.00", "USD", TODAY);
+
+        // A full tolerance away halves that component: 0.6 + 0.25 + 0.15 * 0.5 and 0.6 + 0.25 * 0.5 + 0.15
+        assertThat(matches).containsExactly(new DuplicateMatch(dateOff, 0.925), new DuplicateMatch(amountOff, 0.875));
+    }
+
+    @Test
+    void candidatesOutsideTheTolerancesAreNotConsidered() {
+        indexed("Amazon", "101.01", "USD", TODAY);
+        indexed("Amazon", "100.00", "USD", TODAY.plusDays(3));
+
+        assertThat(find("Amazon", "100.00", "USD", TODAY)).isEmpty();
+    }
+
+    @Test
+    void smallAmountsUseTheMinimumTolerance() {
+        UUID existing = indexed("Parking", "2.01", "USD", TODAY);
+
+        assertThat(find("Parking", "2.00", "USD", TODAY)).extracting(DuplicateMatch::expenseId).containsExactly(existing);
+    }
+
+    @Test
+    void differentVendorsFallBelowTheMinimumScore() {
+        indexed("Starbucks", "100.00", "USD", TODAY);
+
+        assertThat(find("Amazon", "100.00", "USD", TODAY)).isEmpty();
+    }
+
+    @Test
+    void otherCurrenciesNeverMatch() {
+        indexed("Amazon", "100.00", "EUR", TODAY);
+        UUID dollars = indexed("Amazon", "100.00", "USD", TODAY);
+
+        assertThat(find("Amazon", "100.00", "USD", TODAY)).extracting(DuplicateMatch::expenseId).containsExactly(dollars);
+    }
+
+    @Test
+    void excludedExpenseIsSkipped() {
+        UUID self = indexed("Amazon", "100.00", "USD", TODAY);
+
+        assertThat(service.findCandidates(orgId, "Amazon", new BigDecimal("100.00"), "USD", TODAY, self, 3)).isEmpty();
+    }
+
+    private UUID indexed(String vendor, String amount, String currency, LocalDate date) {
+        UUID id = UUID.randomUUID();
+        indexRows.add(new Object[]{id, vendor, new BigDecimal(amount), currency, date});
+        return id;
+    }
+
+    private List<DuplicateMatch> find(String vendor, String amount, String currency, LocalDate date) {
+        return service.findCandidates(orgId, vendor, new BigDecimal(amount), currency, date, null, 3);
+    }
+}
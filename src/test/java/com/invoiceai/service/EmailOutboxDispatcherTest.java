@@ -0,0 +1,65 @@
+package com.invoiceai.service;
+
+import com.invoiceai.model.EmailOutboxMessage;
+import com.invoiceai.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxDispatcherTest {
+
+    private final EmailOutboxRepository outboxRepository = mock(EmailOutboxRepository.class);
+
+    @Test
+    void unreachableServerHandsTheBatchBackWithoutSpendingAttempts() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        // Nothing listens on port 1, so connect() fails
+        mailSender.setHost("localhost");
+        mailSender.setPort(1);
+        EmailOutboxDispatcher dispatcher = dispatcher(mailSender);
+
+        // On their last attempt: counting the outage against them would fail all three
+        when(outboxRepository.claimDue(anyInt(), anyInt())).thenReturn(List.of(message(1L), message(2L), message(3L)));
+
+        assertThat(dispatcher.dispatchDue()).isZero();
+
+        verify(outboxRepository).releaseClaim(eq(List.of(1L, 2L, 3L)), any(), anyString());
+        verify(outboxRepository, never()).markAttemptFailed(anyLong(), any(), any(), any());
+        verify(outboxRepository, never()).markSent(any(), any());
+    }
+
+    private EmailOutboxDispatcher dispatcher(JavaMailSenderImpl mailSender) {
+        EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(mailSender, outboxRepository);
+        ReflectionTestUtils.setField(dispatcher, "fromAddress", "noreply@example.com");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 300);
+        ReflectionTestUtils.setField(dispatcher, "maxPerMinute", 60_000);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 8);
+        ReflectionTestUtils.setField(dispatcher, "retryBaseSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "connectionIdleSeconds", 60L);
+        return dispatcher;
+    }
+
+    private static EmailOutboxMessage message(long id) {
+        return EmailOutboxMessage.builder()
+                .id(id)
+                .recipient("user" + id + "@example.com")
+                .subject("Subject")
+                .htmlBody("<p>Body</p>")
+                .attempts(7)
+                .build();
+    }
+}
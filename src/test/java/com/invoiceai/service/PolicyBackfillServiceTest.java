@@ -0,0 +1,131 @@
+package com.invoiceai.service;
+
+import com.invoiceai.dto.request.PolicyBackfillRequest;
+import com.invoiceai.dto.request.SimulatePolicyRequest;
+import com.invoiceai.dto.response.PolicyBackfillResponse;
+import com.invoiceai.dto.response.PolicySimulationResponse;
+import com.invoiceai.model.enums.PolicyRuleType;
+import com.invoiceai.security.TenantContext;
+import com.invoiceai.support.TestOrganization;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs simulate and backfill against the database with two-row chunks, so every scan pages
+ * several times, including between expenses that share a date.
+ */
+@SpringBootTest(properties = {
+        "app.policies.scan.chunk-size=2",
+        "app.policies.scan.pause-millis=0"})
+class PolicyBackfillServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private PolicyBackfillService backfillService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestOrganization org;
+    private UUID policyId;
+    private final List<UUID> overCap = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        org = TestOrganization.create(jdbc);
+        policyId = UUID.randomUUID();
+        jdbc.update("INSERT INTO expense_policies (id, organization_id, name, rule_type, threshold_amount) "
+                + "VALUES (?, ?, 'Cap', 'MAX_AMOUNT_PER_EXPENSE', 10)", policyId, org.id());
+
+        // Five over the cap on one date, so chunk boundaries fall between equal dates
+        for (int i = 0; i < 5; i++) {
+            overCap.add(expense(TODAY.minusDays(10), "50", "APPROVED"));
+        }
+        expense(TODAY.minusDays(10), "5", "APPROVED");
+        expense(TODAY.minusDays(20), "50", "REJECTED");
+        expense(TODAY.minusDays(400), "50", "APPROVED");
+        TenantContext.setCurrentOrgId(org.id());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        TenantContext.clear();
+        org.delete();
+    }
+
+    @Test
+    void simulateScansEachExpenseOnceAcrossChunksOfEqualDates() {
+        PolicySimulationResponse result = backfillService.simulate(draft(TODAY.minusDays(30), TODAY));
+
+        assertThat(result.getScanned()).isEqualTo(6);
+        assertThat(result.getMatched()).isEqualTo(5);
+        assertThat(result.getSamples()).extracting(PolicySimulationResponse.Sample::getExpenseId)
+                .containsExactlyInAnyOrderElementsOf(overCap);
+    }
+
+    @Test
+    void simulateDefaultsToTheLastYear() {
+        PolicySimulationResponse result = backfillService.simulate(draft(null, null));
+
+        assertThat(result.getTo()).isEqualTo(TODAY);
+        assertThat(result.getFrom()).isEqualTo(TODAY.minusDays(365));
+        // The 400-day-old expense is outside the default range
+        assertThat(result.getScanned()).isEqualTo(6);
+
+        assertThat(backfillService.simulate(draft(TODAY.minusDays(500), null)).getScanned()).isEqualTo(7);
+    }
+
+    @Test
+    void rerunningABackfillSkipsViolationsAlreadyRecorded() throws InterruptedException {
+        PolicyBackfillResponse first = awaitBackfill(new PolicyBackfillRequest());
+        PolicyBackfillResponse second = awaitBackfill(new PolicyBackfillRequest());
+
+        assertThat(first.getStatus()).isEqualTo("COMPLETED");
+        assertThat(first.getMatched()).isEqualTo(5);
+        assertThat(first.getInserted()).isEqualTo(5);
+        assertThat(second.getStatus()).isEqualTo("COMPLETED");
+        assertThat(second.getMatched()).isEqualTo(5);
+        assertThat(second.getInserted()).isZero();
+        assertThat(jdbc.queryForList("SELECT expense_id FROM policy_violations WHERE policy_id = ?", UUID.class, policyId))
+                .containsExactlyInAnyOrderElementsOf(overCap);
+    }
+
+    private PolicyBackfillResponse awaitBackfill(PolicyBackfillRequest request) throws InterruptedException {
+        PolicyBackfillResponse job = backfillService.startBackfill(policyId, request);
+        for (int i = 0; i < 100 && job.getStatus().equals("RUNNING"); i++) {
+            Thread.sleep(50);
+            job = backfillService.getBackfill(job.getJobId());
+        }
+        return job;
+    }
+
+    private SimulatePolicyRequest draft(LocalDate from, LocalDate to) {
+        SimulatePolicyRequest request = new SimulatePolicyRequest();
+        request.setName("Cap");
+        request.setRuleType(PolicyRuleType.MAX_AMOUNT_PER_EXPENSE);
+        request.setThresholdAmount(BigDecimal.TEN);
+        request.setFrom(from);
+        request.setTo(to);
+        return request;
+    }
+
+    private UUID expense(LocalDate date, String amount, String status) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO expenses (id, organization_id, vendor_name, amount, date, status) VALUES (?, ?, 'Vendor', ?, ?, ?)",
+                id, org.id(), new BigDecimal(amount), date, status);
+        return id;
+    }
+}
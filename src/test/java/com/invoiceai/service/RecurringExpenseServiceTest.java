@@ -0,0 +1,79 @@
+package com.invoiceai.service;
+
+import com.invoiceai.support.TestOrganization;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catches up a monthly recurring expense five periods behind, three periods per call, with one
+ * period already generated by an earlier run.
+ */
+@SpringBootTest(properties = "app.recurring.max-catch-up-periods=3")
+class RecurringExpenseServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 15);
+
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestOrganization org;
+    private UUID recurringId;
+
+    @BeforeEach
+    void seed() {
+        org = TestOrganization.create(jdbc);
+        recurringId = UUID.randomUUID();
+        // Claimed by a node that is processing it now
+        jdbc.update("INSERT INTO recurring_expenses (id, organization_id, vendor_name, amount, frequency, next_due_date, claimed_until) "
+                + "VALUES (?, ?, 'Rent', 1000, 'MONTHLY', ?, NOW() + INTERVAL '10 minutes')",
+                recurringId, org.id(), LocalDate.of(2026, 2, 15));
+        jdbc.update("INSERT INTO expenses (organization_id, vendor_name, amount, date, status, recurring_expense_id, recurring_due_date) "
+                + "VALUES (?, 'Rent', 1000, ?, 'APPROVED', ?, ?)",
+                org.id(), LocalDate.of(2026, 3, 15), recurringId, LocalDate.of(2026, 3, 15));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        org.delete();
+    }
+
+    @Test
+    void catchingUpCreatesOneExpensePerPeriodAcrossRuns() {
+        // February, March (already there) and April
+        assertThat(recurringExpenseService.processRecurringExpense(recurringId, TODAY)).isEqualTo(2);
+        assertThat(nextDueDate()).isEqualTo(LocalDate.of(2026, 5, 15));
+        // The lease is released, so the next scheduled run claims the rest
+        assertThat(jdbc.queryForObject("SELECT claimed_until IS NULL FROM recurring_expenses WHERE id = ?",
+                Boolean.class, recurringId)).isTrue();
+
+        // May and June
+        assertThat(recurringExpenseService.processRecurringExpense(recurringId, TODAY)).isEqualTo(2);
+        assertThat(recurringExpenseService.processRecurringExpense(recurringId, TODAY)).isZero();
+
+        assertThat(nextDueDate()).isEqualTo(LocalDate.of(2026, 7, 15));
+        assertThat(jdbc.queryForList("SELECT date FROM expenses WHERE recurring_expense_id = ? ORDER BY date",
+                LocalDate.class, recurringId))
+                .containsExactly(
+                        LocalDate.of(2026, 2, 15),
+                        LocalDate.of(2026, 3, 15),
+                        LocalDate.of(2026, 4, 15),
+                        LocalDate.of(2026, 5, 15),
+                        LocalDate.of(2026, 6, 15));
+    }
+
+    private LocalDate nextDueDate() {
+        return jdbc.queryForObject("SELECT next_due_date FROM recurring_expenses WHERE id = ?", LocalDate.class, recurringId);
+    }
+}
@@ -0,0 +1,130 @@
+package com.invoiceai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoiceai.service.ai.AiChatService.ChatMessage;
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import com.invoiceai.service.ai.ToolLoop.ToolCall;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Provider request bodies and usage parsing, checked against recorded API payloads in
+ * {@code src/test/resources/fixtures/ai}.
+ */
+class AiRequestBuildersTest {
+
+    private static final String SYSTEM_PROMPT = "You are an AI expense assistant for InvoiceAI.";
+    private static final List<ChatMessage> HISTORY = List.of(
+            new ChatMessage("user", "How much did we spend on travel?"),
+            new ChatMessage("assistant", "$1,240.00 this month."),
+            new ChatMessage("user", "And last month?"));
+
+    private static final ChatTool TOOL = new ChatTool("spend_summary", "Total approved spend between two dates.",
+            Map.of("type", "object",
+                    "properties", Map.of("from", Map.of("type", "string"), "to", Map.of("type", "string")),
+                    "required", List.of("from", "to")),
+            args -> Map.of());
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void claudeChatMarksSystemPromptAsCacheable() throws IOException {
+        JsonNode request = objectMapper.valueToTree(
+                ClaudeRequests.chat("claude-haiku-4-5-20251001", SYSTEM_PROMPT, ClaudeRequests.messages(HISTORY), List.of(), false));
+
+        assertThat(request).isEqualTo(fixture("claude-chat-request.json"));
+    }
+
+    @Test
+    void claudeExtractionSendsInstructionsAsCachedSystemBlock() {
+        JsonNode request = objectMapper.valueToTree(
+                ClaudeRequests.extraction("claude-haiku-4-5-20251001", "Extract.", "application/pdf", "JVBERi0x"));
+
+        assertThat(request.at("/system/0/text").asText()).isEqualTo("Extract.");
+        assertThat(request.at("/system/0/cache_control/type").asText()).isEqualTo("ephemeral");
+        assertThat(request.at("/messages/0/content/0/type").asText()).isEqualTo("document");
+        assertThat(request.at("/messages/0/content/0/source/data").asText()).isEqualTo("JVBERi0x");
+    }
+
+    @Test
+    void geminiChatReferencesCachedContentInsteadOfSystemInstruction() throws IOException {
+        JsonNode request = objectMapper.valueToTree(
+                GeminiRequests.chat(SYSTEM_PROMPT, "cachedContents/4d5e6f7a8b9c", GeminiRequests.contents(HISTORY), List.of(TOOL)));
+
+        assertThat(request).isEqualTo(fixture("gemini-chat-request.json"));
+    }
+
+    @Test
+    void geminiChatInlinesSystemPromptWithoutCacheHandle() {
+        JsonNode request = objectMapper.valueToTree(GeminiRequests.chat(SYSTEM_PROMPT, null, GeminiRequests.contents(HISTORY), List.of(TOOL)));
+
+        assertThat(request.has("cachedContent")).isFalse();
+        assertThat(request.at("/system_instruction/parts/0/text").asText()).isEqualTo(SYSTEM_PROMPT);
+        assertThat(request.at("/tools/0/functionDeclarations/0/name").asText()).isEqualTo("spend_summary");
+    }
+
+    @Test
+    void geminiCachedContentCarriesModelAndTtl() {
+        JsonNode request = objectMapper.valueToTree(
+                GeminiRequests.cachedContent("gemini-2.0-flash", SYSTEM_PROMPT, List.of(TOOL), Duration.ofMinutes(30)));
+
+        assertThat(request.path("model").asText()).isEqualTo("models/gemini-2.0-flash");
+        assertThat(request.path("ttl").asText()).isEqualTo("1800s");
+        assertThat(request.at("/systemInstruction/parts/0/text").asText()).isEqualTo(SYSTEM_PROMPT);
+        assertThat(request.at("/tools/0/functionDeclarations/0/parameters/required/0").asText()).isEqualTo("from");
+    }
+
+    @Test
+    void claudeChatDeclaresToolsAndReturnsResultsInOneUserMessage() {
+        JsonNode request = objectMapper.valueToTree(
+                ClaudeRequests.chat("claude-haiku-4-5-20251001", SYSTEM_PROMPT, ClaudeRequests.messages(HISTORY), List.of(TOOL), true));
+        assertThat(request.at("/tools/0/name").asText()).isEqualTo("spend_summary");
+        assertThat(request.at("/tools/0/input_schema/type").asText()).isEqualTo("object");
+
+        List<ToolCall> calls = List.of(
+                new ToolCall("toolu_01", "spend_summary", objectMapper.createObjectNode()),
+                new ToolCall("toolu_02", "spend_summary", objectMapper.createObjectNode()));
+        JsonNode results = objectMapper.valueToTree(ClaudeRequests.toolResults(calls,
+                List.of(objectMapper.valueToTree(Map.of("totalApproved", 980.5)), objectMapper.valueToTree(Map.of("error", "bad")))));
+
+        assertThat(results).hasSize(1);
+        assertThat(results.at("/0/role").asText()).isEqualTo("user");
+        assertThat(results.at("/0/content/1/tool_use_id").asText()).isEqualTo("toolu_02");
+        assertThat(results.at("/0/content/0/content").asText()).isEqualTo("{\"totalApproved\":980.5}");
+    }
+
+    @Test
+    void geminiWrapsToolResultsInResponseObject() {
+        List<ToolCall> calls = List.of(new ToolCall(null, "category_breakdown", objectMapper.createObjectNode()));
+        JsonNode results = objectMapper.valueToTree(GeminiRequests.toolResults(calls,
+                List.of(objectMapper.valueToTree(List.of(Map.of("category", "Travel"))))));
+
+        assertThat(results.at("/0/parts/0/functionResponse/name").asText()).isEqualTo("category_breakdown");
+        assertThat(results.at("/0/parts/0/functionResponse/response/result/0/category").asText()).isEqualTo("Travel");
+        assertThat(results.at("/0/parts/0/functionResponse").has("id")).isFalse();
+    }
+
+    @Test
+    void parsesCacheHitsFromRecordedResponses() throws IOException {
+        assertThat(TokenUsage.fromClaude(fixture("claude-messages-response.json").path("usage")))
+                .isEqualTo(new TokenUsage(2209, 2188, 0, 14));
+        assertThat(TokenUsage.fromGemini(fixture("gemini-generate-response.json").path("usageMetadata")))
+                .isEqualTo(new TokenUsage(2209, 2188, 0, 13));
+        assertThat(TokenUsage.fromOpenAi(fixture("openai-chat-response.json").path("usage")))
+                .isEqualTo(new TokenUsage(2209, 2048, 0, 13));
+    }
+
+    private JsonNode fixture(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/ai/" + name)) {
+            return objectMapper.readTree(in);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.invoiceai.service.ai;
+
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiContextCacheTest {
+
+    private static final ChatTool TOOL = new ChatTool("spend_summary", "x".repeat(400),
+            Map.of("type", "object"), args -> Map.of());
+
+    @Test
+    void estimateCountsThePromptAndToolDeclarations() {
+        assertThat(GeminiContextCache.estimateTokens("y".repeat(4_000), List.of()))
+                .isEqualTo(1_000);
+        assertThat(GeminiContextCache.estimateTokens("y".repeat(4_000), List.of(TOOL)))
+                .isGreaterThan(1_100);
+    }
+
+    @Test
+    void promptsBelowTheMinimumAreSentInline() {
+        GeminiContextCache cache = new GeminiContextCache("unused", "gemini-2.0-flash", true, 30, 4_096);
+
+        assertThat(cache.handleFor("y".repeat(16_000), List.of(TOOL))).isNull();
+    }
+}
@@ -0,0 +1,61 @@
+package com.invoiceai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoiceai.service.ai.AiChatService.ChatTool;
+import com.invoiceai.service.ai.ToolLoop.ToolCall;
+import com.invoiceai.service.ai.ToolLoop.Turn;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ToolLoopTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ChatTool sumTool = new ChatTool("sum", "Adds a and b.", Map.of("type", "object"),
+            args -> Map.of("sum", args.path("a").asInt() + args.path("b").asInt()));
+
+    private final ChatTool failingTool = new ChatTool("fail", "Always fails.", Map.of("type", "object"),
+            args -> { throw new IllegalArgumentException("from is required"); });
+
+    @Test
+    void runsRequestedToolsAndReturnsFinalText() throws Exception {
+        List<Object> messages = new ArrayList<>(List.of("question"));
+        List<List<JsonNode>> formatted = new ArrayList<>();
+
+        String reply = ToolLoop.run(messages, List.of(sumTool, failingTool),
+                sent -> sent.size() == 1
+                        ? new Turn("", List.of(call("sum", Map.of("a", 2, "b", 3)), call("fail", Map.of()), call("nope", Map.of())), "calls")
+                        : new Turn("The sum is 5.", List.of(), "answer"),
+                (calls, results) -> {
+                    formatted.add(results);
+                    return List.of("results");
+                },
+                objectMapper);
+
+        assertThat(reply).isEqualTo("The sum is 5.");
+        assertThat(messages).containsExactly("question", "calls", "results");
+        assertThat(formatted.get(0).get(0).path("sum").asInt()).isEqualTo(5);
+        assertThat(formatted.get(0).get(1).path("error").asText()).isEqualTo("from is required");
+        assertThat(formatted.get(0).get(2).path("error").asText()).isEqualTo("Unknown tool: nope");
+    }
+
+    @Test
+    void stopsAModelThatNeverAnswers() {
+        assertThatThrownBy(() -> ToolLoop.run(new ArrayList<>(), List.of(sumTool),
+                sent -> new Turn("", List.of(call("sum", Map.of())), "calls"),
+                (calls, results) -> List.of("results"),
+                objectMapper))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private ToolCall call(String name, Map<String, Object> arguments) {
+        return new ToolCall(name + "-id", name, objectMapper.valueToTree(arguments));
+    }
+}
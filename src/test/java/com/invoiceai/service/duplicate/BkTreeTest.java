@@ -0,0 +1,63 @@
+package com.invoiceai.service.duplicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BkTreeTest {
+
+    @Test
+    void searchFindsExactlyWhatABruteForceHammingScanFinds() {
+        Random random = new Random(42);
+        Map<UUID, Long> hashes = new LinkedHashMap<>();
+        List<Long> bases = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            bases.add(random.nextLong());
+        }
+        // Clusters of near neighbours around a few bases, plus unrelated hashes and exact repeats
+        for (int i = 0; i < 2000; i++) {
+            long hash = i % 4 == 0 ? random.nextLong() : flipBits(bases.get(i % bases.size()), random.nextInt(12), random);
+            hashes.put(UUID.randomUUID(), hash);
+        }
+        hashes.put(UUID.randomUUID(), bases.get(0));
+        hashes.put(UUID.randomUUID(), bases.get(0));
+
+        BkTree tree = new BkTree();
+        hashes.forEach((id, hash) -> tree.add(hash, id));
+        assertThat(tree.size()).isEqualTo(hashes.size());
+
+        for (int q = 0; q < 200; q++) {
+            long query = q % 2 == 0 ? flipBits(bases.get(q % bases.size()), random.nextInt(8), random) : random.nextLong();
+            for (int radius : new int[]{0, 3, 6, 10}) {
+                List<BkTree.Match> expected = new ArrayList<>();
+                hashes.forEach((id, hash) -> {
+                    int distance = PerceptualHash.distance(query, hash);
+                    if (distance <= radius) {
+                        expected.add(new BkTree.Match(id, distance));
+                    }
+                });
+                assertThat(tree.search(query, radius)).containsExactlyInAnyOrderElementsOf(expected);
+            }
+        }
+    }
+
+    @Test
+    void emptyTreeFindsNothing() {
+        assertThat(new BkTree().search(123L, 64)).isEmpty();
+    }
+
+    private static long flipBits(long hash, int bits, Random random) {
+        long result = hash;
+        for (int i = 0; i < bits; i++) {
+            result ^= 1L << random.nextInt(64);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package com.invoiceai.service.duplicate;
+
+import com.invoiceai.repository.ExpenseRepository;
+import com.invoiceai.service.cache.CacheInvalidation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DuplicateCandidateIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final UUID orgId = UUID.randomUUID();
+    private final ExpenseRepository expenseRepository = mock(ExpenseRepository.class);
+    private DuplicateCandidateIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(expenseRepository.findDuplicateIndexRows(eq(orgId), any())).thenReturn(List.of());
+        index = new DuplicateCandidateIndex(expenseRepository, 180, 10, 30, 24);
+    }
+
+    @Test
+    void replicaAdditionIsAppliedWithoutReloading() {
+        assertThat(find("EUR")).isEmpty();
+        UUID expenseId = UUID.randomUUID();
+
+        index.invalidate(DuplicateCandidateIndex.added(orgId, expenseId, "Smith | Sons, Ltd.",
+                new BigDecimal("42.50"), "EUR", TODAY));
+
+        assertThat(find("EUR")).containsExactly(new IndexedExpense(expenseId, VendorNames.normalize("Smith | Sons, Ltd."),
+                new BigDecimal("42.50"), "EUR", TODAY));
+        verify(expenseRepository, times(1)).findDuplicateIndexRows(eq(orgId), any());
+    }
+
+    @Test
+    void replicaRemovalDropsOnlyThatEntry() {
+        find("USD");
+        UUID kept = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        index.add(orgId, kept, "Amazon", new BigDecimal("10.00"), "USD", TODAY);
+        index.add(orgId, removed, "Amazon", new BigDecimal("10.00"), "USD", TODAY);
+
+        index.invalidate(DuplicateCandidateIndex.removed(orgId, removed));
+
+        assertThat(find("USD")).extracting(IndexedExpense::id).containsExactly(kept);
+        verify(expenseRepository, times(1)).findDuplicateIndexRows(eq(orgId), any());
+    }
+
+    @Test
+    void invalidationWithoutKeyDropsTheOrgIndex() {
+        find("USD");
+
+        index.invalidate(CacheInvalidation.org(orgId, DuplicateCandidateIndex.CACHE_NAME));
+        find("USD");
+
+        verify(expenseRepository, times(2)).findDuplicateIndexRows(eq(orgId), any());
+    }
+
+    private List<IndexedExpense> find(String currency) {
+        return index.find(orgId, currency, TODAY.minusDays(1), TODAY, BigDecimal.ZERO, new BigDecimal("1000"));
+    }
+}
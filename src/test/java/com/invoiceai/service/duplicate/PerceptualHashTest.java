@@ -0,0 +1,132 @@
+package com.invoiceai.service.duplicate;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerceptualHashTest {
+
+    private static final int MAX_DISTANCE = 6;
+
+    @Test
+    void rescannedCopyOfTheSameReceiptStaysWithinTheMatchRadius() throws IOException {
+        BufferedImage original = receipt("CORNER CAFE", "Latte", "4.50", "2026-03-14", 0);
+        long hash = PerceptualHash.compute(jpeg(original), "image/jpeg");
+
+        // Smaller, slightly darker and re-encoded: what a second photo of the same paper looks like
+        BufferedImage copy = darken(scale(original, 0.7), 12);
+        long copyHash = PerceptualHash.compute(jpeg(copy), "image/jpeg");
+
+        assertThat(PerceptualHash.distance(hash, copyHash)).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void unrelatedReceiptsAreFarApart() {
+        long receipt = PerceptualHash.dHash(receipt("CORNER CAFE", "Latte", "4.50", "2026-03-14", 0));
+        long other = PerceptualHash.dHash(invoiceSheet());
+
+        assertThat(PerceptualHash.distance(receipt, other)).isGreaterThan(MAX_DISTANCE);
+    }
+
+    @Test
+    void receiptsFromOneTemplateCanHashAlikeDespiteDifferentContents() {
+        // Why a hash match only holds an upload as DUPLICATE for the user to confirm: same layout, different sale
+        long first = PerceptualHash.dHash(receipt("CORNER CAFE", "Latte", "4.50", "2026-03-14", 0));
+        long second = PerceptualHash.dHash(receipt("CORNER CAFE", "Flat white", "3.90", "2026-03-21", 1));
+
+        assertThat(PerceptualHash.distance(first, second)).isLessThanOrEqualTo(MAX_DISTANCE);
+    }
+
+    @Test
+    void distanceCountsDifferingBits() {
+        assertThat(PerceptualHash.distance(0L, 0L)).isZero();
+        assertThat(PerceptualHash.distance(0b1011L, 0b0001L)).isEqualTo(2);
+        assertThat(PerceptualHash.distance(0L, -1L)).isEqualTo(64);
+    }
+
+    private static BufferedImage receipt(String vendor, String item, String amount, String date, int extraLines) {
+        BufferedImage image = new BufferedImage(400, 800, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, 400, 800);
+            g.setColor(Color.DARK_GRAY);
+            g.fillRect(0, 0, 400, 120);
+            g.setColor(Color.WHITE);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 32));
+            g.drawString(vendor, 40, 75);
+            g.setColor(Color.BLACK);
+            g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 20));
+            g.drawString(date, 40, 180);
+            for (int i = 0; i <= extraLines; i++) {
+                g.drawString(item, 40, 260 + i * 30);
+                g.drawString(amount, 300, 260 + i * 30);
+            }
+            g.fillRect(40, 600, 320, 4);
+            g.setFont(new Font(Font.MONOSPACED, Font.BOLD, 24));
+            g.drawString("TOTAL " + amount, 40, 650);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static BufferedImage invoiceSheet() {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, 800, 600);
+            g.setColor(Color.BLACK);
+            for (int row = 0; row < 6; row++) {
+                g.fillRect(420, 40 + row * 90, 340, 50 - row * 6);
+            }
+            g.fillRect(40, 40, 200, 520);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static BufferedImage scale(BufferedImage image, double factor) {
+        int width = (int) (image.getWidth() * factor);
+        int height = (int) (image.getHeight() * factor);
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static BufferedImage darken(BufferedImage image, int amount) {
+        BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                Color c = new Color(image.getRGB(x, y));
+                result.setRGB(x, y, new Color(Math.max(c.getRed() - amount, 0), Math.max(c.getGreen() - amount, 0),
+                        Math.max(c.getBlue() - amount, 0)).getRGB());
+            }
+        }
+        return result;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
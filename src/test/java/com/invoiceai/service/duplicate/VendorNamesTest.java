@@ -0,0 +1,41 @@
+package com.invoiceai.service.duplicate;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class VendorNamesTest {
+
+    @Test
+    void normalizeStripsCaseUrlsDomainsPunctuationAndLegalSuffixes() {
+        assertThat(VendorNames.normalize("Amazon.com, Inc.")).isEqualTo("amazon");
+        assertThat(VendorNames.normalize("AMAZON")).isEqualTo("amazon");
+        assertThat(VendorNames.normalize("https://www.Uber.com/receipts")).isEqualTo("uber receipts");
+        assertThat(VendorNames.normalize("  Joe's   Coffee  LLC ")).isEqualTo("joe s coffee");
+        assertThat(VendorNames.normalize("Café Müller GmbH")).isEqualTo("café müller");
+    }
+
+    @Test
+    void normalizeKeepsNamesMadeOnlyOfSuffixes() {
+        assertThat(VendorNames.normalize("Co.")).isEqualTo("co");
+        assertThat(VendorNames.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void similarityIsJaroWinkler() {
+        assertThat(VendorNames.similarity("amazon", "amazon")).isEqualTo(1.0);
+        assertThat(VendorNames.similarity("amazon", "")).isEqualTo(0.0);
+        assertThat(VendorNames.similarity("abc", "xyz")).isEqualTo(0.0);
+        // Reference values from Winkler's paper
+        assertThat(VendorNames.similarity("martha", "marhta")).isCloseTo(0.961, within(0.001));
+        assertThat(VendorNames.similarity("dwayne", "duane")).isCloseTo(0.840, within(0.001));
+        assertThat(VendorNames.similarity("dixon", "dicksonx")).isCloseTo(0.813, within(0.001));
+    }
+
+    @Test
+    void similarityIsSymmetric() {
+        assertThat(VendorNames.similarity("starbucks", "starbuck"))
+                .isEqualTo(VendorNames.similarity("starbuck", "starbucks"));
+    }
+}
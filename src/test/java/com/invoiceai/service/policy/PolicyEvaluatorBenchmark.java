@@ -0,0 +1,135 @@
+package com.invoiceai.service.policy;
+
+import com.invoiceai.model.Category;
+import com.invoiceai.model.Expense;
+import com.invoiceai.model.ExpensePolicy;
+import com.invoiceai.model.User;
+import com.invoiceai.model.enums.PolicyRuleType;
+import com.invoiceai.model.enums.WindowDimension;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating one expense against a 100-policy set, with the aggregate lookups stubbed out
+ * so only the evaluator itself is measured. Run after {@code mvn test-compile} with
+ * {@code java -cp target/test-classes:target/classes:<test classpath> com.invoiceai.service.policy.PolicyEvaluatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyEvaluatorBenchmark {
+
+    private static final int CATEGORIES = 10;
+
+    private static final PolicyFacts FACTS = new PolicyFacts() {
+        @Override
+        public BigDecimal approvedCategoryMonthTotal(UUID categoryId, LocalDate monthStart) {
+            return BigDecimal.valueOf(4_900);
+        }
+
+        @Override
+        public WindowTotals window(WindowDimension dimension, String key, LocalDate from, LocalDate to) {
+            return new WindowTotals(3, BigDecimal.valueOf(450));
+        }
+    };
+
+    private List<ExpensePolicy> policies;
+    private PolicySet policySet;
+    private Expense categorized;
+    private Expense uncategorized;
+
+    @Setup
+    public void setUp() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(Category.builder().id(UUID.randomUUID()).name("C" + i).build());
+        }
+
+        // 100 policies, shaped like PolicyEvaluatorTest's: 90 category-scoped caps plus 10 global,
+        // windowed and required-field rules
+        policies = new ArrayList<>();
+        for (int i = 0; i < 90; i++) {
+            PolicyRuleType type = i % 2 == 0 ? PolicyRuleType.MAX_AMOUNT_PER_EXPENSE : PolicyRuleType.MAX_AMOUNT_PER_CATEGORY_MONTHLY;
+            policies.add(policy("P" + i, type, categories.get(i % CATEGORIES), BigDecimal.valueOf(100 + i), null));
+        }
+        policies.add(policy("global-cap", PolicyRuleType.MAX_AMOUNT_PER_EXPENSE, null, BigDecimal.valueOf(1_000), null));
+        policies.add(policy("global-monthly", PolicyRuleType.MAX_AMOUNT_PER_CATEGORY_MONTHLY, null, BigDecimal.valueOf(5_000), null));
+        policies.add(policy("vendor-monthly", PolicyRuleType.MAX_AMOUNT_PER_VENDOR_MONTHLY, null, BigDecimal.valueOf(1_000), null));
+        policies.add(policy("daily", PolicyRuleType.MAX_AMOUNT_PER_SUBMITTER_DAILY, null, BigDecimal.valueOf(500), null));
+        policies.add(policy("weekly", PolicyRuleType.MAX_AMOUNT_PER_SUBMITTER_WEEKLY, null, BigDecimal.valueOf(400), null));
+        ExpensePolicy frequency = policy("vendor-frequency", PolicyRuleType.MAX_EXPENSES_PER_VENDOR_IN_WINDOW, null, null, null);
+        frequency.setMaxCount(3);
+        frequency.setWindowDays(10);
+        policies.add(frequency);
+        policies.add(policy("needs-description", PolicyRuleType.REQUIRED_FIELD, categories.get(3), null, "description"));
+        policies.add(policy("needs-category", PolicyRuleType.REQUIRED_FIELD, null, null, "category"));
+        policies.add(policy("global-cap-2", PolicyRuleType.MAX_AMOUNT_PER_EXPENSE, null, BigDecimal.valueOf(2_000), null));
+        policies.add(policy("global-monthly-2", PolicyRuleType.MAX_AMOUNT_PER_CATEGORY_MONTHLY, null, BigDecimal.valueOf(9_000), null));
+        policySet = PolicySet.compile(policies);
+
+        User submitter = User.builder().id(UUID.randomUUID()).build();
+        categorized = expense(categories.get(0), submitter);
+        uncategorized = expense(null, submitter);
+    }
+
+    @Benchmark
+    public List<PolicyMatch> evaluateCategorizedExpense() {
+        return PolicyEvaluator.evaluate(policySet, categorized, FACTS);
+    }
+
+    @Benchmark
+    public List<PolicyMatch> evaluateUncategorizedExpense() {
+        return PolicyEvaluator.evaluate(policySet, uncategorized, FACTS);
+    }
+
+    @Benchmark
+    public PolicySet compilePolicySet() {
+        return PolicySet.compile(policies);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PolicyEvaluatorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static ExpensePolicy policy(String name, PolicyRuleType type, Category category, BigDecimal threshold, String field) {
+        return ExpensePolicy.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .ruleType(type)
+                .category(category)
+                .thresholdAmount(threshold)
+                .requiredField(field)
+                .build();
+    }
+
+    private static Expense expense(Category category, User submitter) {
+        return Expense.builder()
+                .vendorName("Acme")
+                .amount(new BigDecimal("150.00"))
+                .date(LocalDate.of(2026, 3, 14))
+                .category(category)
+                .submittedBy(submitter)
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.invoiceai.service.policy;
+
+import com.invoiceai.model.Category;
+import com.invoiceai.model.Expense;
+import com.invoiceai.model.ExpensePolicy;
+import com.invoiceai.model.User;
+import com.invoiceai.model.enums.ExpenseStatus;
+import com.invoiceai.model.enums.PolicyRuleType;
+import com.invoiceai.model.enums.WindowDimension;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PolicyEvaluatorTest {
+
+    private final List<Category> categories = new ArrayList<>();
+
+    @Test
+    void onlyRulesForTheExpenseCategoryApplyAndTheMonthlyTotalIsFetchedOnce() {
+        for (int i = 0; i < 10; i++) {
+            categories.add(Category.builder().id(UUID.randomUUID()).name("C" + i).build());
+        }
+        // 100 policies: per-expense and monthly caps spread over 10 categories, plus global rules
+        List<ExpensePolicy> policies = new ArrayList<>();
+        for (int i = 0; i < 96; i++) {
+            PolicyRuleType type = i % 2 == 0 ? PolicyRuleType.MAX_AMOUNT_PER_EXPENSE : PolicyRuleType.MAX_AMOUNT_PER_CATEGORY_MONTHLY;
+            policies.add(policy("P" + i, type, categories.get(i % 10), BigDecimal.valueOf(100 + i), null));
+        }
+        policies.add(policy("global-cap", PolicyRuleType.MAX_AMOUNT_PER_EXPENSE, null, BigDecimal.valueOf(1000), null));
+        policies.add(policy("global-monthly", PolicyRuleType.MAX_AMOUNT_PER_CATEGORY_MONTHLY, null, BigDecimal.valueOf(5000), null));
+        policies.add(policy("needs-description", PolicyRuleType.REQUIRED_FIELD, categories.get(3), null, "description"));
+        policies.add(policy("needs-category", PolicyRuleType.REQUIRED_FIELD, null, null, "category"));
+        PolicySet set = PolicySet.compile(policies);
+
+        AtomicInteger lookups = new AtomicInteger();
+        PolicyFacts facts = new StubFacts() {
+            @Override
+            public BigDecimal approvedCategoryMonthTotal(UUID categoryId, LocalDate monthStart) {
+                lookups.incrementAndGet();
+                assertThat(categoryId).isEqualTo(categories.get(0).getId());
+                assertThat(monthStart).isEqualTo(LocalDate.of(2026, 3, 1));
+                return BigDecimal.valueOf(4900);
+            }
+        };
+
+        List<PolicyMatch> matches = PolicyEvaluator.evaluate(set, expense(categories.get(0), "150.00"), facts);
+
+        assertThat(lookups).hasValue(1);
+        assertThat(matches).extracting(m -> m.policy().name())
+                // Category 0 holds the per-expense caps P0, P10..P90 (100..190); 150 exceeds five.
+                // Its only monthly cap is the global 5000, exceeded by 4900 + 150. Required-field
+                // rules apply whatever their category.
+                .containsExactlyInAnyOrder("P0", "P10", "P20", "P30", "P40",
+                        "global-monthly", "needs-description");
+    }
+
+    @Test
+    void uncategorizedExpenseSkipsCategoryRulesWithoutLookups() {
+        PolicySet set = PolicySet.compile(List.of(
+                policy("scoped", PolicyRuleType.MAX_AMOUNT_PER_EXPENSE, Category.builder().id(UUID.randomUUID()).build(), BigDecimal.ONE, null),
+                policy("monthly", PolicyRuleType.MAX_AMOUNT_PER_CATEGORY_MONTHLY, null, BigDecimal.ONE, null),
+                policy("needs-category", PolicyRuleType.REQUIRED_FIELD, null, null, "category")));
+
+        List<PolicyMatch> matches = PolicyEvaluator.evaluate(set, expense(null, "50.00"), new StubFacts());
+
+        assertThat(matches).extracting(m -> m.policy().name()).containsExactly("needs-category");
+    }
+
+    @Test
+    void approvedExpenseIsNotAddedToTheMonthlyTotalAgain() {
+        Category category = Category.builder().id(UUID.randomUUID()).build();
+        PolicySet set = PolicySet.compile(List.of(
+                policy("monthly", PolicyRuleType.MAX_AMOUNT_PER_CATEGORY_MONTHLY, category, BigDecimal.valueOf(1000), null)));
+        PolicyFacts facts = new StubFacts() {
+            @Override
+            public BigDecimal approvedCategoryMonthTotal(UUID categoryId, LocalDate monthStart) {
+                return BigDecimal.valueOf(950);
+            }
+        };
+
+        Expense pending = expense(category, "100.00");
+        Expense approved = expense(category, "100.00");
+        approved.setStatus(ExpenseStatus.APPROVED);
+
+        // 950 already counts the approved expense; a pending one would take the month to 1050
+        assertThat(PolicyEvaluator.evaluate(set, pending, facts)).extracting(PolicyMatch::message)
+                .containsExactly("Category monthly spend $1050.00 (with this expense) exceeds limit of $1000 (monthly)");
+        assertThat(PolicyEvaluator.evaluate(set, approved, facts)).isEmpty();
+    }
+
+    @Test
+    void windowedRulesReadOneCounterWindowEach() {
+        ExpensePolicy frequency = policy("vendor-frequency", PolicyRuleType.MAX_EXPENSES_PER_VENDOR_IN_WINDOW, null, null, null);
+        frequency.setMaxCount(3);
+        frequency.setWindowDays(10);
+        PolicySet set = PolicySet.compile(List.of(
+                frequency,
+                policy("vendor-monthly", PolicyRuleType.MAX_AMOUNT_PER_VENDOR_MONTHLY, null, BigDecimal.valueOf(1000), null),
+                policy("daily", PolicyRuleType.MAX_AMOUNT_PER_SUBMITTER_DAILY, null, BigDecimal.valueOf(500), null),
+                policy("weekly", PolicyRuleType.MAX_AMOUNT_PER_SUBMITTER_WEEKLY, null, BigDecimal.valueOf(400), null)));
+
+        User submitter = User.builder().id(UUID.randomUUID()).build();
+        Expense expense = expense(null, "120.00");
+        expense.setVendorName("ACME Corp");
+        expense.setSubmittedBy(submitter);
+
+        List<String> windows = new ArrayList<>();
+        PolicyFacts facts = new StubFacts() {
+            @Override
+            public WindowTotals window(WindowDimension dimension, String key, LocalDate from, LocalDate to) {
+                windows.add(dimension + " " + key + " " + from + ".." + to);
+                return dimension == WindowDimension.VENDOR
+                        ? new WindowTotals(4, BigDecimal.valueOf(800))
+                        : new WindowTotals(3, BigDecimal.valueOf(450));
+            }
+        };
+
+        List<PolicyMatch> matches = PolicyEvaluator.evaluate(set, expense, facts);
+
+        assertThat(matches).extracting(m -> m.policy().name()).containsExactlyInAnyOrder("vendor-frequency", "weekly");
+        assertThat(windows).containsExactlyInAnyOrder(
+                "VENDOR acme corp 2026-03-01..2026-03-31",
+                "SUBMITTER " + submitter.getId() + " 2026-03-14..2026-03-14",
+                "SUBMITTER " + submitter.getId() + " 2026-03-08..2026-03-14",
+                "VENDOR acme corp 2026-03-05..2026-03-14");
+    }
+
+    /** Fails on any lookup the test does not expect. */
+    private static class StubFacts implements PolicyFacts {
+        @Override
+        public BigDecimal approvedCategoryMonthTotal(UUID categoryId, LocalDate monthStart) {
+            throw new AssertionError("no category lookup expected");
+        }
+
+        @Override
+        public WindowTotals window(WindowDimension dimension, String key, LocalDate from, LocalDate to) {
+            throw new AssertionError("no window lookup expected");
+        }
+    }
+
+    private static ExpensePolicy policy(String name, PolicyRuleType type, Category category, BigDecimal threshold, String field) {
+        return ExpensePolicy.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .ruleType(type)
+                .category(category)
+                .thresholdAmount(threshold)
+                .requiredField(field)
+                .build();
+    }
+
+    private static Expense expense(Category category, String amount) {
+        return Expense.builder()
+                .vendorName("Acme")
+                .amount(new BigDecimal(amount))
+                .date(LocalDate.of(2026, 3, 14))
+                .category(category)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.invoiceai.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+/**
+ * An organization with one owner, inserted straight into the database for tests that seed rows
+ * with SQL. {@link #delete()} removes it and, through the schema's cascades, everything seeded
+ * under it.
+ */
+public final class TestOrganization {
+
+    private final JdbcTemplate jdbc;
+    private final UUID ownerId = UUID.randomUUID();
+    private final UUID id = UUID.randomUUID();
+
+    private TestOrganization(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public static TestOrganization create(JdbcTemplate jdbc) {
+        TestOrganization org = new TestOrganization(jdbc);
+        jdbc.update("INSERT INTO users (id, email, full_name, email_verified) VALUES (?, ?, 'Owner', TRUE)",
+                org.ownerId, org.ownerEmail());
+        jdbc.update("INSERT INTO organizations (id, name, slug, owner_id) VALUES (?, 'Org', ?, ?)",
+                org.id, org.id.toString(), org.ownerId);
+        jdbc.update("INSERT INTO organization_members (organization_id, user_id, role) VALUES (?, ?, 'OWNER')",
+                org.id, org.ownerId);
+        return org;
+    }
+
+    public UUID id() {
+        return id;
+    }
+
+    public UUID ownerId() {
+        return ownerId;
+    }
+
+    public String ownerEmail() {
+        return ownerId + "@example.com";
+    }
+
+    public void delete() {
+        // Expenses before the org: their rollup triggers write rows that reference it. The org
+        // before the owner: its invoices reference the owner without a cascade.
+        jdbc.update("DELETE FROM expenses WHERE organization_id = ?", id);
+        jdbc.update("DELETE FROM organizations WHERE id = ?", id);
+        jdbc.update("DELETE FROM users WHERE id = ?", ownerId);
+    }
+}